@@ -0,0 +1,38 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.Currency;
+import com.stockmarket.domain.PurchaseLot;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.Position;
+
+import java.time.LocalDate;
+
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    // deterministyczny portfel: mieszanka typów aktywów, partie rozłożone na ~10 lat
+    static Portfolio portfolio(int positions, int lotsPerPosition) {
+        Portfolio portfolio = new Portfolio(1_000_000.0);
+        LocalDate start = LocalDate.parse("2015-01-01");
+
+        for (int p = 0; p < positions; p++) {
+            Asset asset = switch (p % 3) {
+                case 0 -> new Share("S" + p, "Share " + p, 100.0 + p % 50);
+                case 1 -> new Commodity("C" + p, "Commodity " + p, 20.0 + p % 10, 0.0);
+                default -> new Currency("F" + p, "Currency " + p, 4.0 + p % 3, 0.0);
+            };
+
+            Position position = new Position(asset);
+            for (int l = 0; l < lotsPerPosition; l++) {
+                position.addLot(new PurchaseLot(start.plusDays(l % 3650), 10.0 + (l % 97) * 0.25, 1.0 + l % 5));
+            }
+            portfolio.getPositions().put(asset.getSymbol(), position);
+        }
+        return portfolio;
+    }
+}
@@ -0,0 +1,74 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.logic.BookSide;
+import com.stockmarket.logic.Order;
+import com.stockmarket.logic.OrderBook;
+import com.stockmarket.logic.OrderSide;
+import com.stockmarket.logic.PriceLevelOrderBook;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderBookBenchmark {
+
+    @Param({"HEAP", "LEVELS"})
+    public String book;
+
+    @Param({"1000", "100000"})
+    public int restingOrders;
+
+    private static final int ORDERS = 1 << 16;
+    private static final double MID = 100.0;
+    private static final double TICK = 0.01;
+
+    private BookSide side;
+    private Order[] incoming;
+    private int cursor;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        side = "HEAP".equals(book) ? new OrderBook(OrderSide.BUY) : new PriceLevelOrderBook(OrderSide.BUY);
+        SplittableRandom random = new SplittableRandom(42);
+
+        for (int i = 0; i < restingOrders; i++) {
+            side.add(new Order("XYZ", OrderSide.BUY, price(random), 1.0, i));
+        }
+
+        incoming = new Order[ORDERS];
+        for (int i = 0; i < ORDERS; i++) {
+            incoming[i] = new Order("XYZ", OrderSide.BUY, price(random), 1.0, restingOrders + i);
+        }
+        cursor = 0;
+    }
+
+    // większość zleceń blisko najlepszej ceny, ogon rozkładu daleko w księdze
+    private static double price(SplittableRandom random) {
+        int ticksAway = (int) Math.min(2_000, -Math.log(1.0 - random.nextDouble()) * 20.0);
+        return Math.round((MID - ticksAway * TICK) * 100.0) / 100.0;
+    }
+
+    @Benchmark
+    public void addThenPoll(Blackhole bh) {
+        Order order = incoming[cursor];
+        cursor = (cursor + 1) & (ORDERS - 1);
+
+        // zdjęte zlecenie wraca do puli wejściowej, więc rozmiar księgi pozostaje stały
+        side.add(order);
+        Order polled = side.poll();
+        bh.consume(polled);
+        incoming[(cursor + ORDERS - 1) & (ORDERS - 1)] = polled;
+    }
+
+    @Benchmark
+    public Order peek() {
+        return side.peek();
+    }
+}
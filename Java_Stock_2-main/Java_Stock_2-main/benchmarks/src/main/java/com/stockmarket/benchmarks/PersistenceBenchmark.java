@@ -0,0 +1,112 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.domain.FixedPoint;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.PortfolioPersistence;
+import com.stockmarket.logic.Position;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PersistenceBenchmark {
+
+    @Param({"100", "1000"})
+    public int positions;
+
+    @Param({"10", "1000"})
+    public int lotsPerPosition;
+
+    private final PortfolioPersistence persistence = new PortfolioPersistence();
+    private Portfolio portfolio;
+    private Path dir;
+    private Path saveTarget;
+    private Path loadSource;
+    private Path binarySaveTarget;
+    private Path binaryLoadSource;
+    private Path checkpointDir;
+    private Position changing;
+    private long tick;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        portfolio = BenchmarkData.portfolio(positions, lotsPerPosition);
+        dir = Files.createTempDirectory("stock-bench");
+        saveTarget = dir.resolve("save.txt");
+        loadSource = dir.resolve("load.txt");
+        persistence.save(portfolio, loadSource);
+        binarySaveTarget = dir.resolve("save.bin");
+        binaryLoadSource = dir.resolve("load.bin");
+        persistence.saveBinary(portfolio, binaryLoadSource);
+        checkpointDir = dir.resolve("checkpoint");
+        persistence.saveIncremental(portfolio, checkpointDir);
+        changing = portfolio.getPositions().values().iterator().next();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(saveTarget);
+        Files.deleteIfExists(loadSource);
+        Files.deleteIfExists(loadSource.resolveSibling(loadSource.getFileName() + ".idx"));
+        Files.deleteIfExists(saveTarget.resolveSibling(saveTarget.getFileName() + ".idx"));
+        Files.deleteIfExists(binarySaveTarget);
+        Files.deleteIfExists(binaryLoadSource);
+        try (Stream<Path> files = Files.walk(checkpointDir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public void save() {
+        persistence.save(portfolio, saveTarget);
+    }
+
+    @Benchmark
+    public Portfolio load() {
+        return persistence.load(loadSource);
+    }
+
+    @Benchmark
+    public Portfolio loadMapped() {
+        return persistence.loadMapped(loadSource);
+    }
+
+    @Benchmark
+    public Portfolio loadParallel() {
+        return persistence.loadParallel(loadSource);
+    }
+
+    // otwarcie portfela i dostęp do jednej pozycji - do porównania z load()
+    @Benchmark
+    public Position loadLazyOneSymbol() {
+        return persistence.loadLazy(loadSource).getPosition(changing.getAsset().getSymbol());
+    }
+
+    // punkt kontrolny po zmianie jednej pozycji - do porównania z pełnym save()
+    @Benchmark
+    public void saveIncrementalOneChange() {
+        changing.setMarkPriceUnits(FixedPoint.of(100.0) + (++tick & 1023));
+        persistence.saveIncremental(portfolio, checkpointDir);
+    }
+
+    @Benchmark
+    public void saveBinary() {
+        persistence.saveBinary(portfolio, binarySaveTarget);
+    }
+
+    @Benchmark
+    public Portfolio loadBinary() {
+        return persistence.load(binaryLoadSource);
+    }
+}
@@ -0,0 +1,54 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.SaleResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PortfolioBenchmark {
+
+    @Param({"10", "1000"})
+    public int positions;
+
+    private static final LocalDate DATE = LocalDate.parse("2024-01-02");
+
+    private Portfolio portfolio;
+    private Share[] shares;
+    private int cursor;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        portfolio = new Portfolio(1e10);
+        shares = new Share[positions];
+        for (int i = 0; i < positions; i++) {
+            shares[i] = new Share("S" + i, "Share " + i, 50.0 + i % 100);
+            portfolio.buyAsset(shares[i], 10.0, DATE, shares[i].getMarketPrice());
+        }
+        cursor = 0;
+    }
+
+    @Benchmark
+    public void buyAsset() {
+        Share share = shares[cursor];
+        cursor = cursor + 1 == positions ? 0 : cursor + 1;
+        portfolio.buyAsset(share, 1.0, DATE, share.getMarketPrice());
+    }
+
+    // kupno + sprzedaż tej samej ilości, żeby liczba partii się nie zmieniała
+    @Benchmark
+    public SaleResult buyThenSellAsset() {
+        Share share = shares[cursor];
+        cursor = cursor + 1 == positions ? 0 : cursor + 1;
+        portfolio.buyAsset(share, 1.0, DATE, share.getMarketPrice());
+        return portfolio.sellAsset(share.getSymbol(), 1.0, share.getMarketPrice(), DATE);
+    }
+}
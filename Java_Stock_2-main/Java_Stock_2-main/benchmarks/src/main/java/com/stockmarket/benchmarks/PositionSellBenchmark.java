@@ -0,0 +1,68 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.domain.FixedPoint;
+import com.stockmarket.domain.PurchaseLot;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.CostBasisMethod;
+import com.stockmarket.logic.Position;
+import com.stockmarket.logic.SaleAccumulator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Sprzedaż zużywa partie, więc każda pozycja jest sprzedawana raz. Pula POOL pozycji budowana jest
+// przed iteracją (poza pomiarem), jedno wywołanie sprzedaje z całej puli - wynik to czas jednej sprzedaży.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20)
+@Measurement(iterations = 50)
+@OperationsPerInvocation(PositionSellBenchmark.POOL)
+@Fork(1)
+@State(Scope.Thread)
+public class PositionSellBenchmark {
+
+    static final int POOL = 16;
+
+    @Param({"1", "100", "10000", "100000"})
+    public int lots;
+
+    @Param({"1", "HALF"})
+    public String sold;
+
+    private final Position[] positions = new Position[POOL];
+    private double quantityToSell;
+    private final SaleAccumulator accumulator = new SaleAccumulator();
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        LocalDate start = LocalDate.parse("2015-01-01");
+        for (int p = 0; p < POOL; p++) {
+            Position position = new Position(new Share("XYZ", "XYZ", 100.0));
+            for (int i = 0; i < lots; i++) {
+                position.addLot(new PurchaseLot(start.plusDays(i % 3650), 90.0 + (i % 20), 1.0));
+            }
+            positions[p] = position;
+        }
+        quantityToSell = "HALF".equals(sold) ? Math.max(1, lots / 2) : 1.0;
+    }
+
+    @Benchmark
+    public void sellFifo(Blackhole bh) {
+        for (Position position : positions) {
+            bh.consume(position.sellFifo(quantityToSell, 120.0));
+        }
+    }
+
+    // ta sama sprzedaż przez odbiorcę wielokrotnego użytku - do porównania gc.alloc.rate.norm
+    @Benchmark
+    public void sellFifoIntoSink(Blackhole bh) {
+        long quantity = FixedPoint.of(quantityToSell);
+        long price = FixedPoint.of(120.0);
+        for (Position position : positions) {
+            accumulator.reset();
+            bh.consume(position.sellUnits(CostBasisMethod.FIFO, quantity, price, accumulator));
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.ReportGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReportBenchmark {
+
+    @Param({"10", "1000"})
+    public int positions;
+
+    @Param({"1", "1000"})
+    public int lotsPerPosition;
+
+    private final ReportGenerator generator = new ReportGenerator();
+    private Portfolio portfolio;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        portfolio = BenchmarkData.portfolio(positions, lotsPerPosition);
+    }
+
+    @Benchmark
+    public String generate() {
+        return generator.generate(portfolio);
+    }
+}
@@ -0,0 +1,54 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.Order;
+import com.stockmarket.logic.OrderSide;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.RiskGate;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// rezerwacja + zwolnienie (przyjęcie i anulowanie) na wspólnej bramce; -t N pokazuje koszt rywalizacji CAS
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RiskGateBenchmark {
+
+    private RiskGate gate;
+
+    @State(Scope.Thread)
+    public static class Orders {
+        Order buy;
+        Order sell;
+
+        @Setup
+        public void setUp() {
+            buy = new Order("XYZ", OrderSide.BUY, 100.0, 1.0, 0);
+            sell = new Order("XYZ", OrderSide.SELL, 100.0, 1.0, 0);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        Portfolio portfolio = new Portfolio(1e10);
+        portfolio.buyAsset(new Share("XYZ", "XYZ", 100.0), 1_000_000, LocalDate.parse("2023-01-02"), 100.0);
+        gate = new RiskGate(portfolio);
+    }
+
+    @Benchmark
+    public boolean reserveAndReleaseBuy(Orders orders) {
+        gate.tryReserve(orders.buy);
+        return gate.release(orders.buy);
+    }
+
+    @Benchmark
+    public boolean reserveAndReleaseSell(Orders orders) {
+        gate.tryReserve(orders.sell);
+        return gate.release(orders.sell);
+    }
+}
@@ -5,7 +5,7 @@ import java.util.Objects;
 public abstract class Asset {
     private final String symbol;
     private final String name;
-    private final double marketPrice;
+    private final long marketPriceUnits; // FixedPoint
 
     public Asset(String symbol, String name, double marketPrice) {
         this.symbol = Objects.requireNonNull(symbol);
@@ -15,7 +15,7 @@ public abstract class Asset {
             throw new IllegalArgumentException("Market price cannot be negative");
         }
 
-        this.marketPrice = marketPrice;
+        this.marketPriceUnits = FixedPoint.of(marketPrice);
     }
 
     public String getSymbol() {
@@ -27,14 +27,29 @@ public abstract class Asset {
     }
 
     public double getMarketPrice() {
-        return marketPrice;
+        return FixedPoint.toDouble(marketPriceUnits);
+    }
+
+    public long getMarketPriceUnits() {
+        return marketPriceUnits;
     }
 
     public abstract AssetType getType();
 
-    public abstract double calculateRealValue(double quantity);
+    public double calculateRealValue(double quantity) {
+        return calculateRealValue(quantity, getMarketPrice());
+    }
+
+    // wartość przy podanej cenie rynkowej - pozwala przeceniać pozycję bez tworzenia nowego Asset
+    public abstract double calculateRealValue(double quantity, double marketPrice);
+
     public abstract double calculateAcquisitionCost(double quantity);
 
+    // te same wzory na FixedPoint (ilość i cena w jednostkach 1e-8) - bez double w saldzie i wycenie
+    public abstract long calculateRealValueUnits(long quantityUnits, long marketPriceUnits);
+
+    public abstract long calculateAcquisitionCostUnits(long quantityUnits);
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
@@ -4,6 +4,7 @@ public class Commodity extends Asset {
 
     // procentowy koszt magazynowania jednej jednostki surowca
     private final double storageCostRatePerUnit;
+    private final long storageCostRateUnits;
 
     public Commodity(String symbol, String name, double marketPrice, double storageCostRatePerUnit) {
         super(symbol, name, marketPrice);
@@ -14,6 +15,7 @@ public class Commodity extends Asset {
 
 
         this.storageCostRatePerUnit = storageCostRatePerUnit;
+        this.storageCostRateUnits = FixedPoint.of(storageCostRatePerUnit);
     }
 
     public double getStorageCostRatePerUnit() {
@@ -26,8 +28,8 @@ public class Commodity extends Asset {
     }
 
     @Override
-    public double calculateRealValue(double quantity) {
-        double baseValue = getMarketPrice() * quantity;
+    public double calculateRealValue(double quantity, double marketPrice) {
+        double baseValue = marketPrice * quantity;
 
         // całkowity procentowy koszt magazynowania zależny od wolumenu
         double totalRate = storageCostRatePerUnit * quantity;
@@ -42,4 +44,22 @@ public class Commodity extends Asset {
     public double calculateAcquisitionCost(double quantity) {
         return getMarketPrice() * quantity;
     }
+
+    @Override
+    public long calculateRealValueUnits(long quantityUnits, long marketPriceUnits) {
+        // stawka ograniczona do 100% jeszcze przed mnożeniem, żeby duży wolumen nie przepełnił long
+        long totalRate = 0;
+        if (storageCostRateUnits > 0) {
+            if (quantityUnits >= FixedPoint.divide(FixedPoint.SCALE, storageCostRateUnits)) return 0;
+            totalRate = Math.min(FixedPoint.multiply(storageCostRateUnits, quantityUnits), FixedPoint.SCALE);
+        }
+
+        long baseValue = FixedPoint.multiply(marketPriceUnits, quantityUnits);
+        return FixedPoint.multiply(baseValue, FixedPoint.SCALE - totalRate);
+    }
+
+    @Override
+    public long calculateAcquisitionCostUnits(long quantityUnits) {
+        return FixedPoint.multiply(getMarketPriceUnits(), quantityUnits);
+    }
 }
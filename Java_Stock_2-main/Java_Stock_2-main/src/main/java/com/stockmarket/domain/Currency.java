@@ -2,6 +2,7 @@ package com.stockmarket.domain;
 
 public class Currency extends Asset {
     private final double spread;
+    private final long spreadUnits;
 
     public Currency(String symbol, String name, double marketPrice, double spread) {
         super(symbol, name, marketPrice);
@@ -11,6 +12,7 @@ public class Currency extends Asset {
         }
 
         this.spread = spread;
+        this.spreadUnits = FixedPoint.of(spread);
     }
 
     public double getSpread() {
@@ -23,9 +25,9 @@ public class Currency extends Asset {
     }
 
     @Override
-    public double calculateRealValue(double quantity) {
+    public double calculateRealValue(double quantity, double marketPrice) {
         //bidPrice = cena, jaką otrzymasz, gdy sprzedajesz walutę
-        double bidPrice = getMarketPrice() - spread;
+        double bidPrice = marketPrice - spread;
         if (bidPrice < 0) {
             bidPrice = 0;
         }
@@ -36,4 +38,15 @@ public class Currency extends Asset {
     public double calculateAcquisitionCost(double quantity) {
         return getMarketPrice() * quantity;
     }
+
+    @Override
+    public long calculateRealValueUnits(long quantityUnits, long marketPriceUnits) {
+        long bidPriceUnits = Math.max(0, marketPriceUnits - spreadUnits);
+        return FixedPoint.multiply(bidPriceUnits, quantityUnits);
+    }
+
+    @Override
+    public long calculateAcquisitionCostUnits(long quantityUnits) {
+        return FixedPoint.multiply(getMarketPriceUnits(), quantityUnits);
+    }
 }
@@ -0,0 +1,119 @@
+package com.stockmarket.domain;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+// Ceny i ilości jako long przeskalowany o 1e8 (8 miejsc po przecinku).
+// Zakres: ok. +/- 92 mld jednostek; przekroczenie kończy się ArithmeticException, a nie cichym błędem.
+public final class FixedPoint {
+
+    public static final int DECIMALS = 8;
+    public static final long SCALE = 100_000_000L;
+
+    private static final BigInteger BIG_SCALE = BigInteger.valueOf(SCALE);
+    // poniżej tej wartości v * SCALE mieści się dokładnie w mantysie double
+    private static final double FAST_PATH_LIMIT = 10_000_000.0;
+
+    private FixedPoint() {
+    }
+
+    public static long of(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("Value must be finite: " + value);
+        }
+        if (Math.abs(value) < FAST_PATH_LIMIT) {
+            return (long) Math.rint(value * SCALE);
+        }
+        // od 1e7 double ma najwyżej 29 bitów po przecinku, a SCALE = 2^8 * 5^8 (5^8 to 19 bitów), więc iloczyn
+        // części ułamkowej i SCALE jest w double dokładny - zaokrąglenie bankierskie bez BigDecimal i bez alokacji
+        long whole = (long) value;
+        double fraction = value - whole;
+        return Math.addExact(Math.multiplyExact(whole, SCALE), (long) Math.rint(fraction * SCALE));
+    }
+
+    // dokładne parsowanie zapisu dziesiętnego, bez pośrednictwa double
+    public static long parse(String text) {
+        return new BigDecimal(text).setScale(DECIMALS, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    public static double toDouble(long units) {
+        return units / (double) SCALE;
+    }
+
+    // zapis dziesiętny bez zbędnych zer, zawsze z częścią ułamkową (np. "150.0", "0.00000001")
+    public static String format(long units) {
+        BigDecimal d = BigDecimal.valueOf(units, DECIMALS).stripTrailingZeros();
+        if (d.scale() <= 0) d = d.setScale(1);
+        return d.toPlainString();
+    }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    // a * b w skali 1e8, zaokrąglenie bankierskie
+    public static long multiply(long a, long b) {
+        long hi = Math.multiplyHigh(a, b);
+        long lo = a * b;
+        if ((hi == 0 && lo >= 0) || (hi == -1 && lo < 0)) {
+            return divideRounded(lo, SCALE);
+        }
+        if (a == Long.MIN_VALUE || b == Long.MIN_VALUE) {
+            BigInteger product = BigInteger.valueOf(a).multiply(BigInteger.valueOf(b));
+            return new BigDecimal(product).divide(new BigDecimal(BIG_SCALE), 0, RoundingMode.HALF_EVEN).longValueExact();
+        }
+        return multiplyWide(a, b);
+    }
+
+    // iloczyn nie mieści się w long (np. ilość * cena > ~922), ale wynik po podzieleniu przez SCALE zwykle tak:
+    // dzielenie 128-bitowego modułu iloczynu przez SCALE porcjami po 32 bity, bez BigInteger
+    private static long multiplyWide(long a, long b) {
+        boolean negative = (a < 0) != (b < 0);
+        long x = Math.abs(a);
+        long y = Math.abs(b);
+        long hi = Math.multiplyHigh(x, y);
+        long lo = x * y;
+        if (hi >= SCALE) throw new ArithmeticException("long overflow");
+
+        long cur = (hi << 32) | (lo >>> 32);
+        long q1 = cur / SCALE;
+        long r = cur % SCALE;
+        cur = (r << 32) | (lo & 0xFFFF_FFFFL);
+        long q0 = cur / SCALE;
+        r = cur % SCALE;
+        if ((q1 >>> 31) != 0) throw new ArithmeticException("long overflow");
+
+        long q = (q1 << 32) + q0;
+        long twice = r * 2;
+        if (twice > SCALE || (twice == SCALE && (q & 1) != 0)) {
+            q = Math.incrementExact(q);
+        }
+        return negative ? -q : q;
+    }
+
+    // a / b w skali 1e8, zaokrąglenie bankierskie
+    public static long divide(long a, long b) {
+        if (b == 0) throw new ArithmeticException("Division by zero");
+        if (Math.abs(a) <= Long.MAX_VALUE / SCALE) {
+            long n = a * SCALE;
+            return b > 0 ? divideRounded(n, b) : divideRounded(-n, -b);
+        }
+        return new BigDecimal(BigInteger.valueOf(a).multiply(BIG_SCALE))
+                .divide(BigDecimal.valueOf(b), 0, RoundingMode.HALF_EVEN).longValueExact();
+    }
+
+    private static long divideRounded(long value, long divisor) {
+        long q = Math.floorDiv(value, divisor);
+        long r = Math.floorMod(value, divisor);
+        long twice = r * 2;
+        if (twice > divisor || (twice == divisor && (q & 1) != 0)) {
+            q++;
+        }
+        return q;
+    }
+}
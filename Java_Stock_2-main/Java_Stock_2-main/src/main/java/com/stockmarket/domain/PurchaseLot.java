@@ -4,25 +4,40 @@ import java.time.LocalDate;
 
 public class PurchaseLot { //zakup
     private final LocalDate purchaseDate;
-    private final double unitPrice;
-    private double quantity; //ile jeszcze zostało
+    private final long unitPriceUnits; // FixedPoint
+    private long quantityUnits; //ile jeszcze zostało (FixedPoint)
 
     public PurchaseLot(LocalDate purchaseDate, double unitPrice, double quantity) {
+        this(purchaseDate, toUnits(unitPrice, "unit price"), toUnits(quantity, "quantity"));
+    }
+
+    private PurchaseLot(LocalDate purchaseDate, long unitPriceUnits, long quantityUnits) {
         if (purchaseDate == null) {
             throw new NullPointerException("purchase date cannot be null");
         }
 
-        if (unitPrice < 0) {
+        if (unitPriceUnits < 0) {
             throw new IllegalArgumentException("unit price cannot be negative");
         }
 
-        if (quantity < 0) {
+        if (quantityUnits < 0) {
             throw new IllegalArgumentException("quantity cannot be negative");
         }
 
         this.purchaseDate = purchaseDate;
-        this.unitPrice = unitPrice;
-        this.quantity = quantity;
+        this.unitPriceUnits = unitPriceUnits;
+        this.quantityUnits = quantityUnits;
+    }
+
+    public static PurchaseLot ofUnits(LocalDate purchaseDate, long unitPriceUnits, long quantityUnits) {
+        return new PurchaseLot(purchaseDate, unitPriceUnits, quantityUnits);
+    }
+
+    private static long toUnits(double value, String field) {
+        if (value < 0) {
+            throw new IllegalArgumentException(field + " cannot be negative");
+        }
+        return FixedPoint.of(value);
     }
 
     public LocalDate getPurchaseDate() {
@@ -30,17 +45,32 @@ public class PurchaseLot { //zakup
     }
 
     public double getUnitPrice() {
-        return unitPrice;
+        return FixedPoint.toDouble(unitPriceUnits);
     }
 
     public double getQuantity() {
-        return quantity;
+        return FixedPoint.toDouble(quantityUnits);
+    }
+
+    public long getUnitPriceUnits() {
+        return unitPriceUnits;
+    }
+
+    public long getQuantityUnits() {
+        return quantityUnits;
     }
 
     public void reduceQuantity(double amount) {
-        if (amount <= 0 || amount > quantity) {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Invalid amount");
+        }
+        reduceQuantityUnits(FixedPoint.of(amount));
+    }
+
+    public void reduceQuantityUnits(long amount) {
+        if (amount <= 0 || amount > quantityUnits) {
             throw new IllegalArgumentException("Invalid amount");
         }
-        this.quantity -= amount;
+        this.quantityUnits -= amount;
     }
-}
\ No newline at end of file
+}
@@ -2,6 +2,7 @@ package com.stockmarket.domain;
 
 public class Share extends Asset {
     private static final double MANIPULATION_FEE = 5.0;
+    private static final long MANIPULATION_FEE_UNITS = FixedPoint.of(MANIPULATION_FEE);
 
     public Share(String symbol, String name, double marketPrice) {
         super(symbol, name, marketPrice);
@@ -13,12 +14,22 @@ public class Share extends Asset {
     }
 
     @Override
-    public double calculateRealValue(double quantity) {
-        return getMarketPrice() * quantity;
+    public double calculateRealValue(double quantity, double marketPrice) {
+        return marketPrice * quantity;
     }
 
     @Override
     public double calculateAcquisitionCost(double quantity) {
         return getMarketPrice() * quantity + MANIPULATION_FEE;
     }
+
+    @Override
+    public long calculateRealValueUnits(long quantityUnits, long marketPriceUnits) {
+        return FixedPoint.multiply(marketPriceUnits, quantityUnits);
+    }
+
+    @Override
+    public long calculateAcquisitionCostUnits(long quantityUnits) {
+        return FixedPoint.add(FixedPoint.multiply(getMarketPriceUnits(), quantityUnits), MANIPULATION_FEE_UNITS);
+    }
 }
@@ -1,6 +1,8 @@
 package com.stockmarket.exceptions;
 
 public class DataIntegrityException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
     public DataIntegrityException(String message) {
         super(message);
     }
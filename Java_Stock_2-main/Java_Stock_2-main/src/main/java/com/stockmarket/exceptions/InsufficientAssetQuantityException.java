@@ -1,6 +1,8 @@
 package com.stockmarket.exceptions;
 
 public class InsufficientAssetQuantityException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
     public InsufficientAssetQuantityException(String message) {
         super(message);
     }
@@ -1,6 +1,8 @@
 package com.stockmarket.exceptions;
 
 public class InsufficientFundsException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
     public InsufficientFundsException(String message) {
         super(message);
     }
@@ -0,0 +1,140 @@
+package com.stockmarket.logic;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+// Rejestr kont: portfel dostaje gęsty numer konta, a dla każdego symbolu trzymamy tablicę int numerów kont,
+// które go posiadają. Indeks aktualizuje się przez PortfolioListener przy otwarciu/zamknięciu pozycji,
+// więc rozesłanie zdarzenia dla symbolu dotyka tylko faktycznych posiadaczy. Jeden wątek piszący.
+public class AccountRegistry implements PortfolioListener {
+
+    private static final int[] NO_ACCOUNTS = new int[0];
+
+    private static final class Holders {
+        int[] accounts = NO_ACCOUNTS;
+        int count;
+    }
+
+    private Portfolio[] accounts = new Portfolio[16];
+    private int accountCount;
+    private int activeCount;
+    private final Map<String, Holders> holdersBySymbol = new HashMap<>();
+
+    public int register(Portfolio portfolio) {
+        if (portfolio == null) throw new IllegalArgumentException("Portfolio cannot be null");
+        if (portfolio.accountId >= 0 || portfolio.getListener() != null) {
+            throw new IllegalArgumentException("Portfolio is already registered");
+        }
+
+        if (accountCount == accounts.length) {
+            accounts = Arrays.copyOf(accounts, accountCount * 2);
+        }
+        int id = accountCount++;
+        accounts[id] = portfolio;
+        activeCount++;
+        portfolio.accountId = id;
+
+        // przed podpięciem słuchacza: iteracja wczytuje pozycje portfela leniwego, a każde wczytanie
+        // zgłosiłoby otwarcie pozycji i symbol trafiłby do indeksu dwa razy
+        for (Position p : portfolio.getPositions().values()) {
+            addHolder(id, p);
+        }
+        portfolio.setListener(this);
+        return id;
+    }
+
+    // numer konta nie jest używany ponownie
+    public void unregister(int accountId) {
+        Portfolio portfolio = get(accountId);
+        for (Position p : portfolio.getPositions().values()) {
+            removeHolder(p);
+        }
+        portfolio.setListener(null);
+        portfolio.accountId = -1;
+        accounts[accountId] = null;
+        activeCount--;
+    }
+
+    public Portfolio get(int accountId) {
+        if (accountId < 0 || accountId >= accountCount || accounts[accountId] == null) {
+            throw new IllegalArgumentException("Unknown account: " + accountId);
+        }
+        return accounts[accountId];
+    }
+
+    public int size() {
+        return activeCount;
+    }
+
+    // liczba symboli z co najmniej jednym posiadaczem
+    int indexedSymbolCount() {
+        return holdersBySymbol.size();
+    }
+
+    public int getHolderCount(String symbol) {
+        Holders holders = holdersBySymbol.get(symbol);
+        return holders == null ? 0 : holders.count;
+    }
+
+    public int[] getHolders(String symbol) {
+        Holders holders = holdersBySymbol.get(symbol);
+        return holders == null ? NO_ACCOUNTS : Arrays.copyOf(holders.accounts, holders.count);
+    }
+
+    // bez kopiowania; wywołanie zwrotne nie może otwierać ani zamykać pozycji w tym symbolu
+    public void forEachHolder(String symbol, ObjIntConsumer<Portfolio> action) {
+        if (action == null) throw new IllegalArgumentException("Action cannot be null");
+        Holders holders = holdersBySymbol.get(symbol);
+        if (holders == null) return;
+        for (int i = 0; i < holders.count; i++) {
+            int id = holders.accounts[i];
+            action.accept(accounts[id], id);
+        }
+    }
+
+    @Override
+    public void onPositionOpened(Portfolio portfolio, Position position) {
+        addHolder(portfolio.accountId, position);
+    }
+
+    @Override
+    public void onPositionClosed(Portfolio portfolio, Position position) {
+        removeHolder(position);
+    }
+
+    private void addHolder(int accountId, Position position) {
+        String symbol = position.getAsset().getSymbol();
+        Holders holders = holdersBySymbol.get(symbol);
+        if (holders == null) {
+            holders = new Holders();
+            holdersBySymbol.put(symbol, holders);
+        }
+        if (holders.count == holders.accounts.length) {
+            holders.accounts = Arrays.copyOf(holders.accounts, Math.max(4, holders.count * 2));
+        }
+        position.holderSlot = holders.count;
+        holders.accounts[holders.count++] = accountId;
+    }
+
+    // usunięcie w O(1): ostatni posiadacz wskakuje na zwolnione miejsce i dostaje nowy numer slotu
+    private void removeHolder(Position position) {
+        String symbol = position.getAsset().getSymbol();
+        Holders holders = holdersBySymbol.get(symbol);
+        int slot = position.holderSlot;
+        if (holders == null || slot < 0 || slot >= holders.count) {
+            throw new IllegalStateException("Position is not indexed");
+        }
+
+        int last = --holders.count;
+        if (slot != last) {
+            int movedId = holders.accounts[last];
+            holders.accounts[slot] = movedId;
+            accounts[movedId].getPosition(symbol).holderSlot = slot;
+        }
+        position.holderSlot = -1;
+        // bez wpisów dla symboli, których nikt już nie ma
+        if (last == 0) holdersBySymbol.remove(symbol);
+    }
+}
@@ -0,0 +1,6 @@
+package com.stockmarket.logic;
+
+public enum BatchMode {
+    ALL_OR_NOTHING,
+    BEST_EFFORT
+}
@@ -0,0 +1,34 @@
+package com.stockmarket.logic;
+
+public class BatchResult {
+
+    private final TradeStatus[] statuses;
+    private final SaleResult[] sales;
+    private final int appliedCount;
+    private final boolean committed;
+
+    BatchResult(TradeStatus[] statuses, SaleResult[] sales, int appliedCount, boolean committed) {
+        this.statuses = statuses;
+        this.sales = sales;
+        this.appliedCount = appliedCount;
+        this.committed = committed;
+    }
+
+    public int size() { return statuses.length; }
+    public int getAppliedCount() { return appliedCount; }
+    public int getRejectedCount() { return statuses.length - appliedCount; }
+
+    // false tylko gdy ALL_OR_NOTHING odrzucił całą paczkę
+    public boolean isCommitted() { return committed; }
+
+    public TradeStatus getStatus(int index) {
+        if (index < 0 || index >= statuses.length) throw new IndexOutOfBoundsException();
+        return statuses[index];
+    }
+
+    // raport sprzedaży dla zastosowanej transakcji SELL, w pozostałych przypadkach null
+    public SaleResult getSaleResult(int index) {
+        if (index < 0 || index >= sales.length) throw new IndexOutOfBoundsException();
+        return sales[index];
+    }
+}
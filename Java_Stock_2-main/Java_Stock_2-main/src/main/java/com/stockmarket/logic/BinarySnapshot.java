@@ -0,0 +1,206 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.*;
+import com.stockmarket.exceptions.DataIntegrityException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Map;
+
+// Binarny zrzut portfela (big-endian), zapis i odczyt przez FileChannel z buforem direct:
+//   nagłówek:  int MAGIC, short VERSION, short flagi (0), long gotówka (FixedPoint), int liczba pozycji
+//   pozycja:   int długość rekordu (bajty za tym polem), byte typ aktywa, symbol i nazwa (short długość + UTF-8),
+//              long cena rynkowa (FixedPoint), double parametr typu (koszt składowania / spread, 0 dla akcji),
+//              long zadeklarowana ilość, int liczba partii, partie po 20 bajtów: int epoch day, long cena, long ilość
+// Walidacja taka sama jak w formacie tekstowym.
+final class BinarySnapshot {
+
+    static final int MAGIC = 0x53544B50; // "STKP"
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 4 + 2 + 2 + 8 + 4;
+    static final int LOT_BYTES = 4 + 8 + 8;
+
+    private static final int BUFFER_BYTES = 1 << 20;
+    private static final AssetType[] TYPES = AssetType.values();
+
+    private BinarySnapshot() {
+    }
+
+    static boolean isSnapshot(FileChannel channel) throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(4);
+        for (int n = 0; n >= 0 && magic.hasRemaining(); ) {
+            n = channel.read(magic, magic.position());
+        }
+        return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+    }
+
+    static void write(Portfolio portfolio, FileChannel channel) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        buf.putInt(MAGIC).putShort(VERSION).putShort((short) 0)
+                .putLong(portfolio.getCashUnits()).putInt(portfolio.getPositions().size());
+
+        for (Map.Entry<String, Position> entry : portfolio.getPositions().entrySet()) {
+            Position pos = entry.getValue();
+            Asset a = pos.getAsset();
+            byte[] symbol = utf8(a.getSymbol(), "symbol");
+            byte[] name = utf8(a.getName(), "name");
+            LotStore lots = pos.lotStore();
+            int lotCount = pos.getLotCount();
+
+            int head = 1 + 2 + symbol.length + 2 + name.length + 8 + 8 + 8 + 4;
+            long length = head + (long) lotCount * LOT_BYTES;
+            if (length > Integer.MAX_VALUE) throw new DataIntegrityException("Position too large for snapshot: " + a.getSymbol());
+
+            ensure(channel, buf, 4 + head);
+            buf.putInt((int) length).put((byte) a.getType().ordinal())
+                    .putShort((short) symbol.length).put(symbol)
+                    .putShort((short) name.length).put(name)
+                    .putLong(pos.getMarkPriceUnits()).putDouble(typeParameter(a))
+                    .putLong(pos.getTotalQuantityUnits()).putInt(lotCount);
+
+            for (int i = 0; i < lots.slotCount(); i++) {
+                if (lots.quantityAt(i) == 0) continue; // tombstone
+                ensure(channel, buf, LOT_BYTES);
+                buf.putInt(lots.dayAt(i)).putLong(lots.priceAt(i)).putLong(lots.quantityAt(i));
+            }
+        }
+        flush(channel, buf);
+    }
+
+    static Portfolio read(FileChannel channel) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        buf.flip();
+
+        need(channel, buf, HEADER_BYTES);
+        if (buf.getInt() != MAGIC) throw new DataIntegrityException("Invalid snapshot magic");
+        short version = buf.getShort();
+        if (version != VERSION) throw new DataIntegrityException("Unsupported snapshot version: " + version);
+        buf.getShort(); // flagi
+        long cash = buf.getLong();
+        int positions = buf.getInt();
+        if (cash < 0) throw new DataIntegrityException("Invalid number for cash: " + FixedPoint.format(cash));
+        if (positions < 0) throw new DataIntegrityException("Invalid position count: " + positions);
+
+        Portfolio portfolio = Portfolio.ofCashUnits(cash);
+        for (int p = 0; p < positions; p++) {
+            need(channel, buf, 4 + 1 + 2);
+            int length = buf.getInt();
+            int typeIndex = buf.get();
+            if (typeIndex < 0 || typeIndex >= TYPES.length) throw new DataIntegrityException("Invalid asset type: " + typeIndex);
+            String symbol = readString(channel, buf);
+            need(channel, buf, 2);
+            String name = readString(channel, buf);
+            need(channel, buf, 8 + 8 + 8 + 4);
+            long markPrice = buf.getLong();
+            double parameter = buf.getDouble();
+            long declaredQty = buf.getLong();
+            int lotCount = buf.getInt();
+            if (lotCount < 0 || length != recordLength(symbol, name, lotCount)) {
+                throw new DataIntegrityException("Invalid ASSET record length for " + symbol);
+            }
+
+            Asset asset = createAsset(TYPES[typeIndex], symbol, name, FixedPoint.toDouble(markPrice), parameter);
+            Position pos = portfolio.getPosition(symbol);
+            if (pos == null) {
+                pos = new Position(asset);
+                portfolio.getPositions().put(symbol, pos);
+            }
+
+            long lotsQtySum = 0;
+            for (int i = 0; i < lotCount; i++) {
+                need(channel, buf, LOT_BYTES);
+                int day = buf.getInt();
+                long price = buf.getLong();
+                long qty = buf.getLong();
+                if (qty <= 0) throw new DataIntegrityException("Invalid lot quantity: " + FixedPoint.format(qty));
+                if (price < 0) throw new DataIntegrityException("Invalid number for lot unit price: " + FixedPoint.format(price));
+                pos.addLotUnits(LocalDate.ofEpochDay(day), price, qty);
+                lotsQtySum += qty;
+            }
+            if (declaredQty != lotsQtySum) {
+                throw new DataIntegrityException(
+                        "Lots quantity sum mismatch for " + symbol + ": expected=" + FixedPoint.format(declaredQty)
+                                + ", actual=" + FixedPoint.format(lotsQtySum)
+                );
+            }
+        }
+
+        if (buf.hasRemaining() || fill(channel, buf) > 0) throw new DataIntegrityException("Trailing data after snapshot");
+        return portfolio;
+    }
+
+    private static Asset createAsset(AssetType type, String symbol, String name, double marketPrice, double parameter) {
+        try {
+            return switch (type) {
+                case SHARE -> new Share(symbol, name, marketPrice);
+                case COMMODITY -> new Commodity(symbol, name, marketPrice, parameter);
+                case CURRENCY -> new Currency(symbol, name, marketPrice, parameter);
+            };
+        } catch (IllegalArgumentException ex) {
+            throw new DataIntegrityException("Invalid ASSET record for " + symbol + ": " + ex.getMessage());
+        }
+    }
+
+    private static double typeParameter(Asset a) {
+        if (a instanceof Commodity c) return c.getStorageCostRatePerUnit();
+        if (a instanceof Currency c) return c.getSpread();
+        return 0.0;
+    }
+
+    private static int recordLength(String symbol, String name, int lotCount) {
+        long length = 1 + 2 + symbol.getBytes(StandardCharsets.UTF_8).length + 2 + name.getBytes(StandardCharsets.UTF_8).length
+                + 8 + 8 + 8 + 4 + (long) lotCount * LOT_BYTES;
+        return length > Integer.MAX_VALUE ? -1 : (int) length;
+    }
+
+    private static byte[] utf8(String s, String field) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) throw new DataIntegrityException("Asset " + field + " too long for snapshot");
+        return bytes;
+    }
+
+    // wymaga 2 bajtów długości już w buforze; niepoprawne UTF-8 to uszkodzony plik, nie znaki zastępcze
+    private static String readString(FileChannel channel, ByteBuffer buf) throws IOException {
+        int length = buf.getShort() & 0xFFFF;
+        need(channel, buf, length);
+        ByteBuffer bytes = buf.slice(buf.position(), length);
+        buf.position(buf.position() + length);
+        try {
+            return StandardCharsets.UTF_8.newDecoder().decode(bytes).toString();
+        } catch (CharacterCodingException e) {
+            throw new DataIntegrityException("Invalid UTF-8 in snapshot string", e);
+        }
+    }
+
+    private static void ensure(FileChannel channel, ByteBuffer buf, int bytes) throws IOException {
+        if (buf.remaining() < bytes) flush(channel, buf);
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+        buf.clear();
+    }
+
+    // bufor w trybie odczytu; dociąga dane, aż będzie co najmniej bytes bajtów
+    private static void need(FileChannel channel, ByteBuffer buf, int bytes) throws IOException {
+        while (buf.remaining() < bytes) {
+            if (fill(channel, buf) < 0) throw new DataIntegrityException("Truncated snapshot");
+        }
+    }
+
+    private static int fill(FileChannel channel, ByteBuffer buf) throws IOException {
+        buf.compact();
+        int read = channel.read(buf);
+        buf.flip();
+        return read;
+    }
+}
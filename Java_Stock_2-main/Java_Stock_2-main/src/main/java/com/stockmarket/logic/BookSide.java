@@ -0,0 +1,34 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.FixedPoint;
+
+public interface BookSide {
+    OrderSide getSide();
+
+    void add(Order order);
+
+    Order peek();
+
+    Order poll();
+
+    default Order fillHead(double quantity) {
+        if (quantity <= 0) throw new IllegalArgumentException("Invalid fill amount");
+        return fillHeadUnits(FixedPoint.of(quantity));
+    }
+
+    Order fillHeadUnits(long quantity);
+
+    Order find(long orderId);
+
+    boolean cancel(long orderId);
+
+    // zmniejszenie ilości przy tej samej cenie zachowuje miejsce w kolejce
+    default boolean amend(long orderId, double newQuantity, double newLimitPrice) {
+        Order.validateAmend(newQuantity, newLimitPrice);
+        return amendUnits(orderId, FixedPoint.of(newQuantity), FixedPoint.of(newLimitPrice));
+    }
+
+    boolean amendUnits(long orderId, long newQuantity, long newLimitPrice);
+
+    int size();
+}
@@ -0,0 +1,7 @@
+package com.stockmarket.logic;
+
+public enum CommandType {
+    NEW,
+    CANCEL,
+    AMEND
+}
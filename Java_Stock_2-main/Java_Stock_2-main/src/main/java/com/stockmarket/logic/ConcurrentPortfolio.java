@@ -0,0 +1,174 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.FixedPoint;
+import com.stockmarket.domain.PurchaseLot;
+import com.stockmarket.exceptions.InsufficientFundsException;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Wariant Portfolio dla wielu wątków:
+// - pozycje w ConcurrentHashMap, zmiany jednej pozycji pod blokadą paska (stripe) wyliczonego z symbolu,
+//   więc transakcje na różnych symbolach idą równolegle,
+// - gotówka i wartość aktywów w jednym niezmiennym obiekcie Totals podmienianym przez CAS:
+//   rezerwacja gotówki i zmiana wartości wchodzą razem, a czytelnik widzi spójną parę jednym odczytem volatile.
+public class ConcurrentPortfolio {
+
+    private static final int DEFAULT_STRIPES = 64;
+
+    private static final class Totals {
+        final long cashUnits;
+        final long assetsValueUnits;
+
+        Totals(long cashUnits, long assetsValueUnits) {
+            this.cashUnits = cashUnits;
+            this.assetsValueUnits = assetsValueUnits;
+        }
+    }
+
+    private final Map<String, Position> positions = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks;
+    private final int mask;
+    private final AtomicReference<Totals> totals;
+
+    public ConcurrentPortfolio(double initialCash) {
+        this(initialCash, DEFAULT_STRIPES);
+    }
+
+    public ConcurrentPortfolio(double initialCash, int stripes) {
+        if (initialCash < 0) throw new IllegalArgumentException("Initial cash cannot be negative");
+        if (stripes <= 0 || Integer.bitCount(stripes) != 1) throw new IllegalArgumentException("Stripes must be a power of two");
+
+        this.locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = stripes - 1;
+        this.totals = new AtomicReference<>(new Totals(FixedPoint.of(initialCash), 0));
+    }
+
+    public double getCash() {
+        return FixedPoint.toDouble(totals.get().cashUnits);
+    }
+
+    public long getCashUnits() {
+        return totals.get().cashUnits;
+    }
+
+    public double calculateAssetsRealValue() {
+        return FixedPoint.toDouble(totals.get().assetsValueUnits);
+    }
+
+    public double calculateTotalValue() {
+        Totals t = totals.get();
+        return FixedPoint.toDouble(FixedPoint.add(t.cashUnits, t.assetsValueUnits));
+    }
+
+    public int getHoldingsCount() {
+        return positions.size();
+    }
+
+    public double getQuantity(String symbol) {
+        if (symbol == null) throw new IllegalArgumentException("Symbol cannot be null");
+        ReentrantLock lock = lockFor(symbol);
+        lock.lock();
+        try {
+            Position position = positions.get(symbol);
+            return position == null ? 0.0 : position.getTotalQuantity();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void buyAsset(Asset asset, double quantity, LocalDate date, double unitPrice) {
+        if (asset == null) throw new IllegalArgumentException("Asset cannot be null");
+        if (quantity <= 0) throw new IllegalArgumentException("Quantity must be positive");
+
+        PurchaseLot lot = new PurchaseLot(date, unitPrice, quantity);
+        long cost = asset.calculateAcquisitionCostUnits(lot.getQuantityUnits());
+
+        ReentrantLock lock = lockFor(asset.getSymbol());
+        lock.lock();
+        try {
+            Position position = positions.get(asset.getSymbol());
+            boolean opened = position == null;
+            if (opened) position = new Position(asset);
+
+            // wartość po zakupie liczona z góry, żeby gotówka i aktywa zmieniły się jednym CAS
+            long valueDelta = position.valueAt(position.getTotalQuantityUnits() + lot.getQuantityUnits(), position.getMarkPriceUnits())
+                    - position.getMarketValueUnits();
+            while (true) {
+                Totals t = totals.get();
+                if (cost > t.cashUnits) {
+                    throw new InsufficientFundsException("Insufficient funds");
+                }
+                if (totals.compareAndSet(t, new Totals(t.cashUnits - cost, t.assetsValueUnits + valueDelta))) break;
+            }
+
+            position.addLot(lot);
+            if (opened) positions.put(asset.getSymbol(), position);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public SaleResult sellAsset(String symbol, double quantity, double sellUnitPrice, LocalDate saleDate) {
+        if (symbol == null) throw new IllegalArgumentException("Symbol cannot be null");
+
+        ReentrantLock lock = lockFor(symbol);
+        lock.lock();
+        try {
+            Position position = positions.get(symbol);
+            if (position == null) {
+                throw new IllegalArgumentException("No such asset in portfolio");
+            }
+
+            long valueBefore = position.getMarketValueUnits();
+            SaleResult result = position.sellFifo(quantity, sellUnitPrice);
+            long proceeds = FixedPoint.multiply(result.getTotalSoldQuantityUnits(), FixedPoint.of(sellUnitPrice));
+            apply(proceeds, position.getMarketValueUnits() - valueBefore);
+
+            if (position.getTotalQuantityUnits() == 0) {
+                positions.remove(symbol);
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void setMarkPrice(String symbol, double price) {
+        if (symbol == null) throw new IllegalArgumentException("Symbol cannot be null");
+        if (price < 0) throw new IllegalArgumentException("Mark price cannot be negative");
+
+        ReentrantLock lock = lockFor(symbol);
+        lock.lock();
+        try {
+            Position position = positions.get(symbol);
+            if (position == null) return;
+            long valueBefore = position.getMarketValueUnits();
+            position.setMarkPrice(price);
+            apply(0, position.getMarketValueUnits() - valueBefore);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void apply(long cashDelta, long valueDelta) {
+        if (cashDelta == 0 && valueDelta == 0) return;
+        while (true) {
+            Totals t = totals.get();
+            Totals next = new Totals(FixedPoint.add(t.cashUnits, cashDelta), t.assetsValueUnits + valueDelta);
+            if (totals.compareAndSet(t, next)) return;
+        }
+    }
+
+    private ReentrantLock lockFor(String symbol) {
+        int h = symbol.hashCode();
+        return locks[(h ^ (h >>> 16)) & mask];
+    }
+}
@@ -0,0 +1,8 @@
+package com.stockmarket.logic;
+
+public enum CostBasisMethod {
+    FIFO,
+    LIFO,
+    HIFO, // najwyższa cena zakupu najpierw
+    LOFO  // najniższa cena zakupu najpierw
+}
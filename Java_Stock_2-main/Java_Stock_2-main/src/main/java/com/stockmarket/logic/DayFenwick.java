@@ -0,0 +1,65 @@
+package com.stockmarket.logic;
+
+// Drzewo Fenwicka sum po dniach (epoch day), zakres rośnie w obie strony w miarę potrzeby.
+// Dodanie i suma przedziału w O(log n); przy powiększeniu drzewo budowane od nowa w O(n) z sum dziennych.
+final class DayFenwick {
+
+    private int baseDay;
+    private long[] daily = new long[0];
+    private long[] tree = new long[1]; // indeksowane od 1
+
+    void add(int day, long value) {
+        ensureRange(day);
+        int index = day - baseDay;
+        daily[index] += value;
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += value;
+        }
+    }
+
+    // suma dla dni [from, to] włącznie
+    long sum(int fromDay, int toDay) {
+        if (fromDay > toDay) return 0;
+        return prefix(toDay) - prefix(fromDay - 1);
+    }
+
+    // suma dla dni <= day
+    private long prefix(int day) {
+        if (daily.length == 0 || day < baseDay) return 0;
+        int index = Math.min(day - baseDay, daily.length - 1);
+        long sum = 0;
+        for (int i = index + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    private void ensureRange(int day) {
+        if (daily.length == 0) {
+            baseDay = day;
+            daily = new long[64];
+            tree = new long[65];
+            return;
+        }
+        if (day >= baseDay && day < baseDay + daily.length) return;
+
+        int low = Math.min(baseDay, day);
+        int high = Math.max(baseDay + daily.length - 1, day);
+        int capacity = daily.length;
+        while (capacity < high - low + 1) capacity *= 2;
+        // zapas po stronie, w którą zakres rośnie
+        int newBase = day < baseDay ? high - capacity + 1 : low;
+
+        long[] newDaily = new long[capacity];
+        System.arraycopy(daily, 0, newDaily, baseDay - newBase, daily.length);
+        baseDay = newBase;
+        daily = newDaily;
+
+        tree = new long[capacity + 1];
+        for (int i = 1; i <= capacity; i++) {
+            tree[i] += daily[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= capacity) tree[parent] += tree[i];
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.stockmarket.logic;
+
+public enum DepthChange {
+    ADDED,
+    CHANGED,
+    REMOVED
+}
@@ -0,0 +1,23 @@
+package com.stockmarket.logic;
+
+public class DepthDelta {
+    private final OrderSide side;
+    private final DepthChange change;
+    private final double price;
+    private final double quantity;
+    private final int orderCount;
+
+    public DepthDelta(OrderSide side, DepthChange change, double price, double quantity, int orderCount) {
+        this.side = side;
+        this.change = change;
+        this.price = price;
+        this.quantity = quantity;
+        this.orderCount = orderCount;
+    }
+
+    public OrderSide getSide() { return side; }
+    public DepthChange getChange() { return change; }
+    public double getPrice() { return price; }
+    public double getQuantity() { return quantity; }
+    public int getOrderCount() { return orderCount; }
+}
@@ -0,0 +1,17 @@
+package com.stockmarket.logic;
+
+public class DepthLevel {
+    private final double price;
+    private final double quantity;
+    private final int orderCount;
+
+    public DepthLevel(double price, double quantity, int orderCount) {
+        this.price = price;
+        this.quantity = quantity;
+        this.orderCount = orderCount;
+    }
+
+    public double getPrice() { return price; }
+    public double getQuantity() { return quantity; }
+    public int getOrderCount() { return orderCount; }
+}
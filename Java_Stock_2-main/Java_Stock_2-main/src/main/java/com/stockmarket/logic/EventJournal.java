@@ -0,0 +1,455 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.Currency;
+import com.stockmarket.domain.FixedPoint;
+import com.stockmarket.exceptions.DataIntegrityException;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Dziennik zdarzeń tylko do dopisywania, w segmentach mapowanych do pamięci.
+// Segment: [int MAGIC][int VERSION], potem rekordy [int długość][byte typ][dane];
+// długość zapisywana na końcu, więc 0 oznacza koniec danych.
+// Ceny i ilości zapisywane w FixedPoint (long), więc odtworzenie daje dokładnie ten sam stan.
+public class EventJournal implements FillListener, AutoCloseable {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int LENGTH_BYTES = Integer.BYTES;
+    private static final int MAGIC = 0x534A524E; // "SJRN"
+    private static final int VERSION = 2; // 1: ceny i ilości jako double, bez nagłówka
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final JournalEventType[] TYPES = JournalEventType.values();
+    private static final AssetType[] ASSET_TYPES = AssetType.values();
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int commitEvery;
+    private final Map<String, byte[]> encodedStrings = new HashMap<>();
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int segmentIndex;
+    private int uncommitted;
+    private boolean closed;
+
+    // commitEvery = ile rekordów zbiera się przed wymuszeniem zapisu na dysk (group commit)
+    public EventJournal(Path directory, int segmentSize, int commitEvery) {
+        if (directory == null) throw new IllegalArgumentException("Directory cannot be null");
+        if (segmentSize < 1024) throw new IllegalArgumentException("Segment size must be at least 1024 bytes");
+        if (commitEvery <= 0) throw new IllegalArgumentException("Commit interval must be positive");
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.commitEvery = commitEvery;
+
+        try {
+            Files.createDirectories(directory);
+            List<Path> segments = listSegments(directory);
+            if (segments.isEmpty()) {
+                openSegment(0);
+            } else {
+                // dopisujemy za ostatnim pełnym rekordem ostatniego segmentu (numer z nazwy - lista może mieć luki)
+                Path last = segments.get(segments.size() - 1);
+                openSegment(segmentNumber(last));
+                checkHeader(buffer, last);
+                buffer.position(endOfData(buffer));
+            }
+        } catch (IOException e) {
+            throw new DataIntegrityException("I/O error opening journal", e);
+        }
+    }
+
+    public void appendOrder(Order order) {
+        if (order == null) throw new IllegalArgumentException("Order cannot be null");
+        byte[] symbol = encode(order.getSymbol());
+        int start = begin(JournalEventType.ORDER, 8 + 1 + 8 + 8 + 8 + stringSize(symbol));
+        buffer.putLong(order.getId());
+        buffer.put((byte) order.getSide().ordinal());
+        buffer.putLong(order.getLimitPriceUnits());
+        buffer.putLong(order.getRemainingQuantityUnits());
+        buffer.putLong(order.getCreatedAtMillis());
+        putString(symbol);
+        end(start);
+    }
+
+    public void appendCancel(String symbol, long orderId) {
+        if (symbol == null) throw new IllegalArgumentException("Symbol cannot be null");
+        byte[] s = encode(symbol);
+        int start = begin(JournalEventType.CANCEL, 8 + stringSize(s));
+        buffer.putLong(orderId);
+        putString(s);
+        end(start);
+    }
+
+    // konwersja jak w MatchingEngine.amend, więc zapisane jednostki są tymi, które trafiły do księgi
+    public void appendAmend(String symbol, long orderId, double newQuantity, double newLimitPrice) {
+        appendAmendUnits(symbol, orderId, FixedPoint.of(newQuantity), FixedPoint.of(newLimitPrice));
+    }
+
+    public void appendAmendUnits(String symbol, long orderId, long newQuantityUnits, long newLimitPriceUnits) {
+        if (symbol == null) throw new IllegalArgumentException("Symbol cannot be null");
+        byte[] s = encode(symbol);
+        int start = begin(JournalEventType.AMEND, 8 + 8 + 8 + stringSize(s));
+        buffer.putLong(orderId);
+        buffer.putLong(newQuantityUnits);
+        buffer.putLong(newLimitPriceUnits);
+        putString(s);
+        end(start);
+    }
+
+    public void appendFill(Fill fill) {
+        if (fill == null) throw new IllegalArgumentException("Fill cannot be null");
+        byte[] s = encode(fill.getSymbol());
+        int start = begin(JournalEventType.FILL, 8 + 8 + 1 + 8 + 8 + stringSize(s));
+        buffer.putLong(fill.getBuyOrder().getId());
+        buffer.putLong(fill.getSellOrder().getId());
+        buffer.put((byte) fill.getAggressorSide().ordinal());
+        buffer.putLong(fill.getPriceUnits());
+        buffer.putLong(fill.getQuantityUnits());
+        putString(s);
+        end(start);
+    }
+
+    public void appendBuy(Asset asset, double quantity, LocalDate date, double unitPrice) {
+        appendBuyUnits(asset, FixedPoint.of(quantity), date, FixedPoint.of(unitPrice));
+    }
+
+    // parametr aktywa (stawka magazynowania, spread) zostaje jako double - tak go przechowuje i przyjmuje aktywo
+    public void appendBuyUnits(Asset asset, long quantityUnits, LocalDate date, long unitPriceUnits) {
+        if (asset == null) throw new IllegalArgumentException("Asset cannot be null");
+        if (date == null) throw new IllegalArgumentException("Date cannot be null");
+        byte[] symbol = encode(asset.getSymbol());
+        byte[] name = encode(asset.getName());
+        int start = begin(JournalEventType.BUY, 1 + 8 + 8 + 8 + 4 + 8 + stringSize(symbol) + stringSize(name));
+        buffer.put((byte) asset.getType().ordinal());
+        buffer.putDouble(assetParameter(asset));
+        buffer.putLong(asset.getMarketPriceUnits());
+        buffer.putLong(quantityUnits);
+        buffer.putInt((int) date.toEpochDay());
+        buffer.putLong(unitPriceUnits);
+        putString(symbol);
+        putString(name);
+        end(start);
+    }
+
+    public void appendSell(String symbol, double quantity, double sellUnitPrice, LocalDate saleDate) {
+        appendSellUnits(symbol, FixedPoint.of(quantity), FixedPoint.of(sellUnitPrice), saleDate);
+    }
+
+    public void appendSellUnits(String symbol, long quantityUnits, long sellUnitPriceUnits, LocalDate saleDate) {
+        if (symbol == null) throw new IllegalArgumentException("Symbol cannot be null");
+        if (saleDate == null) throw new IllegalArgumentException("Date cannot be null");
+        byte[] s = encode(symbol);
+        int start = begin(JournalEventType.SELL, 8 + 8 + 4 + stringSize(s));
+        buffer.putLong(quantityUnits);
+        buffer.putLong(sellUnitPriceUnits);
+        buffer.putInt((int) saleDate.toEpochDay());
+        putString(s);
+        end(start);
+    }
+
+    @Override
+    public void onFill(Fill fill) {
+        appendFill(fill);
+    }
+
+    // wymusza zapis wszystkich dopisanych rekordów na dysk
+    public void commit() {
+        ensureOpen();
+        if (uncommitted == 0) return;
+        buffer.force();
+        uncommitted = 0;
+    }
+
+    public int getSegmentCount() {
+        return segmentIndex + 1;
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        commit();
+        closed = true;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new DataIntegrityException("I/O error closing journal", e);
+        }
+    }
+
+    public static long replay(Path directory, JournalHandler handler) {
+        if (directory == null) throw new IllegalArgumentException("Directory cannot be null");
+        if (handler == null) throw new IllegalArgumentException("Handler cannot be null");
+
+        long records = 0;
+        try {
+            for (Path segment : listSegments(directory)) {
+                try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.READ)) {
+                    MappedByteBuffer in = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+                    if (!checkHeader(in, segment)) continue;
+                    in.position(HEADER_BYTES);
+                    while (in.remaining() >= LENGTH_BYTES) {
+                        int length = in.getInt();
+                        if (length == 0) break;
+                        if (length < 0 || length > in.remaining()) {
+                            throw new DataIntegrityException("Corrupted journal record in " + segment.getFileName());
+                        }
+                        // rekord czytany tylko w swoich granicach - uszkodzony nie sięgnie do następnego
+                        ByteBuffer record = in.slice(in.position(), length);
+                        try {
+                            dispatch(record, handler);
+                        } catch (BufferUnderflowException e) {
+                            throw new DataIntegrityException("Truncated journal record in " + segment.getFileName(), e);
+                        }
+                        in.position(in.position() + length);
+                        records++;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new DataIntegrityException("I/O error during journal replay", e);
+        }
+        return records;
+    }
+
+    // pola czytane w całości przed wywołaniem odbiorcy; wyjątki odbiorcy nie są zamieniane na błędy dziennika
+    private static void dispatch(ByteBuffer in, JournalHandler handler) {
+        int typeIndex = in.get();
+        if (typeIndex < 0 || typeIndex >= TYPES.length) {
+            throw new DataIntegrityException("Invalid journal record type: " + typeIndex);
+        }
+
+        switch (TYPES[typeIndex]) {
+            case ORDER -> {
+                long id = in.getLong();
+                OrderSide side = getSide(in);
+                long price = in.getLong();
+                long qty = in.getLong();
+                long createdAt = in.getLong();
+                String symbol = getString(in);
+                checkConsumed(in);
+                handler.onOrder(id, symbol, side, price, qty, createdAt);
+            }
+            case CANCEL -> {
+                long id = in.getLong();
+                String symbol = getString(in);
+                checkConsumed(in);
+                handler.onCancel(symbol, id);
+            }
+            case AMEND -> {
+                long id = in.getLong();
+                long qty = in.getLong();
+                long price = in.getLong();
+                String symbol = getString(in);
+                checkConsumed(in);
+                handler.onAmend(symbol, id, qty, price);
+            }
+            case FILL -> {
+                long buyId = in.getLong();
+                long sellId = in.getLong();
+                OrderSide aggressor = getSide(in);
+                long price = in.getLong();
+                long qty = in.getLong();
+                String symbol = getString(in);
+                checkConsumed(in);
+                handler.onFill(symbol, buyId, sellId, aggressor, price, qty);
+            }
+            case BUY -> {
+                int assetType = in.get();
+                if (assetType < 0 || assetType >= ASSET_TYPES.length) {
+                    throw new DataIntegrityException("Invalid asset type in journal: " + assetType);
+                }
+                double parameter = in.getDouble();
+                long marketPrice = in.getLong();
+                long qty = in.getLong();
+                LocalDate date = LocalDate.ofEpochDay(in.getInt());
+                long unitPrice = in.getLong();
+                String symbol = getString(in);
+                String name = getString(in);
+                checkConsumed(in);
+                handler.onBuy(ASSET_TYPES[assetType], symbol, name, marketPrice, parameter, qty, date, unitPrice);
+            }
+            case SELL -> {
+                long qty = in.getLong();
+                long price = in.getLong();
+                LocalDate date = LocalDate.ofEpochDay(in.getInt());
+                String symbol = getString(in);
+                checkConsumed(in);
+                handler.onSell(symbol, qty, price, date);
+            }
+        }
+    }
+
+    private static OrderSide getSide(ByteBuffer in) {
+        int side = in.get();
+        if (side < 0 || side > 1) throw new DataIntegrityException("Invalid order side in journal: " + side);
+        return side == 0 ? OrderSide.BUY : OrderSide.SELL;
+    }
+
+    private static void checkConsumed(ByteBuffer in) {
+        if (in.hasRemaining()) throw new DataIntegrityException("Trailing data in journal record");
+    }
+
+    private int begin(JournalEventType type, int payloadSize) {
+        ensureOpen();
+        int recordSize = LENGTH_BYTES + 1 + payloadSize;
+        if (HEADER_BYTES + recordSize + LENGTH_BYTES > segmentSize) {
+            throw new IllegalArgumentException("Record does not fit into a journal segment");
+        }
+        // miejsce na rekord i na znacznik końca (0) za nim
+        if (buffer.remaining() < recordSize + LENGTH_BYTES) {
+            rollSegment();
+        }
+
+        int start = buffer.position();
+        buffer.position(start + LENGTH_BYTES);
+        buffer.put((byte) type.ordinal());
+        return start;
+    }
+
+    // najpierw znacznik końca za rekordem, potem długość: po awarii z urwanym rekordem dopisany w jego miejscu
+    // krótszy rekord nie zostawia za sobą resztek starych danych, które odczyt wziąłby za długość
+    private void end(int start) {
+        int length = buffer.position() - start - LENGTH_BYTES;
+        buffer.putInt(buffer.position(), 0);
+        buffer.putInt(start, length);
+        if (++uncommitted >= commitEvery) {
+            commit();
+        }
+    }
+
+    private void rollSegment() {
+        commit();
+        try {
+            channel.close();
+            openSegment(segmentIndex + 1);
+        } catch (IOException e) {
+            throw new DataIntegrityException("I/O error rolling journal segment", e);
+        }
+    }
+
+    private void openSegment(int index) throws IOException {
+        Path file = directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentSize, channel.size()));
+        segmentIndex = index;
+        if (buffer.getInt(0) == 0) writeHeader();
+    }
+
+    // nowy segment (także pozostawiony pusty po awarii) dostaje nagłówek przed pierwszym rekordem
+    private void writeHeader() {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(Integer.BYTES, VERSION);
+        buffer.position(HEADER_BYTES);
+        uncommitted++;
+    }
+
+    // false = segment bez danych (same zera); inny nagłówek to nieobsługiwany format
+    private static boolean checkHeader(MappedByteBuffer in, Path segment) {
+        if (in.limit() < HEADER_BYTES) {
+            if (in.limit() == 0) return false;
+            throw new DataIntegrityException("Truncated journal segment header in " + segment.getFileName());
+        }
+        int magic = in.getInt(0);
+        int version = in.getInt(Integer.BYTES);
+        if (magic == 0 && version == 0) return false;
+        if (magic != MAGIC || version != VERSION) {
+            throw new DataIntegrityException("Unsupported journal format in " + segment.getFileName());
+        }
+        return true;
+    }
+
+    private static int endOfData(MappedByteBuffer in) {
+        int pos = HEADER_BYTES;
+        while (pos + LENGTH_BYTES <= in.limit()) {
+            int length = in.getInt(pos);
+            if (length <= 0 || pos + LENGTH_BYTES + length > in.limit()) break;
+            pos += LENGTH_BYTES + length;
+        }
+        return pos;
+    }
+
+    private static List<Path> listSegments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) return segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(p -> segmentNumber(p) >= 0)
+                    .sorted(Comparator.comparingInt(EventJournal::segmentNumber))
+                    .forEach(segments::add);
+        }
+        return segments;
+    }
+
+    // numer segmentu z nazwy journal-<numer>.log albo -1 dla innych plików
+    private static int segmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) return -1;
+        String digits = name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length());
+        if (digits.isEmpty() || !digits.chars().allMatch(c -> c >= '0' && c <= '9')) return -1;
+        try {
+            return Integer.parseInt(digits);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) throw new IllegalStateException("Journal is closed");
+    }
+
+    private byte[] encode(String s) {
+        byte[] bytes = encodedStrings.get(s);
+        if (bytes == null) {
+            bytes = s.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > Short.MAX_VALUE) throw new IllegalArgumentException("String too long for journal");
+            encodedStrings.put(s, bytes);
+        }
+        return bytes;
+    }
+
+    private static int stringSize(byte[] bytes) {
+        return Short.BYTES + bytes.length;
+    }
+
+    private void putString(byte[] bytes) {
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getShort();
+        if (length < 0 || length > in.remaining()) throw new DataIntegrityException("Invalid string length in journal: " + length);
+        ByteBuffer bytes = in.slice(in.position(), length);
+        in.position(in.position() + length);
+        try {
+            return StandardCharsets.UTF_8.newDecoder().decode(bytes).toString();
+        } catch (CharacterCodingException e) {
+            throw new DataIntegrityException("Invalid UTF-8 in journal string", e);
+        }
+    }
+
+    private static double assetParameter(Asset asset) {
+        if (asset instanceof Commodity c) return c.getStorageCostRatePerUnit();
+        if (asset instanceof Currency c) return c.getSpread();
+        return 0.0;
+    }
+}
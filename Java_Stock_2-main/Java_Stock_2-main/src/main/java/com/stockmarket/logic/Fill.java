@@ -0,0 +1,30 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.FixedPoint;
+
+public class Fill {
+    private final String symbol;
+    private final Order buyOrder;
+    private final Order sellOrder;
+    private final OrderSide aggressorSide;
+    private final long price; // FixedPoint
+    private final long quantity; // FixedPoint
+
+    public Fill(String symbol, Order buyOrder, Order sellOrder, OrderSide aggressorSide, long price, long quantity) {
+        this.symbol = symbol;
+        this.buyOrder = buyOrder;
+        this.sellOrder = sellOrder;
+        this.aggressorSide = aggressorSide;
+        this.price = price;
+        this.quantity = quantity;
+    }
+
+    public String getSymbol() { return symbol; }
+    public Order getBuyOrder() { return buyOrder; }
+    public Order getSellOrder() { return sellOrder; }
+    public OrderSide getAggressorSide() { return aggressorSide; }
+    public double getPrice() { return FixedPoint.toDouble(price); }
+    public double getQuantity() { return FixedPoint.toDouble(quantity); }
+    public long getPriceUnits() { return price; }
+    public long getQuantityUnits() { return quantity; }
+}
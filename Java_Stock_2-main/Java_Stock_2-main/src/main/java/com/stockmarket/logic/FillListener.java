@@ -0,0 +1,5 @@
+package com.stockmarket.logic;
+
+public interface FillListener {
+    void onFill(Fill fill);
+}
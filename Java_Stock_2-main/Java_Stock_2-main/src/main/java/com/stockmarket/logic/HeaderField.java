@@ -1,6 +1,7 @@
 package com.stockmarket.logic;
 
 public enum HeaderField {
-    CASH
+    CASH,
+    GENERATION
 }
 
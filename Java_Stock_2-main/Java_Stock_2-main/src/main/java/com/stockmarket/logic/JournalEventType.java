@@ -0,0 +1,10 @@
+package com.stockmarket.logic;
+
+public enum JournalEventType {
+    ORDER,
+    CANCEL,
+    AMEND,
+    FILL,
+    BUY,
+    SELL
+}
@@ -0,0 +1,22 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.AssetType;
+
+import java.time.LocalDate;
+
+// Odbiorca zdarzeń odtwarzanych z dziennika; domyślnie wszystko jest ignorowane.
+// Ceny i ilości w FixedPoint, dokładnie tak, jak zostały zapisane.
+public interface JournalHandler {
+    default void onOrder(long id, String symbol, OrderSide side, long limitPriceUnits, long quantityUnits, long createdAtMillis) { }
+
+    default void onCancel(String symbol, long orderId) { }
+
+    default void onAmend(String symbol, long orderId, long newQuantityUnits, long newLimitPriceUnits) { }
+
+    default void onFill(String symbol, long buyOrderId, long sellOrderId, OrderSide aggressorSide, long priceUnits, long quantityUnits) { }
+
+    default void onBuy(AssetType type, String symbol, String name, long marketPriceUnits, double assetParameter,
+                       long quantityUnits, LocalDate date, long unitPriceUnits) { }
+
+    default void onSell(String symbol, long quantityUnits, long sellUnitPriceUnits, LocalDate saleDate) { }
+}
@@ -0,0 +1,78 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.Currency;
+import com.stockmarket.domain.FixedPoint;
+import com.stockmarket.domain.Share;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+// Odbudowuje stan portfela i silnika z dziennika. Zdarzenia FILL są pomijane,
+// bo ponowne przepuszczenie zleceń przez silnik odtwarza dokładnie te same transakcje.
+public class JournalReplayer implements JournalHandler {
+
+    private final Portfolio portfolio;
+    private final MatchingEngine engine;
+
+    public JournalReplayer(Portfolio portfolio, MatchingEngine engine) {
+        if (portfolio == null && engine == null) {
+            throw new IllegalArgumentException("Portfolio or engine must be provided");
+        }
+        this.portfolio = portfolio;
+        this.engine = engine;
+    }
+
+    public long replay(Path directory) {
+        return EventJournal.replay(directory, this);
+    }
+
+    @Override
+    public void onOrder(long id, String symbol, OrderSide side, long limitPriceUnits, long quantityUnits, long createdAtMillis) {
+        Order.advanceIdsPast(id);
+        if (engine != null) {
+            engine.submit(Order.ofUnits(id, symbol, side, limitPriceUnits, quantityUnits, createdAtMillis));
+        }
+    }
+
+    @Override
+    public void onCancel(String symbol, long orderId) {
+        if (engine != null) {
+            engine.cancel(symbol, orderId);
+        }
+    }
+
+    @Override
+    public void onAmend(String symbol, long orderId, long newQuantityUnits, long newLimitPriceUnits) {
+        if (engine != null) {
+            engine.amendUnits(symbol, orderId, newQuantityUnits, newLimitPriceUnits);
+        }
+    }
+
+    // cena rynkowa aktywa tylko do konstruktora; ilości i ceny transakcji idą jednostkami
+    @Override
+    public void onBuy(AssetType type, String symbol, String name, long marketPriceUnits, double assetParameter,
+                      long quantityUnits, LocalDate date, long unitPriceUnits) {
+        if (portfolio == null) return;
+
+        double marketPrice = FixedPoint.toDouble(marketPriceUnits);
+        Asset asset = switch (type) {
+            case SHARE -> new Share(symbol, name, marketPrice);
+            case COMMODITY -> new Commodity(symbol, name, marketPrice, assetParameter);
+            case CURRENCY -> new Currency(symbol, name, marketPrice, assetParameter);
+        };
+        portfolio.buyAssetUnits(asset, quantityUnits, date, unitPriceUnits);
+    }
+
+    @Override
+    public void onSell(String symbol, long quantityUnits, long sellUnitPriceUnits, LocalDate saleDate) {
+        if (portfolio != null) {
+            portfolio.sellAssetUnits(symbol, quantityUnits, sellUnitPriceUnits, saleDate, CostBasisMethod.FIFO, IGNORE_LOTS);
+        }
+    }
+
+    private static final SaleSink IGNORE_LOTS = (lotId, purchaseEpochDay, soldQuantityUnits,
+                                                 buyUnitPriceUnits, sellUnitPriceUnits, profitUnits) -> { };
+}
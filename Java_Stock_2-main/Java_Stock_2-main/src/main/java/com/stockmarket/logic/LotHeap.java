@@ -0,0 +1,99 @@
+package com.stockmarket.logic;
+
+import java.util.Arrays;
+
+// Kopiec minimalny par (klucz, id partii) na tablicach prymitywów; przy równych kluczach starsza partia pierwsza.
+// Usuwanie leniwe: wpisy partii zużytych innym sposobem odrzuca dopiero wywołujący przy zdejmowaniu.
+final class LotHeap {
+
+    private long[] keys;
+    private long[] ids;
+    private int size;
+
+    LotHeap(int capacity) {
+        keys = new long[Math.max(4, capacity)];
+        ids = new long[keys.length];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    long peekId() {
+        if (size == 0) throw new IllegalStateException("Heap is empty");
+        return ids[0];
+    }
+
+    void push(long key, long id) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        keys[size] = key;
+        ids[size] = id;
+        siftUp(size++);
+    }
+
+    // dopisanie bez porządkowania; po serii wywołań trzeba wywołać heapify
+    void append(long key, long id) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        keys[size] = key;
+        ids[size++] = id;
+    }
+
+    void heapify() {
+        for (int i = (size >>> 1) - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    void pop() {
+        if (size == 0) throw new IllegalStateException("Heap is empty");
+        size--;
+        if (size > 0) {
+            keys[0] = keys[size];
+            ids[0] = ids[size];
+            siftDown(0);
+        }
+    }
+
+    private boolean less(int a, int b) {
+        return keys[a] < keys[b] || (keys[a] == keys[b] && ids[a] < ids[b]);
+    }
+
+    private void swap(int a, int b) {
+        long k = keys[a];
+        keys[a] = keys[b];
+        keys[b] = k;
+        long id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!less(i, parent)) return;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) return;
+            int smallest = left + 1 < size && less(left + 1, left) ? left + 1 : left;
+            if (!less(smallest, i)) return;
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.stockmarket.logic;
+
+// Kolumnowy bufor cykliczny partii: id, dzień (epoch day), cena i ilość w FixedPoint w osobnych tablicach prymitywów.
+// Ok. 28 bajtów na partię zamiast obiektu PurchaseLot z LocalDate.
+// Id partii rośnie z każdym dodaniem i nigdy nie jest używane ponownie, więc w buforze jest posortowane:
+// wyszukanie po id to wyszukiwanie binarne, a głowa i ogon trafiane są od razu.
+// Partia zużyta ze środka (LIFO/HIFO/LOFO/wskazana) zostaje jako tombstone z ilością 0
+// i znika, gdy dojdzie do niej głowa lub ogon bufora. Gdy tombstone'ów jest więcej niż żywych partii,
+// bufor jest zagęszczany w miejscu (kolejność id zostaje), a przy małym zapełnieniu tablice się kurczą.
+final class LotStore {
+
+    private static final int[] NO_DAYS = new int[0];
+    private static final long[] NO_VALUES = new long[0];
+    private static final int MIN_CAPACITY = 4;
+    private static final int MIN_COMPACT_SLOTS = 16;
+
+    private long[] ids = NO_VALUES;
+    private int[] days = NO_DAYS;
+    private long[] prices = NO_VALUES;
+    private long[] quantities = NO_VALUES;
+    private int head;
+    private int slots;      // sloty od głowy do ogona, razem z tombstone'ami
+    private int liveCount;
+    private long nextId;
+    private int modCount; // dla iteratorów LotView
+
+    int size() {
+        return liveCount;
+    }
+
+    boolean isEmpty() {
+        return liveCount == 0;
+    }
+
+    // liczba slotów do przejścia po indeksach 0..slotCount()-1; pominąć trzeba te z quantityAt == 0
+    int slotCount() {
+        return slots;
+    }
+
+    int modCount() {
+        return modCount;
+    }
+
+    int capacity() {
+        return days.length;
+    }
+
+    long add(int epochDay, long priceUnits, long quantityUnits) {
+        if (quantityUnits <= 0) throw new IllegalArgumentException("Lot quantity must be positive");
+        if (slots == days.length) grow();
+        int slot = (head + slots) & (days.length - 1);
+        long id = nextId++;
+        ids[slot] = id;
+        days[slot] = epochDay;
+        prices[slot] = priceUnits;
+        quantities[slot] = quantityUnits;
+        slots++;
+        liveCount++;
+        modCount++;
+        return id;
+    }
+
+    long idAt(int index) {
+        return ids[physical(index)];
+    }
+
+    int dayAt(int index) {
+        return days[physical(index)];
+    }
+
+    long priceAt(int index) {
+        return prices[physical(index)];
+    }
+
+    long quantityAt(int index) {
+        return quantities[physical(index)];
+    }
+
+    boolean isLive(long id) {
+        int slot = find(id);
+        return slot >= 0 && quantities[slot] > 0;
+    }
+
+    int dayOf(long id) {
+        return days[checkedSlot(id)];
+    }
+
+    long priceOf(long id) {
+        return prices[checkedSlot(id)];
+    }
+
+    long quantityOf(long id) {
+        return quantities[checkedSlot(id)];
+    }
+
+    // najstarsza żywa partia albo -1
+    long firstId() {
+        return liveCount == 0 ? -1 : ids[head];
+    }
+
+    // najmłodsza żywa partia albo -1
+    long lastId() {
+        return liveCount == 0 ? -1 : ids[(head + slots - 1) & (days.length - 1)];
+    }
+
+    void reduce(long id, long amount) {
+        int slot = checkedSlot(id);
+        long left = quantities[slot] - amount;
+        if (amount < 0 || left < 0) throw new IllegalArgumentException("Cannot reduce more than current quantity");
+        quantities[slot] = left;
+        modCount++;
+        if (left == 0 && amount > 0) {
+            liveCount--;
+            trim();
+            if (slots >= MIN_COMPACT_SLOTS && slots > 2 * liveCount) compact();
+            int capacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, liveCount)) * 2);
+            if (liveCount * 4 <= days.length && capacity < days.length) {
+                if (slots > capacity) compact();
+                resize(capacity);
+            }
+        }
+    }
+
+    // głowa i ogon zawsze wskazują żywe partie
+    private void trim() {
+        int mask = days.length - 1;
+        while (slots > 0 && quantities[head] == 0) {
+            head = (head + 1) & mask;
+            slots--;
+        }
+        while (slots > 0 && quantities[(head + slots - 1) & mask] == 0) {
+            slots--;
+        }
+    }
+
+    // żywe partie przesuwane w stronę głowy; zapis nigdy nie wyprzedza odczytu, więc bez drugiego bufora
+    private void compact() {
+        int mask = days.length - 1;
+        int live = 0;
+        for (int i = 0; i < slots; i++) {
+            int from = (head + i) & mask;
+            if (quantities[from] == 0) continue;
+            int to = (head + live++) & mask;
+            if (to != from) {
+                ids[to] = ids[from];
+                days[to] = days[from];
+                prices[to] = prices[from];
+                quantities[to] = quantities[from];
+            }
+        }
+        slots = live;
+    }
+
+    private int physical(int index) {
+        if (index < 0 || index >= slots) throw new IndexOutOfBoundsException();
+        return (head + index) & (days.length - 1);
+    }
+
+    // fizyczny slot partii albo -1; FIFO i LIFO trafiają w głowę/ogon bez wyszukiwania
+    private int find(long id) {
+        if (slots == 0) return -1;
+        int mask = days.length - 1;
+        if (ids[head] == id) return head;
+        int tail = (head + slots - 1) & mask;
+        if (ids[tail] == id) return tail;
+
+        int lo = 0;
+        int hi = slots - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long midId = ids[(head + mid) & mask];
+            if (midId < id) lo = mid + 1;
+            else if (midId > id) hi = mid - 1;
+            else return (head + mid) & mask;
+        }
+        return -1;
+    }
+
+    private int checkedSlot(long id) {
+        int slot = find(id);
+        if (slot < 0 || quantities[slot] == 0) throw new IllegalArgumentException("Unknown lot: " + id);
+        return slot;
+    }
+
+    private void grow() {
+        resize(Math.max(MIN_CAPACITY, days.length * 2));
+    }
+
+    // pojemność zawsze potęgą dwójki; przy kopiowaniu bufor jest "rozprostowany" od zera
+    private void resize(int capacity) {
+        long[] newIds = new long[capacity];
+        int[] newDays = new int[capacity];
+        long[] newPrices = new long[capacity];
+        long[] newQuantities = new long[capacity];
+        for (int i = 0; i < slots; i++) {
+            int s = (head + i) & (days.length - 1);
+            newIds[i] = ids[s];
+            newDays[i] = days[s];
+            newPrices[i] = prices[s];
+            newQuantities[i] = quantities[s];
+        }
+        ids = newIds;
+        days = newDays;
+        prices = newPrices;
+        quantities = newQuantities;
+        head = 0;
+    }
+}
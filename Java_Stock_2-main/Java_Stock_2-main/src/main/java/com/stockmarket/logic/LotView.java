@@ -0,0 +1,148 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.PurchaseLot;
+
+import java.time.LocalDate;
+import java.util.AbstractCollection;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Widok partii pozycji tylko do odczytu, na żywo (FIFO: najstarsza pierwsza).
+// Każda próba zmiany rzuca UnsupportedOperationException; partie zmienia się przez Position.
+// Elementy to migawki PurchaseLot tworzone przy odczycie - ich zmiana nie wpływa na pozycję.
+final class LotView extends AbstractCollection<PurchaseLot> implements Deque<PurchaseLot> {
+
+    private final LotStore store;
+
+    LotView(LotStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public int size() {
+        return store.size();
+    }
+
+    @Override
+    public Iterator<PurchaseLot> iterator() {
+        return new LotIterator(false);
+    }
+
+    @Override
+    public Iterator<PurchaseLot> descendingIterator() {
+        return new LotIterator(true);
+    }
+
+    // głowa i ogon bufora są zawsze żywe
+    @Override
+    public PurchaseLot peekFirst() {
+        return store.isEmpty() ? null : lotAt(0);
+    }
+
+    @Override
+    public PurchaseLot peekLast() {
+        return store.isEmpty() ? null : lotAt(store.slotCount() - 1);
+    }
+
+    @Override
+    public PurchaseLot getFirst() {
+        if (store.isEmpty()) throw new NoSuchElementException("Position has no lots");
+        return lotAt(0);
+    }
+
+    @Override
+    public PurchaseLot getLast() {
+        if (store.isEmpty()) throw new NoSuchElementException("Position has no lots");
+        return lotAt(store.slotCount() - 1);
+    }
+
+    @Override
+    public PurchaseLot peek() {
+        return peekFirst();
+    }
+
+    @Override
+    public PurchaseLot element() {
+        return getFirst();
+    }
+
+    private PurchaseLot lotAt(int index) {
+        return PurchaseLot.ofUnits(LocalDate.ofEpochDay(store.dayAt(index)), store.priceAt(index), store.quantityAt(index));
+    }
+
+    @Override
+    public void addFirst(PurchaseLot lot) { throw readOnly(); }
+    @Override
+    public void addLast(PurchaseLot lot) { throw readOnly(); }
+    @Override
+    public boolean offerFirst(PurchaseLot lot) { throw readOnly(); }
+    @Override
+    public boolean offerLast(PurchaseLot lot) { throw readOnly(); }
+    @Override
+    public PurchaseLot removeFirst() { throw readOnly(); }
+    @Override
+    public PurchaseLot removeLast() { throw readOnly(); }
+    @Override
+    public PurchaseLot pollFirst() { throw readOnly(); }
+    @Override
+    public PurchaseLot pollLast() { throw readOnly(); }
+    @Override
+    public boolean removeFirstOccurrence(Object o) { throw readOnly(); }
+    @Override
+    public boolean removeLastOccurrence(Object o) { throw readOnly(); }
+    @Override
+    public boolean add(PurchaseLot lot) { throw readOnly(); }
+    @Override
+    public boolean offer(PurchaseLot lot) { throw readOnly(); }
+    @Override
+    public PurchaseLot remove() { throw readOnly(); }
+    @Override
+    public boolean remove(Object o) { throw readOnly(); }
+    @Override
+    public PurchaseLot poll() { throw readOnly(); }
+    @Override
+    public void push(PurchaseLot lot) { throw readOnly(); }
+    @Override
+    public PurchaseLot pop() { throw readOnly(); }
+    @Override
+    public void clear() { throw readOnly(); }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Lots are read-only; change them through Position");
+    }
+
+    // przechodzi po slotach z pominięciem tombstone'ów; zmiana pozycji w trakcie przerywa iterację
+    private final class LotIterator implements Iterator<PurchaseLot> {
+        private final boolean descending;
+        private final int expectedModCount = store.modCount();
+        private int index;
+
+        LotIterator(boolean descending) {
+            this.descending = descending;
+            this.index = descending ? store.slotCount() - 1 : 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            checkModCount();
+            while (index >= 0 && index < store.slotCount() && store.quantityAt(index) == 0) {
+                index += descending ? -1 : 1;
+            }
+            return index >= 0 && index < store.slotCount();
+        }
+
+        @Override
+        public PurchaseLot next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            PurchaseLot lot = lotAt(index);
+            index += descending ? -1 : 1;
+            return lot;
+        }
+
+        private void checkModCount() {
+            if (store.modCount() != expectedModCount) throw new ConcurrentModificationException();
+        }
+    }
+}
@@ -0,0 +1,449 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.FixedPoint;
+import com.stockmarket.exceptions.DataIntegrityException;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.CRC32;
+
+// Parser formatu tekstowego PortfolioPersistence na pliku zmapowanym w pamięć.
+// Linie i pola to przedziały bajtów w oknie mapowania; linie LOT (zdecydowana większość pliku)
+// są parsowane prosto z bajtów - liczby do FixedPoint, daty ISO do LocalDate - bez tworzenia Stringów.
+// Stringi powstają tylko dla linii nagłówka i ASSET oraz w komunikatach błędów,
+// a wszystko, co nie pasuje do szybkiej ścieżki, idzie przez te same metody co load(),
+// więc akceptowane dane i komunikaty DataIntegrityException są identyczne.
+// Pliki większe niż okno (1 GB) mapowane są kolejnymi oknami od początku niedokończonej linii.
+// loadParallel dzieli część za nagłówkiem na fragmenty zaczynające się od linii ASSET (bloki są niezależne),
+// parsuje je na ForkJoinPool do osobnych map pozycji i scala w kolejności pliku; zgłaszany jest
+// błąd z najwcześniejszego fragmentu, czyli ten sam, który zgłosiłby odczyt sekwencyjny.
+final class MappedTextLoader {
+
+    static final int DEFAULT_WINDOW_BYTES = 1 << 30;
+
+    private static final byte[] HEADER = bytes("HEADER");
+    private static final byte[] ASSET = bytes("ASSET");
+    private static final byte[] LOT = bytes("LOT");
+    private static final byte[] ASSET_PREFIX = bytes("ASSET|");
+    private static final long MIN_CHUNK_BYTES = 1 << 20;
+    private static final long[] POW10 = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000};
+
+    private final FileChannel channel;
+    private final long end; // koniec czytanego zakresu pliku
+    private final int windowBytes;
+
+    private MappedByteBuffer buf;
+    private long base;
+    private int limit;
+    private int pos;
+    private boolean skipLf; // poprzednia linia skończyła się \r - ewentualne \n należy do niej
+
+    private int lineStart;
+    private int lineEnd;
+    private int[] fieldStart = new int[8];
+    private int[] fieldEnd = new int[8];
+    private int fieldCount;
+
+    MappedTextLoader(FileChannel channel, int windowBytes) throws IOException {
+        this(channel, 0, channel.size(), windowBytes);
+    }
+
+    MappedTextLoader(FileChannel channel, long start, long end, int windowBytes) throws IOException {
+        this.channel = channel;
+        this.end = end;
+        this.windowBytes = windowBytes;
+        map(start);
+    }
+
+    Portfolio load() throws IOException {
+        Portfolio portfolio = loadHeader();
+        loadBlocks(portfolio.getPositions());
+        return portfolio;
+    }
+
+    static Portfolio loadParallel(FileChannel channel, ForkJoinPool pool) throws IOException {
+        long size = channel.size();
+        long chunkBytes = Math.max(MIN_CHUNK_BYTES, size / (pool.getParallelism() * 4L));
+        return loadParallel(channel, pool, chunkBytes, DEFAULT_WINDOW_BYTES);
+    }
+
+    static Portfolio loadParallel(FileChannel channel, ForkJoinPool pool, long chunkBytes, int windowBytes) throws IOException {
+        long size = channel.size();
+        MappedTextLoader head = new MappedTextLoader(channel, 0, size, windowBytes);
+        Portfolio portfolio = head.loadHeader();
+
+        List<ForkJoinTask<Chunk>> chunks = new ArrayList<>();
+        long start = head.offset();
+        while (start < size) {
+            long from = start;
+            long to = start + chunkBytes >= size ? size : nextBlockStart(channel, start + chunkBytes, size, windowBytes);
+            chunks.add(pool.submit(() -> Chunk.parse(channel, from, to, windowBytes)));
+            start = to;
+        }
+
+        // scalanie w kolejności pliku; pierwszy fragment z błędem wyznacza zgłaszany wyjątek
+        for (int i = 0; i < chunks.size(); i++) {
+            Chunk chunk = chunks.get(i).join();
+            if (chunk.error != null) {
+                for (int j = i + 1; j < chunks.size(); j++) chunks.get(j).cancel(false);
+                throw chunk.error;
+            }
+            merge(chunk.positions, portfolio);
+        }
+        return portfolio;
+    }
+
+    // plik z samymi blokami ASSET + LOT (segment zapisu przyrostowego), dopisywany do portfela
+    static void loadSegment(FileChannel channel, Portfolio portfolio) throws IOException {
+        Map<String, Position> positions = new LinkedHashMap<>();
+        new MappedTextLoader(channel, DEFAULT_WINDOW_BYTES).loadBlocks(positions);
+        merge(positions, portfolio);
+    }
+
+    // bloki jednego symbolu wskazane przez indeks: trójki (początek, długość, CRC32)
+    static Position loadPosition(FileChannel channel, String symbol, long[] blocks) throws IOException {
+        Map<String, Position> positions = new LinkedHashMap<>();
+        for (int i = 0; i < blocks.length; i += 3) {
+            long start = blocks[i];
+            long end = start + blocks[i + 1];
+            if (end > channel.size() || crc(channel, start, end) != blocks[i + 2]) {
+                throw new DataIntegrityException("Offset index does not match data file for symbol: " + symbol);
+            }
+            new MappedTextLoader(channel, start, end, DEFAULT_WINDOW_BYTES).loadBlocks(positions);
+            if (positions.size() != 1 || !positions.containsKey(symbol)) {
+                throw new DataIntegrityException("Offset index does not match data file for symbol: " + symbol);
+            }
+        }
+        return positions.get(symbol);
+    }
+
+    private static long crc(FileChannel channel, long start, long end) throws IOException {
+        CRC32 crc = new CRC32();
+        for (long pos = start; pos < end; pos += DEFAULT_WINDOW_BYTES) {
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(DEFAULT_WINDOW_BYTES, end - pos)));
+        }
+        return crc.getValue();
+    }
+
+    private static void merge(Map<String, Position> positions, Portfolio portfolio) {
+        for (Map.Entry<String, Position> entry : positions.entrySet()) {
+            Position existing = portfolio.getPosition(entry.getKey());
+            if (existing == null) {
+                portfolio.getPositions().put(entry.getKey(), entry.getValue());
+            } else {
+                appendLots(existing, entry.getValue());
+            }
+        }
+    }
+
+    private static final class Chunk {
+        final Map<String, Position> positions;
+        final RuntimeException error;
+
+        private Chunk(Map<String, Position> positions, RuntimeException error) {
+            this.positions = positions;
+            this.error = error;
+        }
+
+        // wyjątek zwracany, nie rzucany - join() mógłby go opakować w kopię
+        static Chunk parse(FileChannel channel, long start, long end, int windowBytes) {
+            Map<String, Position> positions = new LinkedHashMap<>();
+            try {
+                new MappedTextLoader(channel, start, end, windowBytes).loadBlocks(positions);
+                return new Chunk(positions, null);
+            } catch (IOException e) {
+                return new Chunk(positions, new DataIntegrityException("I/O error during load", e));
+            } catch (RuntimeException e) {
+                return new Chunk(positions, e);
+            }
+        }
+    }
+
+    // ten sam symbol w kilku fragmentach: partie późniejszych bloków dopisywane do pierwszej pozycji
+    private static void appendLots(Position target, Position source) {
+        LotStore lots = source.lotStore();
+        for (int i = 0; i < lots.slotCount(); i++) {
+            if (lots.quantityAt(i) == 0) continue; // tombstone
+            target.addLotUnits(LocalDate.ofEpochDay(lots.dayAt(i)), lots.priceAt(i), lots.quantityAt(i));
+        }
+    }
+
+    // początek pierwszej linii ASSET zaczynającej się w [from, end); end, gdy takiej nie ma
+    private static long nextBlockStart(FileChannel channel, long from, long end, int windowBytes) throws IOException {
+        try {
+            // start od bajtu przed from: pierwsza linia to reszta linii, w której wypada from
+            MappedTextLoader scanner = new MappedTextLoader(channel, from - 1, end, windowBytes);
+            scanner.nextLine();
+            while (scanner.nextLine()) {
+                if (scanner.lineStartsWith(ASSET_PREFIX)) return scanner.base + scanner.lineStart;
+            }
+        } catch (DataIntegrityException e) {
+            // za długa linia - zgłosi ją parser fragmentu, we właściwej kolejności
+        }
+        return end;
+    }
+
+    private Portfolio loadHeader() throws IOException {
+        if (!nextLine()) throw new DataIntegrityException("Empty file");
+        return PortfolioPersistence.parseHeader(lineString());
+    }
+
+    // bloki ASSET + LOT z bieżącego zakresu; pozycje trafiają do podanej mapy
+    private void loadBlocks(Map<String, Position> positions) throws IOException {
+        Asset currentAsset = null;
+        Position currentPosition = null;
+        String currentSymbol = null;
+        long lotsQtySum = 0;
+        Long expectedQty = null;
+
+        while (nextLine()) {
+            if (isBlankLine()) continue;
+            splitFields();
+            if (fieldCount == 0) throw new DataIntegrityException("Invalid line format: " + lineString());
+
+            if (fieldEquals(0, LOT)) {
+                if (currentAsset == null) throw new DataIntegrityException("LOT without ASSET: " + lineString());
+                if (fieldCount != 4) throw new DataIntegrityException("Invalid LOT line length: " + lineString());
+
+                LocalDate date = parseDate(1, "lot date");
+                long qty = parseUnits(2, "lot quantity");
+                long unitPrice = parseUnits(3, "lot unit price");
+
+                if (qty <= 0) throw new DataIntegrityException("Invalid lot quantity: " + FixedPoint.format(qty));
+
+                currentPosition.addLotUnits(date, unitPrice, qty);
+                lotsQtySum += qty;
+            } else if (fieldEquals(0, ASSET)) {
+                PortfolioPersistence.checkLotsSum(currentSymbol, expectedQty, lotsQtySum);
+
+                String[] parts = fieldStrings();
+                expectedQty = PortfolioPersistence.declaredQuantity(parts);
+                currentAsset = PortfolioPersistence.parseAsset(parts);
+                currentSymbol = currentAsset.getSymbol();
+                lotsQtySum = 0;
+
+                currentPosition = positions.get(currentSymbol);
+                if (currentPosition == null) {
+                    currentPosition = new Position(currentAsset);
+                    positions.put(currentSymbol, currentPosition);
+                }
+            } else if (fieldEquals(0, HEADER)) {
+                throw new DataIntegrityException("Unexpected HEADER line: " + lineString());
+            } else {
+                // ta sama ścieżka błędu co Enum.valueOf w load()
+                PortfolioPersistence.parseEnum(LineType.class, fieldString(0), "line type");
+                throw new DataIntegrityException("Invalid line format: " + lineString());
+            }
+        }
+
+        PortfolioPersistence.checkLotsSum(currentSymbol, expectedQty, lotsQtySum);
+    }
+
+    // --- linie: jak BufferedReader.readLine (\n, \r albo \r\n; ostatnia linia może nie mieć końca) ---
+
+    private boolean nextLine() throws IOException {
+        skipPendingLf();
+        if (base + pos >= end) return false;
+
+        while (true) {
+            for (int i = pos; i < limit; i++) {
+                byte b = buf.get(i);
+                if (b != '\n' && b != '\r') continue;
+
+                lineStart = pos;
+                lineEnd = i;
+                pos = i + 1;
+                skipLf = b == '\r';
+                return true;
+            }
+
+            if (base + limit == end) {
+                lineStart = pos;
+                lineEnd = limit;
+                pos = limit;
+                return true;
+            }
+            if (pos == 0) throw new DataIntegrityException("Line too long at offset " + base);
+            map(base + pos);
+        }
+    }
+
+    private void skipPendingLf() throws IOException {
+        if (!skipLf) return;
+        skipLf = false;
+        if (pos == limit && base + pos < end) map(base + pos);
+        if (pos < limit && buf.get(pos) == '\n') pos++;
+    }
+
+    // początek następnej linii w pliku
+    private long offset() throws IOException {
+        skipPendingLf();
+        return base + pos;
+    }
+
+    private void map(long offset) throws IOException {
+        base = offset;
+        limit = (int) Math.min(windowBytes, end - offset);
+        buf = channel.map(FileChannel.MapMode.READ_ONLY, base, limit);
+        pos = 0;
+    }
+
+    private boolean isBlankLine() {
+        for (int i = lineStart; i < lineEnd; i++) {
+            if ((buf.get(i) & 0xFF) > ' ') return false;
+        }
+        return true;
+    }
+
+    // jak String.split("\\|"): bez separatora jedno pole, z separatorem puste pola na końcu są odrzucane
+    private void splitFields() {
+        fieldCount = 0;
+        int start = lineStart;
+        boolean separated = false;
+        for (int i = lineStart; i < lineEnd; i++) {
+            if (buf.get(i) == '|') {
+                addField(start, i);
+                start = i + 1;
+                separated = true;
+            }
+        }
+        addField(start, lineEnd);
+        if (separated) {
+            while (fieldCount > 0 && fieldStart[fieldCount - 1] == fieldEnd[fieldCount - 1]) fieldCount--;
+        }
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == fieldStart.length) {
+            fieldStart = Arrays.copyOf(fieldStart, fieldCount * 2);
+            fieldEnd = Arrays.copyOf(fieldEnd, fieldCount * 2);
+        }
+        fieldStart[fieldCount] = start;
+        fieldEnd[fieldCount] = end;
+        fieldCount++;
+    }
+
+    private boolean lineStartsWith(byte[] prefix) {
+        if (lineEnd - lineStart < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (buf.get(lineStart + i) != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    private boolean fieldEquals(int field, byte[] expected) {
+        int start = fieldStart[field];
+        if (fieldEnd[field] - start != expected.length) return false;
+        for (int i = 0; i < expected.length; i++) {
+            if (buf.get(start + i) != expected[i]) return false;
+        }
+        return true;
+    }
+
+    // --- liczby: [+-]cyfry[.cyfry] do 10 cyfr całości i 8 po przecinku; reszta przez FixedPoint.parse ---
+
+    private long parseUnits(int field, String name) throws IOException {
+        int i = fieldStart[field];
+        int end = fieldEnd[field];
+        boolean negative = false;
+        if (i < end && (buf.get(i) == '-' || buf.get(i) == '+')) {
+            negative = buf.get(i) == '-';
+            i++;
+        }
+
+        long whole = 0;
+        int wholeDigits = 0;
+        while (i < end && isDigit(buf.get(i)) && wholeDigits <= 10) {
+            whole = whole * 10 + (buf.get(i++) - '0');
+            wholeDigits++;
+        }
+
+        long fraction = 0;
+        int fractionDigits = 0;
+        boolean fast = wholeDigits > 0 && wholeDigits <= 10;
+        if (fast && i < end && buf.get(i) == '.') {
+            i++;
+            while (i < end && isDigit(buf.get(i)) && fractionDigits <= FixedPoint.DECIMALS) {
+                fraction = fraction * 10 + (buf.get(i++) - '0');
+                fractionDigits++;
+            }
+            fast = fractionDigits > 0 && fractionDigits <= FixedPoint.DECIMALS;
+        }
+
+        if (!fast || i != end) return PortfolioPersistence.parseUnits(fieldString(field), name);
+        long units = whole * FixedPoint.SCALE + fraction * POW10[FixedPoint.DECIMALS - fractionDigits];
+        return negative ? -units : units;
+    }
+
+    // --- daty: dokładnie rrrr-mm-dd; inne zapisy przez LocalDate.parse ---
+
+    private LocalDate parseDate(int field, String name) throws IOException {
+        int s = fieldStart[field];
+        if (fieldEnd[field] - s == 10 && buf.get(s + 4) == '-' && buf.get(s + 7) == '-') {
+            int year = digits(s, 4);
+            int month = digits(s + 5, 2);
+            int day = digits(s + 8, 2);
+            if (year >= 0 && month >= 0 && day >= 0) {
+                try {
+                    return LocalDate.of(year, month, day);
+                } catch (DateTimeException ex) {
+                    throw new DataIntegrityException("Invalid date for " + name + ": " + fieldString(field));
+                }
+            }
+        }
+        return PortfolioPersistence.parseDate(fieldString(field), name);
+    }
+
+    private int digits(int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            byte b = buf.get(i);
+            if (!isDigit(b)) return -1;
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    // --- Stringi tylko tam, gdzie są potrzebne; niepoprawny UTF-8 kończy się błędem I/O jak w BufferedReader ---
+
+    private String[] fieldStrings() throws IOException {
+        String[] parts = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            parts[i] = fieldString(i);
+        }
+        return parts;
+    }
+
+    private String fieldString(int field) throws IOException {
+        return decode(fieldStart[field], fieldEnd[field]);
+    }
+
+    private String lineString() throws IOException {
+        return decode(lineStart, lineEnd);
+    }
+
+    private String decode(int start, int end) throws CharacterCodingException {
+        return StandardCharsets.UTF_8.newDecoder().decode(buf.slice(start, end - start)).toString();
+    }
+
+    private static byte[] bytes(String ascii) {
+        return ascii.getBytes(StandardCharsets.US_ASCII);
+    }
+}
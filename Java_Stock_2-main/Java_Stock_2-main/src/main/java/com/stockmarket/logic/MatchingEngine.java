@@ -0,0 +1,138 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.FixedPoint;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+public class MatchingEngine {
+
+    private final Map<String, SymbolBooks> books = new HashMap<>();
+    private final FillListener listener;
+    private final Function<OrderSide, BookSide> bookFactory;
+
+    public MatchingEngine(FillListener listener) {
+        this(listener, PriceLevelOrderBook::new);
+    }
+
+    public MatchingEngine(FillListener listener, Function<OrderSide, BookSide> bookFactory) {
+        if (listener == null) throw new IllegalArgumentException("Listener cannot be null");
+        if (bookFactory == null) throw new IllegalArgumentException("Book factory cannot be null");
+        this.listener = listener;
+        this.bookFactory = bookFactory;
+    }
+
+    public void submit(Order order) {
+        if (order == null) throw new IllegalArgumentException("Order cannot be null");
+        if (order.isFilled()) throw new IllegalArgumentException("Order is already filled");
+
+        SymbolBooks sb = booksFor(order.getSymbol());
+        boolean buy = order.getSide() == OrderSide.BUY;
+        BookSide opposite = buy ? sb.asks : sb.bids;
+
+        while (!order.isFilled()) {
+            Order resting = opposite.peek();
+            if (resting == null || !crosses(order, resting, buy)) break;
+
+            // cena transakcji = cena zlecenia oczekującego (price-time priority)
+            long qty = Math.min(order.getRemainingQuantityUnits(), resting.getRemainingQuantityUnits());
+            long price = resting.getLimitPriceUnits();
+
+            order.fillUnits(qty);
+            opposite.fillHeadUnits(qty);
+
+            Order buyOrder = buy ? order : resting;
+            Order sellOrder = buy ? resting : order;
+            listener.onFill(new Fill(order.getSymbol(), buyOrder, sellOrder, order.getSide(), price, qty));
+        }
+
+        if (!order.isFilled()) {
+            (buy ? sb.bids : sb.asks).add(order);
+        }
+    }
+
+    public boolean cancel(String symbol, long orderId) {
+        if (symbol == null) throw new IllegalArgumentException("Symbol cannot be null");
+
+        SymbolBooks sb = books.get(symbol);
+        if (sb == null) return false;
+        return sb.bids.cancel(orderId) || sb.asks.cancel(orderId);
+    }
+
+    public boolean amend(String symbol, long orderId, double newQuantity, double newLimitPrice) {
+        if (symbol == null) throw new IllegalArgumentException("Symbol cannot be null");
+        Order.validateAmend(newQuantity, newLimitPrice);
+        return amendUnits(symbol, orderId, FixedPoint.of(newQuantity), FixedPoint.of(newLimitPrice));
+    }
+
+    public boolean amendUnits(String symbol, long orderId, long quantityUnits, long priceUnits) {
+        if (symbol == null) throw new IllegalArgumentException("Symbol cannot be null");
+        Order.validateAmendUnits(quantityUnits, priceUnits);
+
+        SymbolBooks sb = books.get(symbol);
+        if (sb == null) return false;
+
+        BookSide book = sb.bids;
+        Order order = book.find(orderId);
+        if (order == null) {
+            book = sb.asks;
+            order = book.find(orderId);
+        }
+        if (order == null) return false;
+
+        if (priceUnits == order.getLimitPriceUnits()) {
+            return book.amendUnits(orderId, quantityUnits, priceUnits);
+        }
+
+        // nowa cena może skrzyżować się z drugą stroną - zlecenie przechodzi ponownie przez matching
+        book.cancel(orderId);
+        order.amend(quantityUnits, priceUnits);
+        submit(order);
+        return true;
+    }
+
+    private boolean crosses(Order incoming, Order resting, boolean buy) {
+        return buy
+                ? resting.getLimitPriceUnits() <= incoming.getLimitPriceUnits()
+                : resting.getLimitPriceUnits() >= incoming.getLimitPriceUnits();
+    }
+
+    public BookSide getBook(String symbol, OrderSide side) {
+        if (symbol == null) throw new IllegalArgumentException("Symbol cannot be null");
+        if (side == null) throw new IllegalArgumentException("Side cannot be null");
+
+        SymbolBooks sb = books.get(symbol);
+        if (sb == null) return null;
+        return side == OrderSide.BUY ? sb.bids : sb.asks;
+    }
+
+    public Order getBestBid(String symbol) {
+        BookSide book = getBook(symbol, OrderSide.BUY);
+        return book == null ? null : book.peek();
+    }
+
+    public Order getBestAsk(String symbol) {
+        BookSide book = getBook(symbol, OrderSide.SELL);
+        return book == null ? null : book.peek();
+    }
+
+    private SymbolBooks booksFor(String symbol) {
+        SymbolBooks sb = books.get(symbol);
+        if (sb == null) {
+            sb = new SymbolBooks(bookFactory.apply(OrderSide.BUY), bookFactory.apply(OrderSide.SELL));
+            books.put(symbol, sb);
+        }
+        return sb;
+    }
+
+    private static class SymbolBooks {
+        private final BookSide bids;
+        private final BookSide asks;
+
+        private SymbolBooks(BookSide bids, BookSide asks) {
+            this.bids = bids;
+            this.asks = asks;
+        }
+    }
+}
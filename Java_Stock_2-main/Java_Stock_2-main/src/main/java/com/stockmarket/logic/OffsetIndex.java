@@ -0,0 +1,117 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.exceptions.DataIntegrityException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Indeks przesunięć pliku tekstowego (plik obok danych: <plik>.idx): dla każdego symbolu
+// trójki (początek bloku ASSET, długość bloku w bajtach, CRC32 bloku) - symbol powtórzony w pliku ma kilka trójek.
+// Zapisuje rozmiar i czas modyfikacji pliku danych; indeks niezgodny z plikiem jest ignorowany.
+// CRC sprawdzany przy wczytaniu bloku łapie zmianę treści, której nie widać po rozmiarze i mtime.
+//   int MAGIC, short VERSION, long rozmiar danych, long mtime danych (ms), int liczba symboli,
+//   symbol (writeUTF), int liczba bloków, bloki: long początek, long długość, int CRC32
+final class OffsetIndex {
+
+    static final int MAGIC = 0x53544B49; // "STKI"
+    static final short VERSION = 2;
+    static final String SUFFIX = ".idx";
+
+    private final Map<String, long[]> blocks = new LinkedHashMap<>();
+    private long dataSize = -1;
+    private long dataModified;
+
+    static Path sidecar(Path dataFile) {
+        return dataFile.resolveSibling(dataFile.getFileName() + SUFFIX);
+    }
+
+    void add(String symbol, long offset, long length, long crc) {
+        long[] ranges = blocks.getOrDefault(symbol, new long[0]);
+        ranges = Arrays.copyOf(ranges, ranges.length + 3);
+        ranges[ranges.length - 3] = offset;
+        ranges[ranges.length - 2] = length;
+        ranges[ranges.length - 1] = crc;
+        blocks.put(symbol, ranges);
+    }
+
+    Set<String> symbols() {
+        return blocks.keySet();
+    }
+
+    // trójki (początek, długość, CRC32); null dla nieznanego symbolu
+    long[] blocksOf(String symbol) {
+        return blocks.get(symbol);
+    }
+
+    // czy plik danych ma nadal rozmiar i mtime z chwili zapisu indeksu
+    boolean describes(Path dataFile) throws IOException {
+        return Files.size(dataFile) == dataSize && Files.getLastModifiedTime(dataFile).toMillis() == dataModified;
+    }
+
+    void write(Path dataFile) throws IOException {
+        dataSize = Files.size(dataFile);
+        dataModified = Files.getLastModifiedTime(dataFile).toMillis();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(sidecar(dataFile))))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(dataSize);
+            out.writeLong(dataModified);
+            out.writeInt(blocks.size());
+            for (Map.Entry<String, long[]> entry : blocks.entrySet()) {
+                out.writeUTF(entry.getKey());
+                long[] ranges = entry.getValue();
+                out.writeInt(ranges.length / 3);
+                for (int i = 0; i < ranges.length; i += 3) {
+                    out.writeLong(ranges[i]);
+                    out.writeLong(ranges[i + 1]);
+                    out.writeInt((int) ranges[i + 2]);
+                }
+            }
+        }
+    }
+
+    // null, gdy indeksu brak albo opisuje inną wersję pliku danych
+    static OffsetIndex read(Path dataFile) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(sidecar(dataFile))))) {
+            if (in.readInt() != MAGIC) throw new DataIntegrityException("Invalid offset index: " + sidecar(dataFile));
+            short version = in.readShort();
+            if (version != VERSION) throw new DataIntegrityException("Unsupported offset index version: " + version);
+
+            OffsetIndex index = new OffsetIndex();
+            index.dataSize = in.readLong();
+            index.dataModified = in.readLong();
+            if (!index.describes(dataFile)) return null;
+
+            int symbols = in.readInt();
+            for (int s = 0; s < symbols; s++) {
+                String symbol = in.readUTF();
+                int count = in.readInt();
+                for (int b = 0; b < count; b++) {
+                    long offset = in.readLong();
+                    long length = in.readLong();
+                    long crc = Integer.toUnsignedLong(in.readInt());
+                    if (offset < 0 || length <= 0 || offset + length > index.dataSize) {
+                        throw new DataIntegrityException("Invalid offset index entry for " + symbol);
+                    }
+                    index.add(symbol, offset, length, crc);
+                }
+            }
+            return index;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (EOFException e) {
+            throw new DataIntegrityException("Truncated offset index: " + sidecar(dataFile));
+        }
+    }
+}
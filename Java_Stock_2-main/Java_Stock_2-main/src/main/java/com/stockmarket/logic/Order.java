@@ -1,28 +1,109 @@
 package com.stockmarket.logic;
 
+import com.stockmarket.domain.FixedPoint;
+
+import java.util.concurrent.atomic.AtomicLong;
+
 public class Order {
+    // identyfikatory nadawane automatycznie, gdy wywołujący nie poda własnego
+    private static final AtomicLong NEXT_ID = new AtomicLong(1);
+
+    private final long id;
     private final String symbol;
     private final OrderSide side;
-    private final double limitPrice;
-    private final double quantity;
+    // ceny i ilości w FixedPoint - porównania w księdze są dokładne i całkowitoliczbowe
+    private long limitPrice;
+    private long quantity;
     private final long createdAtMillis;
+    private long remainingQuantity; // ile jeszcze nie zostało zrealizowane
+
+    // intruzywna kolejka FIFO w ramach poziomu cenowego (PriceLevelOrderBook)
+    PriceLevel level;
+    Order prev;
+    Order next;
+
+    // rezerwacja bramki ryzyka: gotówka (BUY) albo ilość (SELL) pod niezrealizowaną resztę
+    RiskGate riskGate;
+    long reservedUnits;
 
     public Order(String symbol, OrderSide side, double limitPrice, double quantity, long createdAtMillis) {
+        this(NEXT_ID.getAndIncrement(), symbol, side, limitPrice, quantity, createdAtMillis);
+    }
+
+    public Order(long id, String symbol, OrderSide side, double limitPrice, double quantity, long createdAtMillis) {
+        this(id, symbol, side, toUnits(limitPrice), toUnits(quantity), createdAtMillis);
+    }
+
+    private Order(long id, String symbol, OrderSide side, long limitPrice, long quantity, long createdAtMillis) {
         if (symbol == null) throw new IllegalArgumentException("Symbol cannot be null");
         if (side == null) throw new IllegalArgumentException("Side cannot be null");
         if (limitPrice < 0) throw new IllegalArgumentException("Limit price cannot be negative");
         if (quantity <= 0) throw new IllegalArgumentException("Quantity must be positive");
 
+        this.id = id;
         this.symbol = symbol;
         this.side = side;
         this.limitPrice = limitPrice;
         this.quantity = quantity;
         this.createdAtMillis = createdAtMillis;
+        this.remainingQuantity = quantity;
+    }
+
+    public static Order ofUnits(long id, String symbol, OrderSide side, long limitPriceUnits, long quantityUnits, long createdAtMillis) {
+        return new Order(id, symbol, side, limitPriceUnits, quantityUnits, createdAtMillis);
     }
 
+    // po odtworzeniu zleceń z własnymi id automatyczna numeracja nie może ich powtórzyć
+    static void advanceIdsPast(long id) {
+        if (id < Long.MAX_VALUE) NEXT_ID.accumulateAndGet(id + 1, Math::max);
+    }
+
+    private static long toUnits(double value) {
+        // ujemne wartości odrzuca walidacja konstruktora; tu chronimy tylko przed NaN/Inf
+        return FixedPoint.of(value);
+    }
+
+    public long getId() { return id; }
     public String getSymbol() { return symbol; }
     public OrderSide getSide() { return side; }
-    public double getLimitPrice() { return limitPrice; }
-    public double getQuantity() { return quantity; }
+    public double getLimitPrice() { return FixedPoint.toDouble(limitPrice); }
+    public double getQuantity() { return FixedPoint.toDouble(quantity); }
     public long getCreatedAtMillis() { return createdAtMillis; }
-}
\ No newline at end of file
+    public double getRemainingQuantity() { return FixedPoint.toDouble(remainingQuantity); }
+    public long getLimitPriceUnits() { return limitPrice; }
+    public long getQuantityUnits() { return quantity; }
+    public long getRemainingQuantityUnits() { return remainingQuantity; }
+
+    public boolean isFilled() {
+        return remainingQuantity == 0;
+    }
+
+    public void fill(double amount) {
+        if (amount <= 0) throw new IllegalArgumentException("Invalid fill amount");
+        fillUnits(FixedPoint.of(amount));
+    }
+
+    public void fillUnits(long amount) {
+        if (amount <= 0 || amount > remainingQuantity) {
+            throw new IllegalArgumentException("Invalid fill amount");
+        }
+        remainingQuantity -= amount;
+    }
+
+    // zmiany zlecenia wykonuje wyłącznie księga, która pilnuje kolejności
+    void amend(long newRemainingQuantity, long newLimitPrice) {
+        quantity = quantity - remainingQuantity + newRemainingQuantity;
+        remainingQuantity = newRemainingQuantity;
+        limitPrice = newLimitPrice;
+    }
+
+    static void validateAmendUnits(long newRemainingQuantity, long newLimitPrice) {
+        if (newRemainingQuantity <= 0) throw new IllegalArgumentException("Quantity must be positive");
+        if (newLimitPrice < 0) throw new IllegalArgumentException("Limit price cannot be negative");
+    }
+
+    static void validateAmend(double newRemainingQuantity, double newLimitPrice) {
+        if (newRemainingQuantity <= 0) throw new IllegalArgumentException("Quantity must be positive");
+        if (newLimitPrice < 0) throw new IllegalArgumentException("Limit price cannot be negative");
+    }
+}
@@ -1,59 +1,180 @@
 package com.stockmarket.logic;
 
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.PriorityQueue;
 
-public class OrderBook {
+public class OrderBook implements BookSide {
 
-    private final PriorityQueue<Order> queue;
+    private final OrderSide side;
+    private final PriorityQueue<Entry> queue;
+    // aktywne wpisy po id; anulowane zostają w kopcu jako martwe i są pomijane przy peek/poll
+    private final Map<Long, Entry> index = new HashMap<>();
+    // najpóźniejszy znacznik w kolejce; zmienione zlecenie trafia za niego
+    private long lastCreatedAtMillis = Long.MIN_VALUE;
+    // martwe wpisy w kopcu; gdy jest ich więcej niż żywych, kopiec jest przebudowywany bez nich
+    private int dead;
 
     public OrderBook(OrderSide side) {
         if (side == null) throw new IllegalArgumentException("Side cannot be null");
 
-        Comparator<Order> comparator = createComparator(side);
+        this.side = side;
+        Comparator<Entry> comparator = createComparator(side);
         this.queue = new PriorityQueue<>(comparator);
     }
 
-    private Comparator<Order> createComparator(OrderSide side) {
+    private Comparator<Entry> createComparator(OrderSide side) {
         if (side == OrderSide.BUY) {
-            return new Comparator<Order>() {
+            return new Comparator<Entry>() {
                 @Override
-                public int compare(Order o1, Order o2) {
+                public int compare(Entry o1, Entry o2) {
                     // wyższy limit -> wyżej w kolejce (HEAD)
-                    int byPrice = Double.compare(o2.getLimitPrice(), o1.getLimitPrice());
+                    int byPrice = Long.compare(o2.price, o1.price);
                     if (byPrice != 0) return byPrice;
 
                     // tie-breaker: wcześniejsze zlecenie pierwsze
-                    return Long.compare(o1.getCreatedAtMillis(), o2.getCreatedAtMillis());
+                    return Long.compare(o1.createdAtMillis, o2.createdAtMillis);
                 }
             };
         } else {
-            return new Comparator<Order>() {
+            return new Comparator<Entry>() {
                 @Override
-                public int compare(Order o1, Order o2) {
+                public int compare(Entry o1, Entry o2) {
                     // dla SELL: niższa cena bardziej atrakcyjna (bliżej rynku od dołu)
-                    int byPrice = Double.compare(o1.getLimitPrice(), o2.getLimitPrice());
+                    int byPrice = Long.compare(o1.price, o2.price);
                     if (byPrice != 0) return byPrice;
 
-                    return Long.compare(o1.getCreatedAtMillis(), o2.getCreatedAtMillis());
+                    return Long.compare(o1.createdAtMillis, o2.createdAtMillis);
                 }
             };
         }
     }
 
+    @Override
+    public OrderSide getSide() {
+        return side;
+    }
+
+    @Override
     public void add(Order order) {
-        queue.add(order);
+        if (order == null) throw new IllegalArgumentException("Order cannot be null");
+        if (index.containsKey(order.getId())) throw new IllegalArgumentException("Duplicate order id: " + order.getId());
+
+        push(order, order.getCreatedAtMillis());
     }
 
+    @Override
     public Order peek() {
-        return queue.peek();
+        Entry head = liveHead();
+        return head == null ? null : head.order;
     }
 
+    @Override
     public Order poll() {
-        return queue.poll();
+        Entry head = liveHead();
+        if (head == null) return null;
+
+        queue.poll();
+        index.remove(head.order.getId());
+        return head.order;
     }
 
+    // częściowa realizacja najlepszego zlecenia; w pełni wypełnione schodzi z kolejki
+    @Override
+    public Order fillHeadUnits(long quantity) {
+        Entry head = liveHead();
+        if (head == null) throw new IllegalStateException("Order book is empty");
+
+        head.order.fillUnits(quantity);
+        if (head.order.isFilled()) {
+            queue.poll();
+            index.remove(head.order.getId());
+        }
+        return head.order;
+    }
+
+    @Override
+    public Order find(long orderId) {
+        Entry e = index.get(orderId);
+        return e == null ? null : e.order;
+    }
+
+    @Override
+    public boolean cancel(long orderId) {
+        Entry e = index.remove(orderId);
+        if (e == null) return false;
+
+        kill(e);
+        return true;
+    }
+
+    @Override
+    public boolean amendUnits(long orderId, long newQuantity, long newLimitPrice) {
+        Order.validateAmendUnits(newQuantity, newLimitPrice);
+
+        Entry e = index.get(orderId);
+        if (e == null) return false;
+
+        Order order = e.order;
+        if (newLimitPrice == e.price && newQuantity <= order.getRemainingQuantityUnits()) {
+            order.amend(newQuantity, newLimitPrice);
+            return true;
+        }
+
+        // zmiana ceny albo zwiększenie ilości: nowy wpis na koniec kolejki, stary zostaje martwy
+        index.remove(orderId);
+        kill(e);
+        order.amend(newQuantity, newLimitPrice);
+        push(order, lastCreatedAtMillis + 1);
+        return true;
+    }
+
+    @Override
     public int size() {
+        return index.size();
+    }
+
+    private void push(Order order, long createdAtMillis) {
+        Entry e = new Entry(order, order.getLimitPriceUnits(), createdAtMillis);
+        queue.add(e);
+        index.put(order.getId(), e);
+        lastCreatedAtMillis = Math.max(lastCreatedAtMillis, createdAtMillis);
+    }
+
+    // liczba wpisów w kopcu razem z martwymi
+    int queuedEntries() {
         return queue.size();
     }
-}
\ No newline at end of file
+
+    private void kill(Entry e) {
+        e.live = false;
+        if (++dead > index.size()) {
+            queue.removeIf(entry -> !entry.live);
+            dead = 0;
+        }
+    }
+
+    private Entry liveHead() {
+        Entry head = queue.peek();
+        while (head != null && !head.live) {
+            queue.poll();
+            dead--;
+            head = queue.peek();
+        }
+        return head;
+    }
+
+    private static class Entry {
+        private final Order order;
+        private final long price; // FixedPoint
+        private final long createdAtMillis;
+        private boolean live = true;
+
+        private Entry(Order order, long price, long createdAtMillis) {
+            this.order = order;
+            this.price = price;
+            this.createdAtMillis = createdAtMillis;
+        }
+    }
+}
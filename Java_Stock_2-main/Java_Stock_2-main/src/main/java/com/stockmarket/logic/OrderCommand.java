@@ -0,0 +1,46 @@
+package com.stockmarket.logic;
+
+// Slot bufora pierścieniowego - obiekty są prealokowane i nadpisywane przy każdym użyciu.
+public class OrderCommand {
+    private CommandType type;
+    private Order order;
+    private String symbol;
+    private long orderId;
+    private double quantity;
+    private double limitPrice;
+
+    void setNew(Order order) {
+        this.type = CommandType.NEW;
+        this.order = order;
+        this.symbol = order.getSymbol();
+        this.orderId = order.getId();
+    }
+
+    void setCancel(String symbol, long orderId) {
+        this.type = CommandType.CANCEL;
+        this.order = null;
+        this.symbol = symbol;
+        this.orderId = orderId;
+    }
+
+    void setAmend(String symbol, long orderId, double quantity, double limitPrice) {
+        this.type = CommandType.AMEND;
+        this.order = null;
+        this.symbol = symbol;
+        this.orderId = orderId;
+        this.quantity = quantity;
+        this.limitPrice = limitPrice;
+    }
+
+    void clear() {
+        this.order = null;
+        this.symbol = null;
+    }
+
+    public CommandType getType() { return type; }
+    public Order getOrder() { return order; }
+    public String getSymbol() { return symbol; }
+    public long getOrderId() { return orderId; }
+    public double getQuantity() { return quantity; }
+    public double getLimitPrice() { return limitPrice; }
+}
@@ -0,0 +1,101 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.FixedPoint;
+
+import java.util.Arrays;
+
+// Zlecenia trzymane kolumnowo w tablicach prymitywów; zlecenie = indeks (handle).
+// Pula jest prealokowana, więc w stanie ustalonym obrót zleceń nie tworzy obiektów.
+public class OrderPool {
+
+    public static final int NIL = -1;
+
+    private final long[] ids;
+    private final byte[] sides;
+    private final long[] limitPrices; // FixedPoint
+    private final long[] remaining; // FixedPoint
+    private final long[] createdAtMillis;
+
+    // powiązania kolejki FIFO poziomu cenowego; next służy też jako lista wolnych
+    final int[] prev;
+    final int[] next;
+    final int[] levelTick;
+
+    private int freeHead;
+    private int used;
+
+    public OrderPool(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive");
+
+        ids = new long[capacity];
+        sides = new byte[capacity];
+        limitPrices = new long[capacity];
+        remaining = new long[capacity];
+        createdAtMillis = new long[capacity];
+        prev = new int[capacity];
+        next = new int[capacity];
+        levelTick = new int[capacity];
+
+        for (int i = 0; i < capacity - 1; i++) {
+            next[i] = i + 1;
+        }
+        next[capacity - 1] = NIL;
+        Arrays.fill(prev, NIL);
+        Arrays.fill(levelTick, NIL);
+        freeHead = 0;
+    }
+
+    public int allocate(long id, OrderSide side, long limitPrice, long quantity, long createdAt) {
+        if (side == null) throw new IllegalArgumentException("Side cannot be null");
+        if (limitPrice < 0) throw new IllegalArgumentException("Limit price cannot be negative");
+        if (quantity <= 0) throw new IllegalArgumentException("Quantity must be positive");
+        if (freeHead == NIL) throw new IllegalStateException("Order pool exhausted");
+
+        int h = freeHead;
+        freeHead = next[h];
+        used++;
+
+        ids[h] = id;
+        sides[h] = (byte) side.ordinal();
+        limitPrices[h] = limitPrice;
+        remaining[h] = quantity;
+        createdAtMillis[h] = createdAt;
+        prev[h] = NIL;
+        next[h] = NIL;
+        levelTick[h] = NIL;
+        return h;
+    }
+
+    public void free(int handle) {
+        levelTick[handle] = NIL;
+        prev[handle] = NIL;
+        next[handle] = freeHead;
+        freeHead = handle;
+        used--;
+    }
+
+    public int capacity() {
+        return ids.length;
+    }
+
+    public int size() {
+        return used;
+    }
+
+    public long getId(int handle) { return ids[handle]; }
+    public OrderSide getSide(int handle) { return sides[handle] == 0 ? OrderSide.BUY : OrderSide.SELL; }
+    public double getLimitPrice(int handle) { return FixedPoint.toDouble(limitPrices[handle]); }
+    public double getRemainingQuantity(int handle) { return FixedPoint.toDouble(remaining[handle]); }
+    public long getLimitPriceUnits(int handle) { return limitPrices[handle]; }
+    public long getRemainingQuantityUnits(int handle) { return remaining[handle]; }
+    public long getCreatedAtMillis(int handle) { return createdAtMillis[handle]; }
+
+    // zwraca true, gdy zlecenie zostało w pełni wypełnione
+    boolean fill(int handle, long amount) {
+        long rest = remaining[handle];
+        if (amount <= 0 || amount > rest) throw new IllegalArgumentException("Invalid fill amount");
+
+        remaining[handle] = rest - amount;
+        return remaining[handle] == 0;
+    }
+}
@@ -0,0 +1,131 @@
+package com.stockmarket.logic;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Prealokowany bufor MPSC w stylu Disruptora: producenci rezerwują numer sekwencji przez CAS,
+// wypełniają slot i publikują go flagą; jeden konsument czyta slot po slocie w paczkach.
+public class OrderRingBuffer {
+
+    private final OrderCommand[] entries;
+    private final int mask;
+    private final int shift;
+    // numer "okrążenia" opublikowany w danym slocie; -1 = nigdy
+    private final AtomicIntegerArray published;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private final AtomicLong consumed = new AtomicLong(-1);
+    private final WaitStrategy producerWait;
+
+    public OrderRingBuffer(int capacity, WaitStrategy producerWait) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a positive power of two");
+        }
+        if (producerWait == null) throw new IllegalArgumentException("Wait strategy cannot be null");
+
+        this.entries = new OrderCommand[capacity];
+        for (int i = 0; i < capacity; i++) {
+            entries[i] = new OrderCommand();
+        }
+        this.mask = capacity - 1;
+        this.shift = Integer.numberOfTrailingZeros(capacity);
+        this.published = new AtomicIntegerArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+        this.producerWait = producerWait;
+    }
+
+    public int capacity() {
+        return entries.length;
+    }
+
+    public void publishNew(Order order) {
+        if (order == null) throw new IllegalArgumentException("Order cannot be null");
+        long seq = claim();
+        entries[(int) seq & mask].setNew(order);
+        publish(seq);
+    }
+
+    public void publishCancel(String symbol, long orderId) {
+        if (symbol == null) throw new IllegalArgumentException("Symbol cannot be null");
+        long seq = claim();
+        entries[(int) seq & mask].setCancel(symbol, orderId);
+        publish(seq);
+    }
+
+    public void publishAmend(String symbol, long orderId, double newQuantity, double newLimitPrice) {
+        if (symbol == null) throw new IllegalArgumentException("Symbol cannot be null");
+        Order.validateAmend(newQuantity, newLimitPrice);
+        long seq = claim();
+        entries[(int) seq & mask].setAmend(symbol, orderId, newQuantity, newLimitPrice);
+        publish(seq);
+    }
+
+    // wariant bez czekania - false, gdy bufor jest pełny (backpressure po stronie wywołującego)
+    public boolean tryPublishNew(Order order) {
+        if (order == null) throw new IllegalArgumentException("Order cannot be null");
+        long seq = tryClaim();
+        if (seq < 0) return false;
+        entries[(int) seq & mask].setNew(order);
+        publish(seq);
+        return true;
+    }
+
+    // wywoływane tylko z wątku konsumenta
+    public int drain(Consumer<OrderCommand> handler, int maxBatch) {
+        if (handler == null) throw new IllegalArgumentException("Handler cannot be null");
+        if (maxBatch <= 0) throw new IllegalArgumentException("Batch size must be positive");
+
+        long next = consumed.get() + 1;
+        int count = 0;
+        try {
+            while (count < maxBatch && isPublished(next + count)) {
+                OrderCommand cmd = entries[(int) (next + count) & mask];
+                try {
+                    handler.accept(cmd);
+                } finally {
+                    // komenda, która rzuciła wyjątek, też jest zużyta - nie wraca do kolejki
+                    cmd.clear();
+                    count++;
+                }
+            }
+        } finally {
+            if (count > 0) {
+                // jedno przesunięcie sekwencji na całą paczkę zwalnia sloty producentom
+                consumed.lazySet(next + count - 1);
+            }
+        }
+        return count;
+    }
+
+    public long size() {
+        return claimed.get() - consumed.get();
+    }
+
+    private long claim() {
+        int attempt = 0;
+        while (true) {
+            long seq = tryClaim();
+            if (seq >= 0) return seq;
+            producerWait.idle(attempt++);
+        }
+    }
+
+    private long tryClaim() {
+        while (true) {
+            long current = claimed.get();
+            long seq = current + 1;
+            if (seq - entries.length > consumed.get()) return -1;
+            if (claimed.compareAndSet(current, seq)) return seq;
+        }
+    }
+
+    private void publish(long seq) {
+        published.lazySet((int) seq & mask, (int) (seq >>> shift));
+    }
+
+    private boolean isPublished(long seq) {
+        return published.get((int) seq & mask) == (int) (seq >>> shift);
+    }
+}
@@ -0,0 +1,87 @@
+package com.stockmarket.logic;
+
+// Jedyny wątek piszący do ksiąg silnika: opróżnia bufor paczkami i aplikuje komendy po kolei.
+public class OrderSequencer implements Runnable {
+
+    private final OrderRingBuffer ring;
+    private final MatchingEngine engine;
+    private final WaitStrategy waitStrategy;
+    private final int batchSize;
+    private volatile boolean running = true;
+    private volatile long processed;
+    private volatile long rejected;
+    private volatile long failed;
+    private volatile RuntimeException lastFailure;
+
+    public OrderSequencer(OrderRingBuffer ring, MatchingEngine engine, WaitStrategy waitStrategy, int batchSize) {
+        if (ring == null) throw new IllegalArgumentException("Ring buffer cannot be null");
+        if (engine == null) throw new IllegalArgumentException("Engine cannot be null");
+        if (waitStrategy == null) throw new IllegalArgumentException("Wait strategy cannot be null");
+        if (batchSize <= 0) throw new IllegalArgumentException("Batch size must be positive");
+
+        this.ring = ring;
+        this.engine = engine;
+        this.waitStrategy = waitStrategy;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run() {
+        int idle = 0;
+        while (running) {
+            int n = ring.drain(this::apply, batchSize);
+            if (n == 0) {
+                waitStrategy.idle(idle++);
+            } else {
+                idle = 0;
+            }
+        }
+        // dokończ to, co zdążyło zostać opublikowane przed zatrzymaniem
+        while (ring.drain(this::apply, batchSize) > 0) {
+            // kontynuuj
+        }
+    }
+
+    public int drainOnce() {
+        return ring.drain(this::apply, batchSize);
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    public long getProcessedCount() {
+        return processed;
+    }
+
+    public long getRejectedCount() {
+        return rejected;
+    }
+
+    // komendy przerwane nieoczekiwanym wyjątkiem (np. ze słuchacza transakcji)
+    public long getFailedCount() {
+        return failed;
+    }
+
+    public RuntimeException getLastFailure() {
+        return lastFailure;
+    }
+
+    private void apply(OrderCommand cmd) {
+        try {
+            switch (cmd.getType()) {
+                case NEW -> engine.submit(cmd.getOrder());
+                case CANCEL -> engine.cancel(cmd.getSymbol(), cmd.getOrderId());
+                case AMEND -> engine.amend(cmd.getSymbol(), cmd.getOrderId(), cmd.getQuantity(), cmd.getLimitPrice());
+            }
+        } catch (IllegalArgumentException | IllegalStateException ex) {
+            // błędne zlecenie nie może zatrzymać sekwencera
+            rejected++;
+        } catch (RuntimeException ex) {
+            // inny błąd też nie: martwy wątek zostawiłby producentów zablokowanych na pełnym buforze
+            failed++;
+            lastFailure = ex;
+        }
+        processed++;
+    }
+}
@@ -0,0 +1,6 @@
+package com.stockmarket.logic;
+
+// wersja FillListener bez obiektu zdarzenia - same prymitywy, cena i ilość w FixedPoint
+public interface PooledFillListener {
+    void onFill(long buyOrderId, long sellOrderId, OrderSide aggressorSide, long price, long quantity);
+}
@@ -0,0 +1,87 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.FixedPoint;
+
+// Matching jednego symbolu na wspólnej puli zleceń; brak alokacji na zlecenie i na transakcję.
+public class PooledMatchingEngine {
+
+    private final OrderPool pool;
+    private final PooledOrderBook bids;
+    private final PooledOrderBook asks;
+    private final PooledFillListener listener;
+
+    public PooledMatchingEngine(int capacity, double minPrice, double tickSize, int ticks, PooledFillListener listener) {
+        if (listener == null) throw new IllegalArgumentException("Listener cannot be null");
+
+        this.pool = new OrderPool(capacity);
+        this.bids = new PooledOrderBook(OrderSide.BUY, pool, minPrice, tickSize, ticks);
+        this.asks = new PooledOrderBook(OrderSide.SELL, pool, minPrice, tickSize, ticks);
+        this.listener = listener;
+    }
+
+    // zwraca ilość, która pozostała w księdze (0 = zlecenie w pełni zrealizowane)
+    public double submit(long id, OrderSide side, double limitPrice, double quantity, long createdAtMillis) {
+        if (limitPrice < 0) throw new IllegalArgumentException("Limit price cannot be negative");
+        if (quantity <= 0) throw new IllegalArgumentException("Quantity must be positive");
+        return FixedPoint.toDouble(submitUnits(id, side, FixedPoint.of(limitPrice), FixedPoint.of(quantity), createdAtMillis));
+    }
+
+    public long submitUnits(long id, OrderSide side, long limitPrice, long quantity, long createdAtMillis) {
+        if (side == null) throw new IllegalArgumentException("Side cannot be null");
+        boolean buy = side == OrderSide.BUY;
+        PooledOrderBook own = buy ? bids : asks;
+        PooledOrderBook opposite = buy ? asks : bids;
+
+        own.toTickUnits(limitPrice); // walidacja siatki zanim cokolwiek się zrealizuje
+        if (own.find(id) != OrderPool.NIL || opposite.find(id) != OrderPool.NIL) {
+            throw new IllegalArgumentException("Duplicate order id: " + id);
+        }
+
+        int handle = pool.allocate(id, side, limitPrice, quantity, createdAtMillis);
+        long remaining = quantity;
+
+        while (remaining > 0) {
+            int resting = opposite.peek();
+            if (resting == OrderPool.NIL) break;
+
+            long restingPrice = pool.getLimitPriceUnits(resting);
+            if (buy ? restingPrice > limitPrice : restingPrice < limitPrice) break;
+
+            long qty = Math.min(remaining, pool.getRemainingQuantityUnits(resting));
+            long restingId = pool.getId(resting);
+
+            pool.fill(handle, qty);
+            remaining -= qty;
+            opposite.fillHead(qty);
+
+            if (buy) {
+                listener.onFill(id, restingId, side, restingPrice, qty);
+            } else {
+                listener.onFill(restingId, id, side, restingPrice, qty);
+            }
+        }
+
+        if (remaining > 0) {
+            own.add(handle);
+        } else {
+            pool.free(handle);
+        }
+        return remaining;
+    }
+
+    public boolean cancel(long orderId) {
+        return bids.cancel(orderId) || asks.cancel(orderId);
+    }
+
+    public PooledOrderBook getBids() {
+        return bids;
+    }
+
+    public PooledOrderBook getAsks() {
+        return asks;
+    }
+
+    public OrderPool getPool() {
+        return pool;
+    }
+}
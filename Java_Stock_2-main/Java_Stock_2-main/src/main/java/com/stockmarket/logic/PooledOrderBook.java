@@ -0,0 +1,189 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.FixedPoint;
+
+import java.util.Arrays;
+
+// Jedna strona księgi jako drabina cen indeksowana tickiem; zlecenia to uchwyty z OrderPool.
+public class PooledOrderBook {
+
+    private final OrderSide side;
+    private final OrderPool pool;
+    private final long minPrice; // FixedPoint
+    private final long tickSize; // FixedPoint
+
+    private final int[] levelHead;
+    private final int[] levelTail;
+    private final int[] levelOrders;
+    private final long[] levelQuantity; // FixedPoint
+    private final LongIntMap index;
+
+    private int bestTick = OrderPool.NIL;
+    private int size;
+
+    public PooledOrderBook(OrderSide side, OrderPool pool, double minPrice, double tickSize, int ticks) {
+        if (side == null) throw new IllegalArgumentException("Side cannot be null");
+        if (pool == null) throw new IllegalArgumentException("Pool cannot be null");
+        if (minPrice < 0) throw new IllegalArgumentException("Min price cannot be negative");
+        if (tickSize <= 0) throw new IllegalArgumentException("Tick size must be positive");
+        if (ticks <= 0) throw new IllegalArgumentException("Tick count must be positive");
+
+        this.side = side;
+        this.pool = pool;
+        this.minPrice = FixedPoint.of(minPrice);
+        this.tickSize = FixedPoint.of(tickSize);
+        if (this.tickSize <= 0) throw new IllegalArgumentException("Tick size must be positive");
+        this.levelHead = new int[ticks];
+        this.levelTail = new int[ticks];
+        this.levelOrders = new int[ticks];
+        this.levelQuantity = new long[ticks];
+        this.index = new LongIntMap(pool.capacity(), OrderPool.NIL);
+        Arrays.fill(levelHead, OrderPool.NIL);
+        Arrays.fill(levelTail, OrderPool.NIL);
+    }
+
+    public OrderSide getSide() {
+        return side;
+    }
+
+    public int toTick(double price) {
+        return toTickUnits(FixedPoint.of(price));
+    }
+
+    // cena stałoprzecinkowa -> indeks drabiny; dzielenie całkowite, więc siatka jest sprawdzana dokładnie
+    public int toTickUnits(long price) {
+        long offset = price - minPrice;
+        if (offset % tickSize != 0) throw new IllegalArgumentException("Price is not on tick grid: " + FixedPoint.format(price));
+        long tick = offset / tickSize;
+        if (tick < 0 || tick >= levelHead.length) throw new IllegalArgumentException("Price out of range: " + FixedPoint.format(price));
+        return (int) tick;
+    }
+
+    public long toPriceUnits(int tick) {
+        return minPrice + tick * tickSize;
+    }
+
+    public void add(int handle) {
+        if (pool.getSide(handle) != side) throw new IllegalArgumentException("Order side does not match book side");
+        long id = pool.getId(handle);
+        if (index.containsKey(id)) throw new IllegalArgumentException("Duplicate order id: " + id);
+
+        int tick = toTickUnits(pool.getLimitPriceUnits(handle));
+        index.put(id, handle);
+        append(handle, tick);
+        size++;
+    }
+
+    public int peek() {
+        return bestTick == OrderPool.NIL ? OrderPool.NIL : levelHead[bestTick];
+    }
+
+    // realizuje część najlepszego zlecenia; w pełni wypełnione zwalnia do puli i zwraca true
+    public boolean fillHead(long quantity) {
+        int head = peek();
+        if (head == OrderPool.NIL) throw new IllegalStateException("Order book is empty");
+
+        int tick = bestTick;
+        boolean done = pool.fill(head, quantity);
+        levelQuantity[tick] -= quantity;
+        if (done) {
+            remove(head);
+        }
+        return done;
+    }
+
+    public boolean cancel(long orderId) {
+        int handle = index.get(orderId);
+        if (handle == OrderPool.NIL) return false;
+
+        remove(handle);
+        return true;
+    }
+
+    public int find(long orderId) {
+        return index.get(orderId);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public double getBestPrice() {
+        return FixedPoint.toDouble(getBestPriceUnits());
+    }
+
+    public long getBestPriceUnits() {
+        if (bestTick == OrderPool.NIL) throw new IllegalStateException("Order book is empty");
+        return toPriceUnits(bestTick);
+    }
+
+    public double getQuantityAt(double price) {
+        return FixedPoint.toDouble(levelQuantity[toTick(price)]);
+    }
+
+    public int getOrderCountAt(double price) {
+        return levelOrders[toTick(price)];
+    }
+
+    private void append(int handle, int tick) {
+        int tail = levelTail[tick];
+        pool.levelTick[handle] = tick;
+        pool.prev[handle] = tail;
+        pool.next[handle] = OrderPool.NIL;
+        if (tail == OrderPool.NIL) {
+            levelHead[tick] = handle;
+        } else {
+            pool.next[tail] = handle;
+        }
+        levelTail[tick] = handle;
+        levelOrders[tick]++;
+        levelQuantity[tick] += pool.getRemainingQuantityUnits(handle);
+
+        if (bestTick == OrderPool.NIL || isBetter(tick, bestTick)) {
+            bestTick = tick;
+        }
+    }
+
+    private void remove(int handle) {
+        int tick = pool.levelTick[handle];
+        int p = pool.prev[handle];
+        int n = pool.next[handle];
+        if (p == OrderPool.NIL) levelHead[tick] = n; else pool.next[p] = n;
+        if (n == OrderPool.NIL) levelTail[tick] = p; else pool.prev[n] = p;
+
+        levelOrders[tick]--;
+        levelQuantity[tick] -= pool.getRemainingQuantityUnits(handle);
+
+        index.remove(pool.getId(handle));
+        pool.free(handle);
+        size--;
+
+        if (tick == bestTick && levelOrders[tick] == 0) {
+            bestTick = nextBestTick(tick);
+        }
+    }
+
+    // skan drabiny od zwolnionego poziomu w stronę gorszych cen
+    private int nextBestTick(int from) {
+        if (size == 0) return OrderPool.NIL;
+
+        if (side == OrderSide.BUY) {
+            for (int t = from - 1; t >= 0; t--) {
+                if (levelOrders[t] > 0) return t;
+            }
+        } else {
+            for (int t = from + 1; t < levelOrders.length; t++) {
+                if (levelOrders[t] > 0) return t;
+            }
+        }
+        return OrderPool.NIL;
+    }
+
+    private boolean isBetter(int tick, int than) {
+        return side == OrderSide.BUY ? tick > than : tick < than;
+    }
+}
@@ -1,28 +1,66 @@
 package com.stockmarket.logic;
 
 import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.FixedPoint;
 import com.stockmarket.domain.PurchaseLot;
 import com.stockmarket.exceptions.InsufficientFundsException;
 
+import java.nio.file.Path;
 import java.time.LocalDate;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
-public class Portfolio {
+// final: konstruktor przekazuje this do PositionMap, podklasa widziałaby niezainicjowany obiekt
+public final class Portfolio {
 
-    private double cash;
-    private final Map<String, Position> positions;
+    private long cashUnits; // FixedPoint
+    private final PositionMap positions;
+
+    // suma wartości rynkowych pozycji, aktualizowana różnicami zgłaszanymi przez Position
+    private long assetsValueUnits;
+    private PriceBook priceBook;
+    private PortfolioListener listener;
+    private RealizedPnlLedger ledger;
+    private LedgerTee ledgerTee;
+    int accountId = -1; // nadawany przez AccountRegistry
+    RiskGate riskGate; // podłączana przez konstruktor RiskGate; dostaje zmiany gotówki i ilości
+
+    // symbole zmienione od ostatniego zapisu przyrostowego i katalog, którego ten stan dotyczy
+    private final Set<String> dirtySymbols = new HashSet<>();
+    Path checkpoint;
+    String checkpointGeneration;
 
     public Portfolio(double initialCash) {
         if (initialCash < 0) {
             throw new IllegalArgumentException("Initial cash cannot be negative");
         }
-        this.cash = initialCash;
-        this.positions = new HashMap<>();
+        this.cashUnits = FixedPoint.of(initialCash);
+        this.positions = new PositionMap(this);
+    }
+
+    public static Portfolio ofCashUnits(long initialCashUnits) {
+        if (initialCashUnits < 0) {
+            throw new IllegalArgumentException("Initial cash cannot be negative");
+        }
+        Portfolio portfolio = new Portfolio(0.0);
+        portfolio.cashUnits = initialCashUnits;
+        return portfolio;
     }
 
     public double getCash() {
-        return cash;
+        return FixedPoint.toDouble(cashUnits);
+    }
+
+    public long getCashUnits() {
+        return cashUnits;
     }
 
     public Map<String, Position> getPositions() {
@@ -38,17 +76,237 @@ public class Portfolio {
         return positions.get(symbol);
     }
 
+    // w trybie leniwym suma wartości wymaga wszystkich pozycji
     public double calculateAssetsRealValue() {
-        double sum = 0.0;
-        for (Map.Entry<String, Position> entry : positions.entrySet()) {
-            Position p = entry.getValue();
-            sum += p.getMarketValue();
-        }
-        return sum;
+        positions.loadAll();
+        return FixedPoint.toDouble(assetsValueUnits);
+    }
+
+    public long getAssetsValueUnits() {
+        positions.loadAll();
+        return assetsValueUnits;
     }
 
     public double calculateTotalValue() {
-        return cash + calculateAssetsRealValue();
+        positions.loadAll();
+        return FixedPoint.toDouble(FixedPoint.add(cashUnits, assetsValueUnits));
+    }
+
+    // pozycje wczytywane z pliku przy pierwszym dostępie (PortfolioPersistence.loadLazy)
+    void loadLazily(Collection<String> symbols, Function<String, Position> loader) {
+        positions.setLazy(symbols, loader);
+    }
+
+    public boolean isPositionLoaded(String symbol) {
+        if (symbol == null) throw new IllegalArgumentException("Symbol cannot be null");
+        return positions.isLoaded(symbol);
+    }
+
+    public BatchResult applyTrades(Stream<Trade> trades, BatchMode mode) {
+        if (trades == null) throw new IllegalArgumentException("Trades cannot be null");
+        return applyTrades(trades.toList(), mode);
+    }
+
+    // Paczka transakcji: walidacja w kolejności wejścia na prymitywach (bez wyjątków),
+    // potem jedno przejście grupami po symbolu i jedna aktualizacja gotówki.
+    // Wynik jest taki sam, jak przy kolejnych wywołaniach buyAsset/sellAsset.
+    public BatchResult applyTrades(List<Trade> trades, BatchMode mode) {
+        if (trades == null) throw new IllegalArgumentException("Trades cannot be null");
+        if (mode == null) throw new IllegalArgumentException("Mode cannot be null");
+
+        int n = trades.size();
+        TradeStatus[] statuses = new TradeStatus[n];
+        SaleResult[] sales = new SaleResult[n];
+        Map<String, TradeGroup> groups = new LinkedHashMap<>();
+
+        long cash = cashUnits;
+        int applied = 0;
+        for (int i = 0; i < n; i++) {
+            Trade t = trades.get(i);
+            if (t == null) throw new IllegalArgumentException("Trade cannot be null");
+
+            TradeGroup group = groups.get(t.getSymbol());
+            if (group == null) {
+                group = new TradeGroup(positions.get(t.getSymbol()));
+                groups.put(t.getSymbol(), group);
+            }
+
+            TradeStatus status;
+            if (t.getSide() == OrderSide.BUY) {
+                long cost = t.getAsset().calculateAcquisitionCostUnits(t.getQuantityUnits());
+                if (cost > cash) {
+                    status = TradeStatus.INSUFFICIENT_FUNDS;
+                } else {
+                    cash -= cost;
+                    group.projectedQuantityUnits += t.getQuantityUnits();
+                    status = TradeStatus.APPLIED;
+                }
+            } else if (group.projectedQuantityUnits == 0) {
+                status = TradeStatus.NO_POSITION;
+            } else if (t.getQuantityUnits() > group.projectedQuantityUnits) {
+                status = TradeStatus.INSUFFICIENT_QUANTITY;
+            } else {
+                cash = FixedPoint.add(cash, FixedPoint.multiply(t.getQuantityUnits(), t.getUnitPriceUnits()));
+                group.projectedQuantityUnits -= t.getQuantityUnits();
+                status = TradeStatus.APPLIED;
+            }
+
+            statuses[i] = status;
+            if (status == TradeStatus.APPLIED) {
+                group.add(i);
+                applied++;
+            }
+        }
+
+        if (applied < n && mode == BatchMode.ALL_OR_NOTHING) {
+            for (int i = 0; i < n; i++) {
+                if (statuses[i] == TradeStatus.APPLIED) statuses[i] = TradeStatus.NOT_APPLIED;
+            }
+            return new BatchResult(statuses, sales, 0, false);
+        }
+
+        // walidacja przeszła, więc tu nic już nie rzuca
+        for (Map.Entry<String, TradeGroup> entry : groups.entrySet()) {
+            TradeGroup group = entry.getValue();
+            if (group.count == 0) continue;
+
+            Position position = group.position;
+            for (int k = 0; k < group.count; k++) {
+                int i = group.indices[k];
+                Trade t = trades.get(i);
+                if (t.getSide() == OrderSide.BUY) {
+                    if (position == null) {
+                        position = new Position(t.getAsset());
+                        positions.put(entry.getKey(), position);
+                    }
+                    position.addLotUnits(t.getDate(), t.getUnitPriceUnits(), t.getQuantityUnits());
+                } else {
+                    sales[i] = position.sellFifoUnits(t.getQuantityUnits(), t.getUnitPriceUnits());
+                    if (ledger != null) ledger.record(entry.getKey(), t.getDate(), sales[i]);
+                }
+            }
+            if (position.getTotalQuantityUnits() == 0) {
+                positions.remove(entry.getKey());
+            }
+        }
+        changeCash(cash);
+
+        return new BatchResult(statuses, sales, applied, true);
+    }
+
+    private static final class TradeGroup {
+        final Position position;
+        long projectedQuantityUnits;
+        int[] indices = new int[4];
+        int count;
+
+        TradeGroup(Position position) {
+            this.position = position;
+            this.projectedQuantityUnits = position == null ? 0 : position.getTotalQuantityUnits();
+        }
+
+        void add(int index) {
+            if (count == indices.length) indices = Arrays.copyOf(indices, count * 2);
+            indices[count++] = index;
+        }
+    }
+
+    public PriceBook getPriceBook() {
+        return priceBook;
+    }
+
+    // pozycje (obecne i przyszłe) będą przeceniane tickami z księgi
+    public void attachPriceBook(PriceBook book) {
+        if (book == null) throw new IllegalArgumentException("Price book cannot be null");
+        if (book == priceBook) return;
+        detachPriceBook();
+        priceBook = book;
+        for (Position p : positions.values()) {
+            book.subscribe(p);
+        }
+    }
+
+    public void detachPriceBook() {
+        if (priceBook == null) return;
+        for (Position p : positions.values()) {
+            priceBook.unsubscribe(p);
+        }
+        priceBook = null;
+    }
+
+    public PortfolioListener getListener() {
+        return listener;
+    }
+
+    // jeden słuchacz na portfel; null odłącza
+    public void setListener(PortfolioListener listener) {
+        this.listener = listener;
+    }
+
+    public RealizedPnlLedger getLedger() {
+        return ledger;
+    }
+
+    // każda sprzedaż z datą (sellAsset, applyTrades) trafia do księgi; null odłącza
+    public void setLedger(RealizedPnlLedger ledger) {
+        this.ledger = ledger;
+    }
+
+    // symbole do zapisania przy następnym saveIncremental (także usunięte pozycje)
+    public Set<String> getDirtySymbols() {
+        return Collections.unmodifiableSet(dirtySymbols);
+    }
+
+    // zapisy gotówki idą tędy, żeby bramka ryzyka widziała każdą zmianę
+    private void changeCash(long newCashUnits) {
+        if (riskGate != null) riskGate.onCashChanged(newCashUnits - cashUnits);
+        cashUnits = newCashUnits;
+    }
+
+    void onPositionQuantityChanged(String symbol, long delta) {
+        if (riskGate != null) riskGate.onQuantityChanged(symbol, delta);
+    }
+
+    void onPositionChanged(Position position) {
+        dirtySymbols.add(position.getAsset().getSymbol());
+    }
+
+    // po zapisie przyrostowym do katalogu (albo odczycie z niego) portfel jest z nim zgodny
+    void markClean(Path dir, String generation) {
+        for (String symbol : dirtySymbols) {
+            Position p = positions.get(symbol);
+            if (p != null) p.dirty = false;
+        }
+        dirtySymbols.clear();
+        checkpoint = dir;
+        checkpointGeneration = generation;
+    }
+
+    void attach(Position position) {
+        if (position.owner != null) {
+            throw new IllegalArgumentException("Position already belongs to a portfolio");
+        }
+        position.owner = this;
+        position.dirty = true;
+        dirtySymbols.add(position.getAsset().getSymbol());
+        assetsValueUnits = FixedPoint.add(assetsValueUnits, position.getMarketValueUnits());
+        if (priceBook != null) priceBook.subscribe(position);
+        if (riskGate != null) riskGate.onPositionOpened(position);
+        if (listener != null) listener.onPositionOpened(this, position);
+    }
+
+    void detach(Position position) {
+        if (priceBook != null) priceBook.unsubscribe(position);
+        position.owner = null;
+        position.dirty = false;
+        dirtySymbols.add(position.getAsset().getSymbol());
+        assetsValueUnits -= position.getMarketValueUnits();
+        if (riskGate != null) riskGate.onQuantityChanged(position.getAsset().getSymbol(), -position.getTotalQuantityUnits());
+        if (listener != null) listener.onPositionClosed(this, position);
+    }
+
+    void onPositionValueChanged(long delta) {
+        assetsValueUnits = FixedPoint.add(assetsValueUnits, delta);
     }
 
     public void buyAsset(Asset asset, double quantity) {
@@ -59,8 +317,21 @@ public class Portfolio {
         if (asset == null) throw new IllegalArgumentException("Asset cannot be null");
         if (quantity <= 0) throw new IllegalArgumentException("Quantity must be positive");
 
-        double cost = asset.calculateAcquisitionCost(quantity);
-        if (cost > cash) {
+        buy(asset, FixedPoint.of(quantity), new PurchaseLot(date, unitPrice, quantity));
+    }
+
+    public void buyAssetUnits(Asset asset, long quantityUnits, LocalDate date, long unitPriceUnits) {
+        if (asset == null) throw new IllegalArgumentException("Asset cannot be null");
+        if (quantityUnits <= 0) throw new IllegalArgumentException("Quantity must be positive");
+        if (date == null) throw new IllegalArgumentException("Purchase date cannot be null");
+        if (unitPriceUnits < 0) throw new IllegalArgumentException("Unit price cannot be negative");
+
+        buy(asset, quantityUnits, PurchaseLot.ofUnits(date, unitPriceUnits, quantityUnits));
+    }
+
+    private void buy(Asset asset, long quantityUnits, PurchaseLot lot) {
+        long cost = asset.calculateAcquisitionCostUnits(quantityUnits);
+        if (cost > cashUnits) {
             throw new InsufficientFundsException("Insufficient funds");
         }
 
@@ -70,23 +341,101 @@ public class Portfolio {
             positions.put(asset.getSymbol(), position);
         }
 
-        position.addLot(new PurchaseLot(date, unitPrice, quantity));
-        cash -= cost;
+        position.addLot(lot);
+        changeCash(cashUnits - cost);
     }
 
     public SaleResult sellAsset(String symbol, double quantity, double sellUnitPrice, LocalDate saleDate) {
+        return sellAsset(symbol, quantity, sellUnitPrice, saleDate, CostBasisMethod.FIFO);
+    }
+
+    public SaleResult sellAsset(String symbol, double quantity, double sellUnitPrice, LocalDate saleDate, CostBasisMethod method) {
         Position position = positions.get(symbol);
         if (position == null) {
             throw new IllegalArgumentException("No such asset in portfolio");
         }
+        if (ledger != null && saleDate == null) throw new IllegalArgumentException("Sale date cannot be null");
 
-        SaleResult result = position.sellFifo(quantity, sellUnitPrice);
-        cash += quantity * sellUnitPrice;
+        SaleResult result = position.sell(method, quantity, sellUnitPrice);
+        long proceeds = FixedPoint.multiply(result.getTotalSoldQuantityUnits(), FixedPoint.of(sellUnitPrice));
+        changeCash(FixedPoint.add(cashUnits, proceeds));
+        if (ledger != null) ledger.record(symbol, saleDate, result);
 
-        if (position.getTotalQuantity() <= 0.0) {
+        if (position.getTotalQuantityUnits() == 0) {
             positions.remove(symbol);
         }
 
         return result;
     }
+
+    // wariant bez alokacji: szczegóły partii trafiają do odbiorcy (i do księgi, jeśli jest), zwracany jest łączny zysk
+    public long sellAssetUnits(String symbol, long quantityUnits, long sellUnitPriceUnits, LocalDate saleDate,
+                               CostBasisMethod method, SaleSink sink) {
+        Position position = positions.get(symbol);
+        if (position == null) {
+            throw new IllegalArgumentException("No such asset in portfolio");
+        }
+        if (sink == null) throw new IllegalArgumentException("Sink cannot be null");
+        if (ledger != null && saleDate == null) throw new IllegalArgumentException("Sale date cannot be null");
+
+        long profit = position.sellUnits(method, quantityUnits, sellUnitPriceUnits, withLedger(symbol, saleDate, sink));
+        changeCash(FixedPoint.add(cashUnits, FixedPoint.multiply(quantityUnits, sellUnitPriceUnits)));
+
+        if (position.getTotalQuantityUnits() == 0) {
+            positions.remove(symbol);
+        }
+
+        return profit;
+    }
+
+    // rozdzielacz do księgi i odbiorcy wywołującego, jeden na portfel
+    private SaleSink withLedger(String symbol, LocalDate saleDate, SaleSink sink) {
+        if (ledger == null) return sink;
+        ledger.sink(symbol, saleDate);
+        if (sink == ledger) return ledger;
+        if (ledgerTee == null) ledgerTee = new LedgerTee();
+        ledgerTee.ledger = ledger;
+        ledgerTee.sink = sink;
+        return ledgerTee;
+    }
+
+    private static final class LedgerTee implements SaleSink {
+        RealizedPnlLedger ledger;
+        SaleSink sink;
+
+        @Override
+        public void onLot(long lotId, int purchaseEpochDay, long soldQuantityUnits,
+                          long buyUnitPriceUnits, long sellUnitPriceUnits, long profitUnits) {
+            ledger.onLot(lotId, purchaseEpochDay, soldQuantityUnits, buyUnitPriceUnits, sellUnitPriceUnits, profitUnits);
+            sink.onLot(lotId, purchaseEpochDay, soldQuantityUnits, buyUnitPriceUnits, sellUnitPriceUnits, profitUnits);
+        }
+
+        @Override
+        public void onSaleEnd() {
+            ledger.onSaleEnd();
+            sink.onSaleEnd();
+            ledger = null;
+            sink = null;
+        }
+    }
+
+    // księgowanie realizacji z RiskGate: po cenie transakcji, bez prowizji, sprzedaż FIFO
+    void applyFill(Asset asset, OrderSide side, long quantityUnits, long priceUnits, LocalDate date) {
+        String symbol = asset.getSymbol();
+        if (side == OrderSide.SELL) {
+            sellAssetUnits(symbol, quantityUnits, priceUnits, date, CostBasisMethod.FIFO, NO_SINK);
+            return;
+        }
+
+        Position position = positions.get(symbol);
+        if (position == null) {
+            position = new Position(asset);
+            positions.put(symbol, position);
+        }
+        position.addLotUnits(date, priceUnits, quantityUnits);
+        changeCash(cashUnits - FixedPoint.multiply(quantityUnits, priceUnits));
+    }
+
+    private static final SaleSink NO_SINK = (lotId, purchaseEpochDay, soldQuantityUnits,
+                                             buyUnitPriceUnits, sellUnitPriceUnits, profitUnits) -> { };
 }
@@ -0,0 +1,9 @@
+package com.stockmarket.logic;
+
+// Zgłoszenia otwarcia i zamknięcia pozycji - także przy zmianach wprost przez getPositions()
+public interface PortfolioListener {
+
+    void onPositionOpened(Portfolio portfolio, Position position);
+
+    void onPositionClosed(Portfolio portfolio, Position position);
+}
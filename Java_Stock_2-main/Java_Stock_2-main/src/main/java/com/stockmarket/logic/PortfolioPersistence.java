@@ -7,40 +7,247 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
-import java.util.Deque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
 
 public class PortfolioPersistence {
 
+    static final String HEADER_FILE = "header.txt";
+    static final String SEGMENTS_DIR = "positions";
+    static final String SEGMENT_SUFFIX = ".txt";
+    static final String SAVING_MARKER = "saving";
+    private static final byte[] NEWLINE = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
     public void save(Portfolio portfolio, Path file) {
         if (portfolio == null) throw new IllegalArgumentException("Portfolio cannot be null");
         if (file == null) throw new IllegalArgumentException("File cannot be null");
 
-        try (BufferedWriter bw = Files.newBufferedWriter(file)) {
-            bw.write(LineType.HEADER.name() + "|" + HeaderField.CASH.name() + "|" + portfolio.getCash());
-            bw.newLine();
+        // obok pliku indeks przesunięć bloków ASSET dla loadLazy.
+        // Zapis do pliku tymczasowego: portfel wczytany leniwie z tego samego pliku czyta go jeszcze w trakcie zapisu.
+        OffsetIndex index = new OffsetIndex();
+        Path tmp = temporary(file);
+        try {
+            try (BufferedWriter bw = Files.newBufferedWriter(tmp)) {
+                CRC32 crc = new CRC32();
+                long offset = writeHeader(bw, portfolio, crc);
+
+                for (Map.Entry<String, Position> entry : portfolio.getPositions().entrySet()) {
+                    crc.reset();
+                    long length = writePosition(bw, entry.getValue(), crc);
+                    index.add(entry.getValue().getAsset().getSymbol(), offset, length, crc.getValue());
+                    offset += length;
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            index.write(file);
+
+        } catch (IOException e) {
+            throw new DataIntegrityException("I/O error during save", e);
+        }
+    }
+
+    // metody zapisu zwracają liczbę zapisanych bajtów (UTF-8, z separatorem linii) i dopisują je do CRC - na potrzeby indeksu
+    private static long writeHeader(BufferedWriter bw, Portfolio portfolio, CRC32 crc) throws IOException {
+        return writeLine(bw, crc, LineType.HEADER.name() + "|" + HeaderField.CASH.name() + "|" + FixedPoint.format(portfolio.getCashUnits()));
+    }
+
+    private static long writePosition(BufferedWriter bw, Position pos, CRC32 crc) throws IOException {
+        Asset a = pos.getAsset();
 
-            for (Map.Entry<String, Position> entry : portfolio.getPositions().entrySet()) {
-                Position pos = entry.getValue();
-                Asset a = pos.getAsset();
+        long bytes = writeLine(bw, crc, LineType.ASSET.name() + "|" + a.getType() + "|" + a.getSymbol() + "|" + FixedPoint.format(pos.getTotalQuantityUnits())
+                + "|" + a.getName() + "|" + FixedPoint.format(pos.getMarkPriceUnits()));
 
-                double declaredQty = 0.0;
-                Deque<PurchaseLot> lots = pos.getLots();
-                for (PurchaseLot lot : lots) {
-                    declaredQty += lot.getQuantity();
+        // partie czytane prosto z kolumn, bez budowania obiektów PurchaseLot
+        LotStore lots = pos.lotStore();
+        for (int i = 0; i < lots.slotCount(); i++) {
+            if (lots.quantityAt(i) == 0) continue; // tombstone
+            bytes += writeLine(bw, crc, LineType.LOT.name() + "|" + LocalDate.ofEpochDay(lots.dayAt(i)) + "|" + FixedPoint.format(lots.quantityAt(i))
+                    + "|" + FixedPoint.format(lots.priceAt(i)));
+        }
+        return bytes;
+    }
+
+    private static long writeLine(BufferedWriter bw, CRC32 crc, String line) throws IOException {
+        bw.write(line);
+        bw.newLine();
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        crc.update(bytes);
+        crc.update(NEWLINE);
+        return bytes.length + NEWLINE.length;
+    }
+
+    // Zapis przyrostowy do katalogu: HEADER w pliku header.txt, każda pozycja w osobnym segmencie
+    // positions/<symbol zapisany szesnastkowo>.txt (ASSET + LOT jak w formacie tekstowym).
+    // Do katalogu, z którym portfel jest zgodny (ostatni zapis lub odczyt), trafiają tylko zmienione symbole
+    // (segment nadpisany albo usunięty); inny katalog dostaje pełny zapis z usunięciem obcych segmentów.
+    // Zgodność sprawdzana też na dysku: każdy zapis nadaje katalogowi nową generację (druga linia header.txt),
+    // więc po zapisie innego portfela albo procesu do tego samego katalogu kolejny zapis jest pełny.
+    // Każdy plik podmieniany atomowo przez plik tymczasowy, ale cały zapis nie jest: na czas zmian leży
+    // w katalogu znacznik "saving", usuwany po zapisaniu nagłówka. Katalog ze znacznikiem (awaria w trakcie)
+    // nie daje się wczytać, a następny zapis do niego jest pełny.
+    public void saveIncremental(Portfolio portfolio, Path dir) {
+        if (portfolio == null) throw new IllegalArgumentException("Portfolio cannot be null");
+        if (dir == null) throw new IllegalArgumentException("Directory cannot be null");
+
+        Path target = dir.toAbsolutePath().normalize();
+        Path segments = target.resolve(SEGMENTS_DIR);
+        Path marker = target.resolve(SAVING_MARKER);
+        String generation = UUID.randomUUID().toString();
+        try {
+            Files.createDirectories(segments);
+            boolean incremental = target.equals(portfolio.checkpoint) && !Files.exists(marker)
+                    && portfolio.checkpointGeneration != null
+                    && portfolio.checkpointGeneration.equals(readGeneration(target.resolve(HEADER_FILE)));
+            Files.write(marker, new byte[0]);
+
+            if (incremental) {
+                for (String symbol : portfolio.getDirtySymbols()) {
+                    Position pos = portfolio.getPosition(symbol);
+                    if (pos == null) {
+                        Files.deleteIfExists(segments.resolve(segmentName(symbol)));
+                    } else {
+                        writeSegment(segments, pos);
+                    }
+                }
+            } else {
+                Set<String> live = new HashSet<>();
+                for (Position pos : portfolio.getPositions().values()) {
+                    live.add(writeSegment(segments, pos));
+                }
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(segments, "*" + SEGMENT_SUFFIX)) {
+                    for (Path file : files) {
+                        if (!live.contains(file.getFileName().toString())) Files.delete(file);
+                    }
                 }
+            }
+
+            replace(target.resolve(HEADER_FILE), bw -> {
+                CRC32 crc = new CRC32();
+                writeHeader(bw, portfolio, crc);
+                writeLine(bw, crc, LineType.HEADER.name() + "|" + HeaderField.GENERATION.name() + "|" + generation);
+            });
+            Files.delete(marker);
+        } catch (IOException e) {
+            throw new DataIntegrityException("I/O error during save", e);
+        }
+        portfolio.markClean(target, generation);
+    }
+
+    public Portfolio loadIncremental(Path dir) {
+        if (dir == null) throw new IllegalArgumentException("Directory cannot be null");
 
-                bw.write(LineType.ASSET.name() + "|" + a.getType() + "|" + a.getSymbol() + "|" + declaredQty + "|" + a.getName() + "|" + a.getMarketPrice());
-                bw.newLine();
+        Path target = dir.toAbsolutePath().normalize();
+        if (Files.exists(target.resolve(SAVING_MARKER))) {
+            throw new DataIntegrityException("Incomplete incremental save in: " + target);
+        }
+
+        Portfolio portfolio;
+        String generation;
+        try (BufferedReader br = Files.newBufferedReader(target.resolve(HEADER_FILE))) {
+            String line = br.readLine();
+            if (line == null) throw new DataIntegrityException("Empty file");
+            portfolio = parseHeader(line);
+            generation = parseGeneration(br.readLine());
+        } catch (IOException e) {
+            throw new DataIntegrityException("I/O error during load", e);
+        }
+
+        Path segments = target.resolve(SEGMENTS_DIR);
+        if (Files.isDirectory(segments)) {
+            // kolejność nazw plików - wynik i pierwszy zgłoszony błąd nie zależą od systemu plików
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(segments, "*" + SEGMENT_SUFFIX)) {
+                stream.forEach(files::add);
+            } catch (IOException e) {
+                throw new DataIntegrityException("I/O error during load", e);
+            }
+            files.sort(null);
 
-                for (PurchaseLot lot : lots) {
-                    bw.write(LineType.LOT.name() + "|" + lot.getPurchaseDate() + "|" + lot.getQuantity() + "|" + lot.getUnitPrice());
-                    bw.newLine();
+            for (Path file : files) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    MappedTextLoader.loadSegment(channel, portfolio);
+                } catch (IOException e) {
+                    throw new DataIntegrityException("I/O error during load", e);
                 }
             }
+        }
+
+        portfolio.markClean(target, generation);
+        return portfolio;
+    }
 
+    // generacja z header.txt; null, gdy pliku albo linii brak (katalog bez zapisu przyrostowego)
+    private static String readGeneration(Path headerFile) throws IOException {
+        if (!Files.exists(headerFile)) return null;
+        try (BufferedReader br = Files.newBufferedReader(headerFile)) {
+            br.readLine();
+            return parseGeneration(br.readLine());
+        }
+    }
+
+    private static String parseGeneration(String line) {
+        if (line == null) return null;
+        String[] parts = split(line, 3);
+        if (parseEnum(LineType.class, parts[0], "header type") != LineType.HEADER
+                || parseEnum(HeaderField.class, parts[1], "header field") != HeaderField.GENERATION) {
+            throw new DataIntegrityException("Invalid header line: " + line);
+        }
+        return parts[2];
+    }
+
+    private static String writeSegment(Path segments, Position pos) throws IOException {
+        String name = segmentName(pos.getAsset().getSymbol());
+        replace(segments.resolve(name), bw -> writePosition(bw, pos, new CRC32()));
+        return name;
+    }
+
+    // szesnastkowo, bo symbol może zawierać znaki niedozwolone w nazwie pliku, a wielkość liter musi się liczyć
+    static String segmentName(String symbol) {
+        return HexFormat.of().formatHex(symbol.getBytes(StandardCharsets.UTF_8)) + SEGMENT_SUFFIX;
+    }
+
+    private interface Writing {
+        void writeTo(BufferedWriter bw) throws IOException;
+    }
+
+    private static Path temporary(Path file) {
+        return file.resolveSibling(file.getFileName() + ".tmp");
+    }
+
+    private static void replace(Path file, Writing writing) throws IOException {
+        Path tmp = temporary(file);
+        try (BufferedWriter bw = Files.newBufferedWriter(tmp)) {
+            writing.writeTo(bw);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // zrzut binarny (BinarySnapshot) - load rozpoznaje go po magicznej liczbie
+    public void saveBinary(Portfolio portfolio, Path file) {
+        if (portfolio == null) throw new IllegalArgumentException("Portfolio cannot be null");
+        if (file == null) throw new IllegalArgumentException("File cannot be null");
+
+        Path tmp = temporary(file);
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                BinarySnapshot.write(portfolio, channel);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
         } catch (IOException e) {
             throw new DataIntegrityException("I/O error during save", e);
         }
@@ -49,25 +256,88 @@ public class PortfolioPersistence {
     public Portfolio load(Path file) {
         if (file == null) throw new IllegalArgumentException("File cannot be null");
 
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (BinarySnapshot.isSnapshot(channel)) {
+                return BinarySnapshot.read(channel);
+            }
+        } catch (IOException e) {
+            throw new DataIntegrityException("I/O error during load", e);
+        }
+        return loadText(file);
+    }
+
+    // ten sam format tekstowy, parsowany z pliku zmapowanego w pamięć (MappedTextLoader)
+    public Portfolio loadMapped(Path file) {
+        if (file == null) throw new IllegalArgumentException("File cannot be null");
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new MappedTextLoader(channel, MappedTextLoader.DEFAULT_WINDOW_BYTES).load();
+        } catch (IOException e) {
+            throw new DataIntegrityException("I/O error during load", e);
+        }
+    }
+
+    public Portfolio loadParallel(Path file) {
+        return loadParallel(file, ForkJoinPool.commonPool());
+    }
+
+    // bloki ASSET parsowane równolegle na puli, wynik i błędy jak przy load()
+    public Portfolio loadParallel(Path file, ForkJoinPool pool) {
+        if (file == null) throw new IllegalArgumentException("File cannot be null");
+        if (pool == null) throw new IllegalArgumentException("Pool cannot be null");
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return MappedTextLoader.loadParallel(channel, pool);
+        } catch (IOException e) {
+            throw new DataIntegrityException("I/O error during load", e);
+        }
+    }
+
+    // Gotówka od razu, pozycje z pliku przy pierwszym dostępie - według indeksu zapisanego przez save().
+    // Bez aktualnego indeksu (brak, plik zmieniony, format binarny) zwykły load().
+    public Portfolio loadLazy(Path file) {
+        if (file == null) throw new IllegalArgumentException("File cannot be null");
+
+        OffsetIndex index;
+        Portfolio portfolio;
+        try {
+            index = OffsetIndex.read(file);
+            if (index == null) return load(file);
+
+            try (BufferedReader br = Files.newBufferedReader(file)) {
+                String line = br.readLine();
+                if (line == null) throw new DataIntegrityException("Empty file");
+                portfolio = parseHeader(line);
+            }
+        } catch (IOException e) {
+            throw new DataIntegrityException("I/O error during load", e);
+        }
+
+        portfolio.loadLazily(index.symbols(), symbol -> {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                // plik mógł zostać nadpisany po loadLazy - przesunięcia z indeksu byłyby nieaktualne
+                if (!index.describes(file)) throw new DataIntegrityException("Data file changed after lazy load: " + file);
+                return MappedTextLoader.loadPosition(channel, symbol, index.blocksOf(symbol));
+            } catch (IOException e) {
+                throw new DataIntegrityException("I/O error during load", e);
+            }
+        });
+        return portfolio;
+    }
+
+    private Portfolio loadText(Path file) {
         try (BufferedReader br = Files.newBufferedReader(file)) {
 
             String line = br.readLine();
             if (line == null) throw new DataIntegrityException("Empty file");
 
-            String[] header = split(line, 3);
-            LineType headerType = parseEnum(LineType.class, header[0], "header type");
-            HeaderField headerField = parseEnum(HeaderField.class, header[1], "header field");
-            if (headerType != LineType.HEADER || headerField != HeaderField.CASH) {
-                throw new DataIntegrityException("Invalid header line: " + line);
-            }
-
-            double cash = parseDouble(header[2], "cash");
-            Portfolio portfolio = new Portfolio(cash);
+            Portfolio portfolio = parseHeader(line);
 
             Asset currentAsset = null;
             String currentSymbol = null;
-            double lotsQtySum = 0.0;
-            Double expectedQty = null;
+            // sumy w FixedPoint - porównanie jest dokładne, bez szumu zaokrągleń double
+            long lotsQtySum = 0;
+            Long expectedQty = null;
 
             while ((line = br.readLine()) != null) {
                 if (line.trim().isEmpty()) continue;
@@ -77,24 +347,12 @@ public class PortfolioPersistence {
                 LineType type = parseEnum(LineType.class, parts[0], "line type");
                 switch (type) {
                     case ASSET -> {
-                        if (currentAsset != null && expectedQty != null) {
-                            if (Double.compare(lotsQtySum, expectedQty) != 0) {
-                                throw new DataIntegrityException(
-                                        "Lots quantity sum mismatch for " + currentSymbol + ": expected=" + expectedQty + ", actual=" + lotsQtySum
-                                );
-                            }
-                        }
-
-                        expectedQty = null;
-                        if (parts.length == 6) {
-                            expectedQty = parseDouble(parts[3], "declared quantity");
-                        } else if (parts.length != 5) {
-                            throw new DataIntegrityException("Invalid ASSET line length");
-                        }
+                        checkLotsSum(currentSymbol, expectedQty, lotsQtySum);
 
+                        expectedQty = declaredQuantity(parts);
                         currentAsset = parseAsset(parts);
                         currentSymbol = currentAsset.getSymbol();
-                        lotsQtySum = 0.0;
+                        lotsQtySum = 0;
 
                         if (portfolio.getPosition(currentSymbol) == null) {
                             portfolio.getPositions().put(currentSymbol, new Position(currentAsset));
@@ -105,28 +363,22 @@ public class PortfolioPersistence {
                         if (parts.length != 4) throw new DataIntegrityException("Invalid LOT line length: " + line);
 
                         LocalDate date = parseDate(parts[1], "lot date");
-                        double qty = parseDouble(parts[2], "lot quantity");
-                        double unitPrice = parseDouble(parts[3], "lot unit price");
+                        long qty = parseUnits(parts[2], "lot quantity");
+                        long unitPrice = parseUnits(parts[3], "lot unit price");
 
-                        if (qty <= 0) throw new DataIntegrityException("Invalid lot quantity: " + qty);
+                        if (qty <= 0) throw new DataIntegrityException("Invalid lot quantity: " + FixedPoint.format(qty));
 
                         Position pos = portfolio.getPosition(currentSymbol);
                         if (pos == null) throw new DataIntegrityException("Missing position for symbol: " + currentSymbol);
 
-                        pos.addLot(new PurchaseLot(date, unitPrice, qty));
+                        pos.addLotUnits(date, unitPrice, qty);
                         lotsQtySum += qty;
                     }
                     case HEADER -> throw new DataIntegrityException("Unexpected HEADER line: " + line);
                 }
             }
 
-            if (currentAsset != null && expectedQty != null) {
-                if (Double.compare(lotsQtySum, expectedQty) != 0) {
-                    throw new DataIntegrityException(
-                            "Lots quantity sum mismatch for " + currentSymbol + ": expected=" + expectedQty + ", actual=" + lotsQtySum
-                    );
-                }
-            }
+            checkLotsSum(currentSymbol, expectedQty, lotsQtySum);
 
             return portfolio;
 
@@ -135,7 +387,39 @@ public class PortfolioPersistence {
         }
     }
 
-    private <E extends Enum<E>> E parseEnum(Class<E> type, String token, String field) {
+    // wspólne z MappedTextLoader, żeby oba parsery zgłaszały te same błędy
+
+    static Portfolio parseHeader(String line) {
+        String[] header = split(line, 3);
+        LineType headerType = parseEnum(LineType.class, header[0], "header type");
+        HeaderField headerField = parseEnum(HeaderField.class, header[1], "header field");
+        if (headerType != LineType.HEADER || headerField != HeaderField.CASH) {
+            throw new DataIntegrityException("Invalid header line: " + line);
+        }
+
+        long cash = parseUnits(header[2], "cash");
+        return Portfolio.ofCashUnits(cash);
+    }
+
+    static Long declaredQuantity(String[] parts) {
+        if (parts.length == 6) {
+            return parseUnits(parts[3], "declared quantity");
+        } else if (parts.length != 5) {
+            throw new DataIntegrityException("Invalid ASSET line length");
+        }
+        return null;
+    }
+
+    static void checkLotsSum(String symbol, Long expectedQty, long lotsQtySum) {
+        if (expectedQty != null && expectedQty != lotsQtySum) {
+            throw new DataIntegrityException(
+                    "Lots quantity sum mismatch for " + symbol + ": expected=" + FixedPoint.format(expectedQty)
+                            + ", actual=" + FixedPoint.format(lotsQtySum)
+            );
+        }
+    }
+
+    static <E extends Enum<E>> E parseEnum(Class<E> type, String token, String field) {
         try {
             return Enum.valueOf(type, token);
         } catch (IllegalArgumentException ex) {
@@ -143,7 +427,7 @@ public class PortfolioPersistence {
         }
     }
 
-    private Asset parseAsset(String[] parts) {
+    static Asset parseAsset(String[] parts) {
         if (parts.length != 5 && parts.length != 6) {
             throw new DataIntegrityException("Invalid ASSET line length");
         }
@@ -175,15 +459,15 @@ public class PortfolioPersistence {
         };
     }
 
-    private String[] split(String line, int expected) {
+    static String[] split(String line, int expected) {
         String[] parts = line.split("\\|");
-        if (expected > 0 && parts.length != expected) {
+        if (parts.length == 0 || expected > 0 && parts.length != expected) {
             throw new DataIntegrityException("Invalid line format: " + line);
         }
         return parts;
     }
 
-    private double parseDouble(String s, String field) {
+    static double parseDouble(String s, String field) {
         try {
             return Double.parseDouble(s);
         } catch (NumberFormatException ex) {
@@ -191,7 +475,15 @@ public class PortfolioPersistence {
         }
     }
 
-    private LocalDate parseDate(String s, String field) {
+    static long parseUnits(String s, String field) {
+        try {
+            return FixedPoint.parse(s);
+        } catch (NumberFormatException | ArithmeticException ex) {
+            throw new DataIntegrityException("Invalid number for " + field + ": " + s);
+        }
+    }
+
+    static LocalDate parseDate(String s, String field) {
         try {
             return LocalDate.parse(s);
         } catch (Exception ex) {
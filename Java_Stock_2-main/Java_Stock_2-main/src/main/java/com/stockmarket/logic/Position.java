@@ -1,87 +1,395 @@
 package com.stockmarket.logic;
 
 import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.FixedPoint;
 import com.stockmarket.domain.PurchaseLot;
 import com.stockmarket.exceptions.InsufficientAssetQuantityException;
 
-import java.util.ArrayDeque;
+import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.Deque;
 
 public class Position {
 
     private final Asset asset;
-    private final Deque<PurchaseLot> lots; // FIFO: najstarszy na początku
+    private final LotStore lots; // FIFO: najstarszy na początku
+
+    // sumy utrzymywane przy dodawaniu i zużywaniu partii, żeby zapytania nie przechodziły po wszystkich lotach
+    // koszt = suma FixedPoint.multiply(ilość, cena) po partiach, więc nie dryfuje przy częściowych sprzedażach
+    private long totalQuantityUnits;
+    private long totalCostUnits;
+
+    // bieżąca cena wyceny (startowo cena z Asset) i zapamiętana wartość rynkowa w FixedPoint
+    private long markPriceUnits;
+    private long marketValueUnits;
+
+    // portfel, któremu zgłaszamy zmiany wartości, i miejsce na liście subskrybentów w PriceBook
+    Portfolio owner;
+    int quoteSlot = -1;
+    // miejsce konta na liście posiadaczy symbolu w AccountRegistry
+    int holderSlot = -1;
+    // licznik zmian (partie, sprzedaże, cena) i znacznik "zgłoszona portfelowi od ostatniego zapisu"
+    private long version;
+    boolean dirty;
+
+    // indeksy cenowe dla HIFO/LOFO, budowane przy pierwszym użyciu
+    private LotHeap highestFirst;
+    private LotHeap lowestFirst;
+    private LotView lotView;
 
     public Position(Asset asset) {
         if (asset == null) throw new IllegalArgumentException("Asset cannot be null");
         this.asset = asset;
-        this.lots = new ArrayDeque<>();
+        this.lots = new LotStore();
+        this.markPriceUnits = asset.getMarketPriceUnits();
     }
 
     public Asset getAsset() {
         return asset;
     }
 
-    public void addLot(PurchaseLot lot) {
+    // zwraca id partii (do sprzedaży wskazanej partii); partia o zerowej ilości nie jest zapisywana i dostaje -1
+    public long addLot(PurchaseLot lot) {
         if (lot == null) throw new IllegalArgumentException("Lot cannot be null");
-        lots.addLast(lot);
+        return appendLot(lot.getPurchaseDate(), lot.getUnitPriceUnits(), lot.getQuantityUnits());
     }
 
-    public double getTotalQuantity() {
-        double sum = 0.0;
-        for (PurchaseLot lot : lots) {
-            sum += lot.getQuantity();
+    // bez pośredniego obiektu PurchaseLot
+    public long addLotUnits(LocalDate purchaseDate, long unitPriceUnits, long quantityUnits) {
+        if (purchaseDate == null) throw new IllegalArgumentException("Purchase date cannot be null");
+        if (unitPriceUnits < 0) throw new IllegalArgumentException("Unit price cannot be negative");
+        if (quantityUnits < 0) throw new IllegalArgumentException("Quantity cannot be negative");
+        return appendLot(purchaseDate, unitPriceUnits, quantityUnits);
+    }
+
+    private long appendLot(LocalDate purchaseDate, long unitPriceUnits, long quantityUnits) {
+        if (quantityUnits == 0) return -1;
+        long id = lots.add(Math.toIntExact(purchaseDate.toEpochDay()), unitPriceUnits, quantityUnits);
+        if (highestFirst != null) highestFirst.push(-unitPriceUnits, id);
+        if (lowestFirst != null) lowestFirst.push(unitPriceUnits, id);
+
+        totalQuantityUnits = FixedPoint.add(totalQuantityUnits, quantityUnits);
+        totalCostUnits = FixedPoint.add(totalCostUnits, lotCost(quantityUnits, unitPriceUnits));
+        quantityChanged(quantityUnits);
+        revalue();
+        return id;
+    }
+
+    public int getLotCount() {
+        return lots.size();
+    }
+
+    // id żywych partii w kolejności zakupu
+    public long[] getLotIds() {
+        long[] ids = new long[lots.size()];
+        int n = 0;
+        for (int i = 0; i < lots.slotCount(); i++) {
+            if (lots.quantityAt(i) > 0) ids[n++] = lots.idAt(i);
         }
-        return sum;
+        return ids;
+    }
+
+    public double getLotQuantity(long lotId) {
+        return FixedPoint.toDouble(lots.quantityOf(lotId));
+    }
+
+    public double getLotUnitPrice(long lotId) {
+        return FixedPoint.toDouble(lots.priceOf(lotId));
+    }
+
+    public LocalDate getLotPurchaseDate(long lotId) {
+        return LocalDate.ofEpochDay(lots.dayOf(lotId));
+    }
+
+    public double getTotalQuantity() {
+        return FixedPoint.toDouble(getTotalQuantityUnits());
+    }
+
+    public long getTotalQuantityUnits() {
+        return totalQuantityUnits;
+    }
+
+    public double getTotalCost() {
+        return FixedPoint.toDouble(totalCostUnits);
+    }
+
+    public long getTotalCostUnits() {
+        return totalCostUnits;
+    }
+
+    public double getAverageCost() {
+        return FixedPoint.toDouble(getAverageCostUnits());
+    }
+
+    public long getAverageCostUnits() {
+        if (totalQuantityUnits == 0) return 0;
+        return FixedPoint.divide(totalCostUnits, totalQuantityUnits);
     }
 
     public double getMarketValue() {
-        return asset.calculateRealValue(getTotalQuantity());
+        return FixedPoint.toDouble(marketValueUnits);
+    }
+
+    public long getMarketValueUnits() {
+        return marketValueUnits;
+    }
+
+    public double getMarkPrice() {
+        return FixedPoint.toDouble(markPriceUnits);
+    }
+
+    public long getMarkPriceUnits() {
+        return markPriceUnits;
+    }
+
+    public void setMarkPrice(double price) {
+        if (price < 0) throw new IllegalArgumentException("Mark price cannot be negative");
+        setMarkPriceUnits(FixedPoint.of(price));
+    }
+
+    public void setMarkPriceUnits(long priceUnits) {
+        if (priceUnits < 0) throw new IllegalArgumentException("Mark price cannot be negative");
+        if (priceUnits == markPriceUnits) return;
+        markPriceUnits = priceUnits;
+        revalue();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // zmiana ilości zgłaszana portfelowi (dla RiskGate), raz na zakup albo sprzedaż
+    private void quantityChanged(long delta) {
+        if (owner != null) owner.onPositionQuantityChanged(asset.getSymbol(), delta);
+    }
+
+    // przeliczenie jednej pozycji; do portfela idzie tylko różnica
+    // każda zmiana pozycji przechodzi tędy, więc tu jest też śledzenie zmian dla zapisu przyrostowego
+    private void revalue() {
+        version++;
+        if (!dirty && owner != null) {
+            dirty = true;
+            owner.onPositionChanged(this);
+        }
+
+        long value = valueAt(totalQuantityUnits, markPriceUnits);
+        long delta = value - marketValueUnits;
+        marketValueUnits = value;
+        if (delta != 0 && owner != null) {
+            owner.onPositionValueChanged(delta);
+        }
+    }
+
+    // wartość, jaką pozycja miałaby przy podanej ilości i cenie - ta sama formuła co przy przeliczeniu
+    long valueAt(long quantityUnits, long priceUnits) {
+        return asset.calculateRealValueUnits(quantityUnits, priceUnits);
     }
 
     public SaleResult sellFifo(double quantityToSell, double sellUnitPrice) {
+        return sell(CostBasisMethod.FIFO, quantityToSell, sellUnitPrice);
+    }
+
+    public SaleResult sellFifoUnits(long quantityToSell, long sellUnitPrice) {
+        return sellUnits(CostBasisMethod.FIFO, quantityToSell, sellUnitPrice);
+    }
+
+    public SaleResult sell(CostBasisMethod method, double quantityToSell, double sellUnitPrice) {
         if (quantityToSell <= 0) throw new IllegalArgumentException("Quantity must be positive");
         if (sellUnitPrice < 0) throw new IllegalArgumentException("Sell price cannot be negative");
 
-        double available = getTotalQuantity();
-        if (quantityToSell > available) {
-            throw new InsufficientAssetQuantityException(
-                    "Not enough quantity to sell. Requested=" + quantityToSell + ", available=" + available
-            );
+        return sellUnits(method, FixedPoint.of(quantityToSell), FixedPoint.of(sellUnitPrice));
+    }
+
+    public SaleResult sellUnits(CostBasisMethod method, long quantityToSell, long sellUnitPrice) {
+        SaleBuilder sale = new SaleBuilder(lots.size());
+        sellUnits(method, quantityToSell, sellUnitPrice, sale);
+        return sale.build(quantityToSell);
+    }
+
+    // Szczegóły trafiają do odbiorcy, wynik to zysk łącznie; bez alokacji na ścieżce sprzedaży.
+    // Koszt O(k log n) dla k zużytych partii: FIFO/LIFO z końców bufora, HIFO/LOFO z kopca.
+    public long sellUnits(CostBasisMethod method, long quantityToSell, long sellUnitPrice, SaleSink sink) {
+        if (sink == null) throw new IllegalArgumentException("Sink cannot be null");
+        try {
+            return sellLots(method, quantityToSell, sellUnitPrice, sink);
+        } finally {
+            sink.onSaleEnd();
         }
+    }
 
-        // maksimum: jedna linia raportu na jedną partię (lot), bo sprzedajemy FIFO bez przeplatania
-        SaleLine[] lines = new SaleLine[lots.size()];
-        int linesCount = 0;
+    private long sellLots(CostBasisMethod method, long quantityToSell, long sellUnitPrice, SaleSink sink) {
+        if (method == null) throw new IllegalArgumentException("Method cannot be null");
+        validateSale(quantityToSell, sellUnitPrice, totalQuantityUnits);
 
-        double remaining = quantityToSell;
-        double totalProfit = 0.0;
+        LotHeap heap = switch (method) {
+            case HIFO -> highestFirst = prepareHeap(highestFirst, true);
+            case LOFO -> lowestFirst = prepareHeap(lowestFirst, false);
+            default -> null;
+        };
 
+        long profit = 0;
+        long remaining = quantityToSell;
         while (remaining > 0) {
-            PurchaseLot lot = lots.peekFirst(); // najstarszy
+            long id = switch (method) {
+                case FIFO -> lots.firstId();
+                case LIFO -> lots.lastId();
+                case HIFO, LOFO -> nextFromHeap(heap);
+            };
+            long fromLot = Math.min(remaining, lots.quantityOf(id));
+            profit = FixedPoint.add(profit, consume(sink, id, fromLot, sellUnitPrice));
+            remaining -= fromLot;
+        }
+        quantityChanged(-quantityToSell);
+        revalue();
+        return profit;
+    }
 
-            double fromLot = Math.min(remaining, lot.getQuantity());
+    public SaleResult sellSpecific(long[] lotIds, double quantityToSell, double sellUnitPrice) {
+        if (quantityToSell <= 0) throw new IllegalArgumentException("Quantity must be positive");
+        if (sellUnitPrice < 0) throw new IllegalArgumentException("Sell price cannot be negative");
 
-            // raport
-            SaleLine line = new SaleLine(lot.getPurchaseDate(), fromLot, lot.getUnitPrice(), sellUnitPrice);
-            lines[linesCount++] = line;
-            totalProfit += line.getProfit();
+        return sellSpecificUnits(lotIds, FixedPoint.of(quantityToSell), FixedPoint.of(sellUnitPrice));
+    }
+
+    public SaleResult sellSpecificUnits(long[] lotIds, long quantityToSell, long sellUnitPrice) {
+        SaleBuilder sale = new SaleBuilder(lotIds == null ? 0 : lotIds.length);
+        sellSpecificUnits(lotIds, quantityToSell, sellUnitPrice, sale);
+        return sale.build(quantityToSell);
+    }
 
-            // zużycie partii
-            lot.reduceQuantity(fromLot);
+    // identyfikacja wskazana: partie zużywane w podanej kolejności, aż do sprzedanej ilości
+    public long sellSpecificUnits(long[] lotIds, long quantityToSell, long sellUnitPrice, SaleSink sink) {
+        if (sink == null) throw new IllegalArgumentException("Sink cannot be null");
+        try {
+            return sellSpecificLots(lotIds, quantityToSell, sellUnitPrice, sink);
+        } finally {
+            sink.onSaleEnd();
+        }
+    }
+
+    private long sellSpecificLots(long[] lotIds, long quantityToSell, long sellUnitPrice, SaleSink sink) {
+        if (lotIds == null || lotIds.length == 0) throw new IllegalArgumentException("Lot ids cannot be empty");
+
+        long available = 0;
+        for (int i = 0; i < lotIds.length; i++) {
+            if (!lots.isLive(lotIds[i])) throw new IllegalArgumentException("Unknown lot: " + lotIds[i]);
+            available += lots.quantityOf(lotIds[i]);
+        }
+        checkDistinct(lotIds);
+        validateSale(quantityToSell, sellUnitPrice, available);
+
+        long profit = 0;
+        long remaining = quantityToSell;
+        for (int i = 0; remaining > 0; i++) {
+            long fromLot = Math.min(remaining, lots.quantityOf(lotIds[i]));
+            profit = FixedPoint.add(profit, consume(sink, lotIds[i], fromLot, sellUnitPrice));
             remaining -= fromLot;
+        }
+        quantityChanged(-quantityToSell);
+        revalue();
+        return profit;
+    }
 
-            // jeśli partia pusta, zdejmujemy ją z kolejki
-            if (lot.getQuantity() <= 0.0) {
-                lots.removeFirst();
+    // krótkie listy bez alokacji, dłuższe przez posortowaną kopię
+    private static void checkDistinct(long[] ids) {
+        if (ids.length <= 16) {
+            for (int i = 1; i < ids.length; i++) {
+                for (int j = 0; j < i; j++) {
+                    if (ids[i] == ids[j]) throw new IllegalArgumentException("Duplicate lot: " + ids[i]);
+                }
             }
+            return;
+        }
+        long[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] == sorted[i - 1]) throw new IllegalArgumentException("Duplicate lot: " + sorted[i]);
         }
+    }
 
-        return new SaleResult(asset.getSymbol(), quantityToSell, lines, linesCount, totalProfit);
+    private static void validateSale(long quantityToSell, long sellUnitPrice, long available) {
+        if (quantityToSell <= 0) throw new IllegalArgumentException("Quantity must be positive");
+        if (sellUnitPrice < 0) throw new IllegalArgumentException("Sell price cannot be negative");
+        if (quantityToSell > available) {
+            throw new InsufficientAssetQuantityException(
+                    "Not enough quantity to sell. Requested=" + FixedPoint.format(quantityToSell)
+                            + ", available=" + FixedPoint.format(available)
+            );
+        }
     }
 
-    // Potrzebne do persystencji
-    public Deque<PurchaseLot> getLots() {
+    // zużycie jednej partii - pusta znika z bufora (porównanie dokładne, bez reszt z double); zwraca zysk
+    private long consume(SaleSink sink, long id, long fromLot, long sellUnitPrice) {
+        long lotQuantity = lots.quantityOf(id);
+        long lotPrice = lots.priceOf(id);
+        long profit = FixedPoint.multiply(fromLot, sellUnitPrice - lotPrice);
+
+        sink.onLot(id, lots.dayOf(id), fromLot, lotPrice, sellUnitPrice, profit);
+
+        lots.reduce(id, fromLot);
+        totalQuantityUnits -= fromLot;
+        totalCostUnits -= lotCost(lotQuantity, lotPrice) - lotCost(lotQuantity - fromLot, lotPrice);
+        return profit;
+    }
+
+    // kopiec budowany przy pierwszym użyciu; przebudowa, gdy martwe wpisy przeważają nad żywymi partiami
+    private LotHeap prepareHeap(LotHeap heap, boolean highestFirst) {
+        if (heap != null && heap.size() <= 2 * lots.size() + 16) return heap;
+
+        if (heap == null) heap = new LotHeap(lots.size());
+        heap.clear();
+        for (int i = 0; i < lots.slotCount(); i++) {
+            if (lots.quantityAt(i) > 0) {
+                long price = lots.priceAt(i);
+                heap.append(highestFirst ? -price : price, lots.idAt(i));
+            }
+        }
+        heap.heapify();
+        return heap;
+    }
+
+    private long nextFromHeap(LotHeap heap) {
+        while (!lots.isLive(heap.peekId())) {
+            heap.pop();
+        }
+        return heap.peekId();
+    }
+
+    // ścieżka wygodna: odbiorca składający obiekty SaleLine i SaleResult
+    private final class SaleBuilder implements SaleSink {
+        // jedna linia raportu na partię; tablica rośnie w miarę potrzeby zamiast mieć rozmiar całej kolejki
+        private SaleLine[] lines;
+        private int count;
+        private long totalProfit;
+
+        SaleBuilder(int maxLines) {
+            lines = new SaleLine[Math.max(1, Math.min(maxLines, 8))];
+        }
+
+        @Override
+        public void onLot(long lotId, int purchaseEpochDay, long soldQuantityUnits,
+                          long buyUnitPriceUnits, long sellUnitPriceUnits, long profitUnits) {
+            if (count == lines.length) lines = Arrays.copyOf(lines, count * 2);
+            lines[count++] = SaleLine.ofUnits(LocalDate.ofEpochDay(purchaseEpochDay), soldQuantityUnits, buyUnitPriceUnits, sellUnitPriceUnits);
+            totalProfit = FixedPoint.add(totalProfit, profitUnits);
+        }
+
+        SaleResult build(long quantitySold) {
+            return SaleResult.ofUnits(asset.getSymbol(), quantitySold, lines, count, totalProfit);
+        }
+    }
+
+    private static long lotCost(long quantityUnits, long unitPriceUnits) {
+        return FixedPoint.multiply(quantityUnits, unitPriceUnits);
+    }
+
+    LotStore lotStore() {
         return lots;
     }
+
+    // Widok partii tylko do odczytu, na żywo i bez kopiowania; zmiany rzucają UnsupportedOperationException
+    public Deque<PurchaseLot> getLots() {
+        if (lotView == null) lotView = new LotView(lots);
+        return lotView;
+    }
 }
@@ -0,0 +1,167 @@
+package com.stockmarket.logic;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+// Mapa pozycji portfela: każde wstawienie i usunięcie (także przez iterator) zgłaszane jest do portfela,
+// żeby suma wartości aktywów i subskrypcje cen zawsze zgadzały się z zawartością mapy.
+// W trybie leniwym część symboli jest tylko znana (pending): pozycja wczytywana jest przy pierwszym get/put/remove,
+// a operacje na całej mapie (iteracja, containsValue) najpierw wczytują wszystko.
+final class PositionMap extends AbstractMap<String, Position> {
+
+    private final Map<String, Position> map = new HashMap<>();
+    private final Portfolio owner;
+    private Set<Map.Entry<String, Position>> entrySet;
+    private final Set<String> pending = new HashSet<>();
+    private Function<String, Position> loader;
+
+    PositionMap(Portfolio owner) {
+        this.owner = owner;
+    }
+
+    void setLazy(Collection<String> symbols, Function<String, Position> loader) {
+        pending.addAll(symbols);
+        this.loader = pending.isEmpty() ? null : loader;
+    }
+
+    boolean isLoaded(String symbol) {
+        return map.containsKey(symbol);
+    }
+
+    void loadAll() {
+        if (loader == null) return;
+        for (String symbol : new ArrayList<>(pending)) {
+            resolve(symbol);
+        }
+    }
+
+    // wczytuje pozycję, jeśli symbol czeka; błąd wczytania zostawia symbol w pending
+    private void resolve(Object symbol) {
+        if (loader == null || !pending.contains(symbol)) return;
+
+        Position position = loader.apply((String) symbol);
+        pending.remove(symbol);
+        if (pending.isEmpty()) loader = null;
+        owner.attach(position);
+        map.put((String) symbol, position);
+    }
+
+    @Override
+    public Position put(String symbol, Position position) {
+        if (symbol == null) throw new IllegalArgumentException("Symbol cannot be null");
+        if (position == null) throw new IllegalArgumentException("Position cannot be null");
+
+        resolve(symbol);
+        Position old = map.get(symbol);
+        if (old == position) return old;
+
+        owner.attach(position);
+        map.put(symbol, position);
+        if (old != null) owner.detach(old);
+        return old;
+    }
+
+    @Override
+    public Position get(Object symbol) {
+        resolve(symbol);
+        return map.get(symbol);
+    }
+
+    @Override
+    public boolean containsKey(Object symbol) {
+        return map.containsKey(symbol) || pending.contains(symbol);
+    }
+
+    @Override
+    public boolean containsValue(Object position) {
+        loadAll();
+        return map.containsValue(position);
+    }
+
+    @Override
+    public Position remove(Object symbol) {
+        resolve(symbol);
+        Position old = map.remove(symbol);
+        if (old != null) owner.detach(old);
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        // niewczytane pozycje nie były dołączone do portfela - wystarczy o nich zapomnieć
+        pending.clear();
+        loader = null;
+        for (Position p : map.values()) {
+            owner.detach(p);
+        }
+        map.clear();
+    }
+
+    @Override
+    public int size() {
+        return map.size() + pending.size();
+    }
+
+    @Override
+    public Set<Map.Entry<String, Position>> entrySet() {
+        if (entrySet == null) entrySet = new EntrySet();
+        return entrySet;
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<String, Position>> {
+
+        @Override
+        public int size() {
+            return PositionMap.this.size();
+        }
+
+        @Override
+        public Iterator<Map.Entry<String, Position>> iterator() {
+            loadAll();
+            Iterator<Map.Entry<String, Position>> it = map.entrySet().iterator();
+            return new Iterator<>() {
+                private Map.Entry<String, Position> current;
+
+                @Override
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+
+                @Override
+                public Map.Entry<String, Position> next() {
+                    current = it.next();
+                    return new Entry(current.getKey(), current.getValue());
+                }
+
+                @Override
+                public void remove() {
+                    it.remove();
+                    owner.detach(current.getValue());
+                    current = null;
+                }
+            };
+        }
+    }
+
+    private final class Entry extends AbstractMap.SimpleEntry<String, Position> {
+        private static final long serialVersionUID = 1L;
+
+        Entry(String symbol, Position position) {
+            super(symbol, position);
+        }
+
+        @Override
+        public Position setValue(Position position) {
+            put(getKey(), position);
+            return super.setValue(position);
+        }
+    }
+}
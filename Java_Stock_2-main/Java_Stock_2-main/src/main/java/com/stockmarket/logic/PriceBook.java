@@ -0,0 +1,108 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.FixedPoint;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Wspólna księga cen: tick dla symbolu przecenia tylko pozycje tego symbolu we wszystkich podpiętych portfelach,
+// a portfele dostają wyłącznie różnicę wartości. Jak reszta silnika - jeden wątek piszący.
+public class PriceBook {
+
+    private static final long NO_PRICE = -1;
+    private static final Position[] NO_HOLDERS = new Position[0];
+
+    private static final class Quote {
+        long priceUnits = NO_PRICE;
+        Position[] holders = NO_HOLDERS;
+        int count;
+    }
+
+    private final Map<String, Quote> quotes = new HashMap<>();
+    private long tickCount;
+
+    public void update(String symbol, double price) {
+        if (price < 0) throw new IllegalArgumentException("Price cannot be negative");
+        updateUnits(symbol, FixedPoint.of(price));
+    }
+
+    public void updateUnits(String symbol, long priceUnits) {
+        if (symbol == null) throw new IllegalArgumentException("Symbol cannot be null");
+        if (priceUnits < 0) throw new IllegalArgumentException("Price cannot be negative");
+
+        Quote quote = quote(symbol);
+        tickCount++;
+        if (quote.priceUnits == priceUnits) return;
+        quote.priceUnits = priceUnits;
+
+        Position[] holders = quote.holders;
+        for (int i = 0; i < quote.count; i++) {
+            holders[i].setMarkPriceUnits(priceUnits);
+        }
+    }
+
+    public boolean hasPrice(String symbol) {
+        Quote quote = quotes.get(symbol);
+        return quote != null && quote.priceUnits != NO_PRICE;
+    }
+
+    public double getPrice(String symbol) {
+        return FixedPoint.toDouble(getPriceUnits(symbol));
+    }
+
+    public long getPriceUnits(String symbol) {
+        Quote quote = quotes.get(symbol);
+        if (quote == null || quote.priceUnits == NO_PRICE) {
+            throw new IllegalStateException("No price for symbol: " + symbol);
+        }
+        return quote.priceUnits;
+    }
+
+    public int getHolderCount(String symbol) {
+        Quote quote = quotes.get(symbol);
+        return quote == null ? 0 : quote.count;
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    // znana cena od razu przecenia nową pozycję
+    void subscribe(Position position) {
+        Quote quote = quote(position.getAsset().getSymbol());
+        if (quote.count == quote.holders.length) {
+            quote.holders = Arrays.copyOf(quote.holders, Math.max(4, quote.count * 2));
+        }
+        position.quoteSlot = quote.count;
+        quote.holders[quote.count++] = position;
+
+        if (quote.priceUnits != NO_PRICE) {
+            position.setMarkPriceUnits(quote.priceUnits);
+        }
+    }
+
+    // usunięcie w O(1): ostatni subskrybent wskakuje na zwolnione miejsce
+    void unsubscribe(Position position) {
+        Quote quote = quotes.get(position.getAsset().getSymbol());
+        int slot = position.quoteSlot;
+        if (quote == null || slot < 0 || slot >= quote.count || quote.holders[slot] != position) {
+            throw new IllegalStateException("Position is not subscribed");
+        }
+
+        Position last = quote.holders[--quote.count];
+        quote.holders[slot] = last;
+        last.quoteSlot = slot;
+        quote.holders[quote.count] = null;
+        position.quoteSlot = -1;
+    }
+
+    private Quote quote(String symbol) {
+        Quote quote = quotes.get(symbol);
+        if (quote == null) {
+            quote = new Quote();
+            quotes.put(symbol, quote);
+        }
+        return quote;
+    }
+}
@@ -0,0 +1,56 @@
+package com.stockmarket.logic;
+
+class PriceLevel {
+    final long price; // FixedPoint
+    Order head;
+    Order tail;
+    int orderCount;
+    long totalQuantity; // FixedPoint
+
+    // stan ostatnio wysłany odbiorcom delt
+    boolean dirty;
+    boolean published;
+    int publishedCount;
+    long publishedQuantity;
+
+    PriceLevel(long price) {
+        this.price = price;
+    }
+
+    boolean isEmpty() {
+        return head == null;
+    }
+
+    void append(Order order) {
+        order.level = this;
+        order.prev = tail;
+        order.next = null;
+        if (tail == null) {
+            head = order;
+        } else {
+            tail.next = order;
+        }
+        tail = order;
+        orderCount++;
+        totalQuantity += order.getRemainingQuantityUnits();
+    }
+
+    void unlink(Order order) {
+        if (order.prev == null) {
+            head = order.next;
+        } else {
+            order.prev.next = order.next;
+        }
+        if (order.next == null) {
+            tail = order.prev;
+        } else {
+            order.next.prev = order.prev;
+        }
+        orderCount--;
+        totalQuantity -= order.getRemainingQuantityUnits();
+
+        order.level = null;
+        order.prev = null;
+        order.next = null;
+    }
+}
@@ -0,0 +1,250 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.FixedPoint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+public class PriceLevelOrderBook implements BookSide {
+
+    private final OrderSide side;
+    // szybki dostęp do istniejącego poziomu po cenie
+    private final Map<Long, PriceLevel> levelsByPrice = new HashMap<>();
+    // kolejność poziomów: od najlepszej ceny (BUY malejąco, SELL rosnąco)
+    private final TreeMap<Long, PriceLevel> ladder;
+    private final Map<Long, Order> index = new HashMap<>();
+    // poziomy zmienione od ostatniego drainDeltas (także te już usunięte z drabiny)
+    private final List<PriceLevel> dirtyLevels = new ArrayList<>();
+    private boolean deltasEnabled;
+    private PriceLevel best;
+
+    public PriceLevelOrderBook(OrderSide side) {
+        if (side == null) throw new IllegalArgumentException("Side cannot be null");
+
+        this.side = side;
+        this.ladder = side == OrderSide.BUY ? new TreeMap<>(Collections.reverseOrder()) : new TreeMap<>();
+    }
+
+    @Override
+    public OrderSide getSide() {
+        return side;
+    }
+
+    @Override
+    public void add(Order order) {
+        if (order == null) throw new IllegalArgumentException("Order cannot be null");
+        if (order.getSide() != side) throw new IllegalArgumentException("Order side does not match book side");
+        if (order.level != null) throw new IllegalArgumentException("Order is already resting in a book");
+        if (order.isFilled()) throw new IllegalArgumentException("Order is already filled");
+        if (index.containsKey(order.getId())) throw new IllegalArgumentException("Duplicate order id: " + order.getId());
+
+        index.put(order.getId(), order);
+        append(order);
+    }
+
+    private void append(Order order) {
+        PriceLevel level = levelsByPrice.get(order.getLimitPriceUnits());
+        if (level == null) {
+            level = new PriceLevel(order.getLimitPriceUnits());
+            levelsByPrice.put(level.price, level);
+            ladder.put(level.price, level);
+            if (best == null || isBetter(level.price, best.price)) {
+                best = level;
+            }
+        }
+
+        level.append(order);
+        touch(level);
+    }
+
+    @Override
+    public Order peek() {
+        return best == null ? null : best.head;
+    }
+
+    @Override
+    public Order poll() {
+        if (best == null) return null;
+
+        Order head = best.head;
+        remove(head);
+        return head;
+    }
+
+    @Override
+    public Order fillHeadUnits(long quantity) {
+        if (best == null) throw new IllegalStateException("Order book is empty");
+
+        Order head = best.head;
+        head.fillUnits(quantity);
+        best.totalQuantity -= quantity;
+        touch(best);
+        if (head.isFilled()) {
+            remove(head);
+        }
+        return head;
+    }
+
+    @Override
+    public Order find(long orderId) {
+        return index.get(orderId);
+    }
+
+    @Override
+    public boolean cancel(long orderId) {
+        Order order = index.get(orderId);
+        if (order == null) return false;
+
+        remove(order);
+        return true;
+    }
+
+    @Override
+    public boolean amendUnits(long orderId, long newQuantity, long newLimitPrice) {
+        Order.validateAmendUnits(newQuantity, newLimitPrice);
+
+        Order order = index.get(orderId);
+        if (order == null) return false;
+
+        if (newLimitPrice == order.getLimitPriceUnits() && newQuantity <= order.getRemainingQuantityUnits()) {
+            // redukcja w miejscu - priorytet zostaje
+            order.level.totalQuantity -= order.getRemainingQuantityUnits() - newQuantity;
+            touch(order.level);
+            order.amend(newQuantity, newLimitPrice);
+            return true;
+        }
+
+        // zmiana ceny lub zwiększenie: koniec kolejki na (nowym) poziomie
+        unlink(order);
+        order.amend(newQuantity, newLimitPrice);
+        append(order);
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return index.size();
+    }
+
+    public int getLevelCount() {
+        return ladder.size();
+    }
+
+    public double getBestPrice() {
+        return FixedPoint.toDouble(getBestPriceUnits());
+    }
+
+    public long getBestPriceUnits() {
+        if (best == null) throw new IllegalStateException("Order book is empty");
+        return best.price;
+    }
+
+    public double getQuantityAt(double price) {
+        PriceLevel level = levelsByPrice.get(FixedPoint.of(price));
+        return level == null ? 0.0 : FixedPoint.toDouble(level.totalQuantity);
+    }
+
+    public int getOrderCountAt(double price) {
+        PriceLevel level = levelsByPrice.get(FixedPoint.of(price));
+        return level == null ? 0 : level.orderCount;
+    }
+
+    public List<DepthLevel> getDepth(int maxLevels) {
+        if (maxLevels <= 0) throw new IllegalArgumentException("Depth must be positive");
+
+        List<DepthLevel> depth = new ArrayList<>(Math.min(maxLevels, ladder.size()));
+        for (PriceLevel level : ladder.values()) {
+            if (depth.size() == maxLevels) break;
+            depth.add(new DepthLevel(FixedPoint.toDouble(level.price), FixedPoint.toDouble(level.totalQuantity), level.orderCount));
+        }
+        return depth;
+    }
+
+    // wariant bez alokacji: wypełnia tablice wywołującego i zwraca liczbę poziomów
+    public int copyDepth(double[] prices, double[] quantities, int[] orderCounts) {
+        int max = Math.min(prices.length, Math.min(quantities.length, orderCounts.length));
+        int n = 0;
+        for (PriceLevel level : ladder.values()) {
+            if (n == max) break;
+            prices[n] = FixedPoint.toDouble(level.price);
+            quantities[n] = FixedPoint.toDouble(level.totalQuantity);
+            orderCounts[n] = level.orderCount;
+            n++;
+        }
+        return n;
+    }
+
+    // od teraz księga zbiera zmiany poziomów; pierwszy drain zwraca całą księgę jako ADDED
+    public void enableDeltas() {
+        if (deltasEnabled) return;
+        deltasEnabled = true;
+        for (PriceLevel level : ladder.values()) {
+            touch(level);
+        }
+    }
+
+    // publikuje tylko poziomy, które zmieniły się od poprzedniego wywołania
+    public int drainDeltas(Consumer<DepthDelta> consumer) {
+        if (consumer == null) throw new IllegalArgumentException("Consumer cannot be null");
+        if (!deltasEnabled) throw new IllegalStateException("Depth deltas are not enabled");
+
+        int emitted = 0;
+        for (PriceLevel level : dirtyLevels) {
+            level.dirty = false;
+            DepthChange change = null;
+            if (level.isEmpty()) {
+                if (level.published) change = DepthChange.REMOVED;
+            } else if (!level.published) {
+                change = DepthChange.ADDED;
+            } else if (level.orderCount != level.publishedCount || level.totalQuantity != level.publishedQuantity) {
+                change = DepthChange.CHANGED;
+            }
+            if (change == null) continue;
+
+            level.published = !level.isEmpty();
+            level.publishedCount = level.orderCount;
+            level.publishedQuantity = level.totalQuantity;
+            consumer.accept(new DepthDelta(side, change, FixedPoint.toDouble(level.price),
+                    FixedPoint.toDouble(level.totalQuantity), level.orderCount));
+            emitted++;
+        }
+        dirtyLevels.clear();
+        return emitted;
+    }
+
+    private void touch(PriceLevel level) {
+        if (deltasEnabled && !level.dirty) {
+            level.dirty = true;
+            dirtyLevels.add(level);
+        }
+    }
+
+    private void remove(Order order) {
+        index.remove(order.getId());
+        unlink(order);
+    }
+
+    private void unlink(Order order) {
+        PriceLevel level = order.level;
+        level.unlink(order);
+        touch(level);
+
+        if (level.isEmpty()) {
+            levelsByPrice.remove(level.price);
+            ladder.remove(level.price);
+            if (level == best) {
+                Map.Entry<Long, PriceLevel> next = ladder.firstEntry();
+                best = next == null ? null : next.getValue();
+            }
+        }
+    }
+
+    private boolean isBetter(long price, long than) {
+        return side == OrderSide.BUY ? price > than : price < than;
+    }
+}
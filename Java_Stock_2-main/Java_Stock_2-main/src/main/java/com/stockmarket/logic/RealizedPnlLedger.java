@@ -0,0 +1,194 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.FixedPoint;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Księga zrealizowanego wyniku: każda linia sprzedaży dopisywana kolumnowo (same prymitywy, tylko dopisywanie),
+// a sumy per symbol i łącznie trzymane w drzewach Fenwicka po dniu sprzedaży.
+// Wynik dla symbolu w przedziale dat, miesiącu czy roku to dwie sumy prefiksowe - O(log n).
+// Jako SaleSink (po sink(symbol, data)) zapisuje sprzedaż bez tworzenia obiektów.
+public class RealizedPnlLedger implements SaleSink {
+
+    private static final int[] NO_INTS = new int[0];
+    private static final long[] NO_LONGS = new long[0];
+
+    private int[] symbolIndexes = NO_INTS;
+    private int[] saleDays = NO_INTS;
+    private int[] lotDays = NO_INTS;
+    private long[] quantities = NO_LONGS;
+    private long[] buyPrices = NO_LONGS;
+    private long[] sellPrices = NO_LONGS;
+    private long[] profits = NO_LONGS;
+    private int size;
+
+    private final Map<String, Integer> symbolIds = new HashMap<>();
+    private final List<String> symbols = new ArrayList<>();
+    private final List<DayFenwick> bySymbol = new ArrayList<>();
+    private long[] symbolTotals = NO_LONGS;
+    private final DayFenwick all = new DayFenwick();
+    private long total;
+
+    // kontekst bieżącej sprzedaży dla wywołań jako SaleSink; czyszczony po każdej sprzedaży
+    private int currentSymbol = -1;
+    private int currentSaleDay;
+
+    public void record(String symbol, LocalDate saleDate, SaleResult result) {
+        if (result == null) throw new IllegalArgumentException("Sale result cannot be null");
+        sink(symbol, saleDate);
+        for (int i = 0; i < result.getLinesCount(); i++) {
+            SaleLine line = result.getLine(i);
+            append(currentSymbol, currentSaleDay, Math.toIntExact(line.getLotDate().toEpochDay()),
+                    line.getSoldQuantityUnits(), line.getBuyUnitPriceUnits(), line.getSellUnitPriceUnits(), line.getProfitUnits());
+        }
+        onSaleEnd();
+    }
+
+    // ustawia symbol i datę dla wywołań onLot do końca następnej sprzedaży; zwraca tę samą księgę
+    public SaleSink sink(String symbol, LocalDate saleDate) {
+        if (symbol == null) throw new IllegalArgumentException("Symbol cannot be null");
+        if (saleDate == null) throw new IllegalArgumentException("Sale date cannot be null");
+        currentSymbol = symbolId(symbol);
+        currentSaleDay = Math.toIntExact(saleDate.toEpochDay());
+        return this;
+    }
+
+    @Override
+    public void onLot(long lotId, int purchaseEpochDay, long soldQuantityUnits,
+                      long buyUnitPriceUnits, long sellUnitPriceUnits, long profitUnits) {
+        if (currentSymbol < 0) throw new IllegalStateException("Call sink(symbol, saleDate) before recording");
+        append(currentSymbol, currentSaleDay, purchaseEpochDay, soldQuantityUnits, buyUnitPriceUnits, sellUnitPriceUnits, profitUnits);
+    }
+
+    @Override
+    public void onSaleEnd() {
+        currentSymbol = -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getRealizedPnl(String symbol) {
+        return FixedPoint.toDouble(getRealizedPnlUnits(symbol));
+    }
+
+    public long getRealizedPnlUnits(String symbol) {
+        Integer id = symbolIds.get(symbol);
+        return id == null ? 0 : symbolTotals[id];
+    }
+
+    public double getRealizedPnl(String symbol, LocalDate from, LocalDate to) {
+        return FixedPoint.toDouble(getRealizedPnlUnits(symbol, from, to));
+    }
+
+    // przedział dat sprzedaży włącznie z obu stron
+    public long getRealizedPnlUnits(String symbol, LocalDate from, LocalDate to) {
+        if (symbol == null) throw new IllegalArgumentException("Symbol cannot be null");
+        validateRange(from, to);
+        Integer id = symbolIds.get(symbol);
+        if (id == null) return 0;
+        return bySymbol.get(id).sum(Math.toIntExact(from.toEpochDay()), Math.toIntExact(to.toEpochDay()));
+    }
+
+    public double getRealizedPnl(String symbol, YearMonth month) {
+        if (month == null) throw new IllegalArgumentException("Month cannot be null");
+        return getRealizedPnl(symbol, month.atDay(1), month.atEndOfMonth());
+    }
+
+    public double getRealizedPnl(String symbol, Year year) {
+        if (year == null) throw new IllegalArgumentException("Year cannot be null");
+        return getRealizedPnl(symbol, year.atDay(1), year.atMonth(12).atEndOfMonth());
+    }
+
+    public double getTotalRealizedPnl() {
+        return FixedPoint.toDouble(total);
+    }
+
+    public double getTotalRealizedPnl(LocalDate from, LocalDate to) {
+        return FixedPoint.toDouble(getTotalRealizedPnlUnits(from, to));
+    }
+
+    public long getTotalRealizedPnlUnits(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        return all.sum(Math.toIntExact(from.toEpochDay()), Math.toIntExact(to.toEpochDay()));
+    }
+
+    public double getTotalRealizedPnl(YearMonth month) {
+        if (month == null) throw new IllegalArgumentException("Month cannot be null");
+        return getTotalRealizedPnl(month.atDay(1), month.atEndOfMonth());
+    }
+
+    public double getTotalRealizedPnl(Year year) {
+        if (year == null) throw new IllegalArgumentException("Year cannot be null");
+        return getTotalRealizedPnl(year.atDay(1), year.atMonth(12).atEndOfMonth());
+    }
+
+    // dostęp do pojedynczych wpisów (kolejność dopisania)
+    public String getSymbol(int index) { return symbols.get(symbolIndexes[checkIndex(index)]); }
+    public LocalDate getSaleDate(int index) { return LocalDate.ofEpochDay(saleDays[checkIndex(index)]); }
+    public LocalDate getLotDate(int index) { return LocalDate.ofEpochDay(lotDays[checkIndex(index)]); }
+    public double getSoldQuantity(int index) { return FixedPoint.toDouble(quantities[checkIndex(index)]); }
+    public double getBuyUnitPrice(int index) { return FixedPoint.toDouble(buyPrices[checkIndex(index)]); }
+    public double getSellUnitPrice(int index) { return FixedPoint.toDouble(sellPrices[checkIndex(index)]); }
+    public double getProfit(int index) { return FixedPoint.toDouble(profits[checkIndex(index)]); }
+
+    private void append(int symbol, int saleDay, int lotDay, long quantity, long buyPrice, long sellPrice, long profit) {
+        if (size == saleDays.length) grow();
+        symbolIndexes[size] = symbol;
+        saleDays[size] = saleDay;
+        lotDays[size] = lotDay;
+        quantities[size] = quantity;
+        buyPrices[size] = buyPrice;
+        sellPrices[size] = sellPrice;
+        profits[size] = profit;
+        size++;
+
+        bySymbol.get(symbol).add(saleDay, profit);
+        symbolTotals[symbol] = FixedPoint.add(symbolTotals[symbol], profit);
+        all.add(saleDay, profit);
+        total = FixedPoint.add(total, profit);
+    }
+
+    private int symbolId(String symbol) {
+        Integer id = symbolIds.get(symbol);
+        if (id != null) return id;
+
+        int newId = symbols.size();
+        symbolIds.put(symbol, newId);
+        symbols.add(symbol);
+        bySymbol.add(new DayFenwick());
+        if (newId == symbolTotals.length) {
+            symbolTotals = Arrays.copyOf(symbolTotals, Math.max(8, newId * 2));
+        }
+        return newId;
+    }
+
+    private void grow() {
+        int capacity = Math.max(64, saleDays.length * 2);
+        symbolIndexes = Arrays.copyOf(symbolIndexes, capacity);
+        saleDays = Arrays.copyOf(saleDays, capacity);
+        lotDays = Arrays.copyOf(lotDays, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        buyPrices = Arrays.copyOf(buyPrices, capacity);
+        sellPrices = Arrays.copyOf(sellPrices, capacity);
+        profits = Arrays.copyOf(profits, capacity);
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException();
+        return index;
+    }
+
+    private static void validateRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null) throw new IllegalArgumentException("Dates cannot be null");
+        if (from.isAfter(to)) throw new IllegalArgumentException("Range start cannot be after its end");
+    }
+}
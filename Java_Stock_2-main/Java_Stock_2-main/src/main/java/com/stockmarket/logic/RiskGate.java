@@ -0,0 +1,207 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.FixedPoint;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Kontrola przed transakcją: przy przyjęciu zlecenia rezerwuje gotówkę (BUY, limit * ilość)
+// albo ilość z pozycji (SELL), zwalnia przy anulowaniu i rozlicza przy realizacji.
+// Budżety to AtomicLong zmieniane przez CAS, słownik symboli to ConcurrentHashMap -
+// ścieżka przyjęcia zlecenia nie bierze blokad i nie alokuje.
+// Bramka jest podłączona do portfela: realizacje księguje w nim sama (onFill), a każda inna zmiana
+// gotówki i ilości w portfelu (buyAsset, sellAsset, applyTrades...) wraca do niej jako różnica.
+// Portfel nie jest wątkowo bezpieczny - zmiany portfela i dopasowywanie muszą iść jednym wątkiem;
+// współbieżne może być tylko przyjmowanie zleceń. Bezpośrednie operacje na portfelu nie patrzą na
+// rezerwacje, więc dostępna gotówka może zejść poniżej zera - wtedy nowe zlecenia są odrzucane.
+public class RiskGate implements FillListener {
+
+    private final Portfolio portfolio;
+    // data partii z realizacji; przy odtwarzaniu i w testach podaje się zegar stały albo odtwarzany
+    private final Clock clock;
+    private final AtomicLong availableCash;
+    private final Map<String, AtomicLong> availableQuantity = new ConcurrentHashMap<>();
+    // instrumenty, które można kupić - potrzebne do założenia pozycji przy realizacji
+    private final Map<String, Asset> assets = new ConcurrentHashMap<>();
+
+    public RiskGate(Portfolio portfolio) {
+        this(portfolio, Clock.systemDefaultZone());
+    }
+
+    public RiskGate(Portfolio portfolio, Clock clock) {
+        if (portfolio == null) throw new IllegalArgumentException("Portfolio cannot be null");
+        if (clock == null) throw new IllegalArgumentException("Clock cannot be null");
+        if (portfolio.riskGate != null) throw new IllegalArgumentException("Portfolio already has a risk gate");
+
+        this.portfolio = portfolio;
+        this.clock = clock;
+        this.availableCash = new AtomicLong(portfolio.getCashUnits());
+        // iteracja wczytuje też pozycje leniwe, więc podłączenie dopiero po niej
+        for (Map.Entry<String, Position> entry : portfolio.getPositions().entrySet()) {
+            availableQuantity.put(entry.getKey(), new AtomicLong(entry.getValue().getTotalQuantityUnits()));
+            assets.put(entry.getKey(), entry.getValue().getAsset());
+        }
+        portfolio.riskGate = this;
+    }
+
+    // zlecenia BUY są przyjmowane tylko dla znanych instrumentów (zarejestrowanych albo trzymanych w portfelu)
+    public void addAsset(Asset asset) {
+        if (asset == null) throw new IllegalArgumentException("Asset cannot be null");
+        assets.putIfAbsent(asset.getSymbol(), asset);
+    }
+
+    public double getAvailableCash() {
+        return FixedPoint.toDouble(availableCash.get());
+    }
+
+    public long getAvailableCashUnits() {
+        return availableCash.get();
+    }
+
+    public double getAvailableQuantity(String symbol) {
+        return FixedPoint.toDouble(getAvailableQuantityUnits(symbol));
+    }
+
+    public long getAvailableQuantityUnits(String symbol) {
+        if (symbol == null) throw new IllegalArgumentException("Symbol cannot be null");
+        AtomicLong quantity = availableQuantity.get(symbol);
+        return quantity == null ? 0 : quantity.get();
+    }
+
+    // false = zlecenie odrzucone, nic nie zostało zarezerwowane
+    public boolean tryReserve(Order order) {
+        if (order == null) throw new IllegalArgumentException("Order cannot be null");
+        if (order.riskGate != null) throw new IllegalArgumentException("Order already has a reservation");
+
+        // SELL bez pozycji i BUY nieznanego instrumentu odrzucane bez zakładania wpisu dla symbolu
+        if (order.getSide() == OrderSide.BUY && !assets.containsKey(order.getSymbol())) return false;
+        AtomicLong budget = order.getSide() == OrderSide.BUY ? availableCash : availableQuantity.get(order.getSymbol());
+        long amount = required(order, order.getRemainingQuantityUnits(), order.getLimitPriceUnits());
+        if (budget == null || !take(budget, amount)) return false;
+
+        order.reservedUnits = amount;
+        order.riskGate = this;
+        return true;
+    }
+
+    // zwalnia całą pozostałą rezerwację (anulowanie); false, gdy zlecenie nie było rezerwowane tutaj
+    public boolean release(Order order) {
+        if (order == null) throw new IllegalArgumentException("Order cannot be null");
+        if (order.riskGate != this) return false;
+
+        budgetFor(order).getAndAdd(order.reservedUnits);
+        order.reservedUnits = 0;
+        order.riskGate = null;
+        return true;
+    }
+
+    // przyjęcie: rezerwacja i dopiero potem wejście do silnika
+    public boolean submit(MatchingEngine engine, Order order) {
+        if (engine == null) throw new IllegalArgumentException("Engine cannot be null");
+        if (!tryReserve(order)) return false;
+
+        try {
+            engine.submit(order);
+        } catch (RuntimeException e) {
+            release(order);
+            throw e;
+        }
+        return true;
+    }
+
+    public boolean cancel(MatchingEngine engine, Order order) {
+        if (engine == null) throw new IllegalArgumentException("Engine cannot be null");
+        if (order == null) throw new IllegalArgumentException("Order cannot be null");
+
+        if (!engine.cancel(order.getSymbol(), order.getId())) return false;
+        release(order);
+        return true;
+    }
+
+    // dobiera różnicę przed zmianą (może odrzucić), nadwyżkę oddaje po zmianie
+    public boolean amend(MatchingEngine engine, Order order, double newQuantity, double newLimitPrice) {
+        if (engine == null) throw new IllegalArgumentException("Engine cannot be null");
+        if (order == null) throw new IllegalArgumentException("Order cannot be null");
+        if (order.riskGate != this) throw new IllegalArgumentException("Order has no reservation in this gate");
+        Order.validateAmend(newQuantity, newLimitPrice);
+
+        AtomicLong budget = budgetFor(order);
+        long before = order.reservedUnits;
+        long after = required(order, FixedPoint.of(newQuantity), FixedPoint.of(newLimitPrice));
+        if (after > before && !take(budget, after - before)) return false;
+
+        // realizacje w trakcie zmiany (nowa cena może skrzyżować) rozliczają już nową rezerwację
+        order.reservedUnits = after;
+        boolean amended = false;
+        try {
+            amended = engine.amend(order.getSymbol(), order.getId(), newQuantity, newLimitPrice);
+        } finally {
+            if (!amended) {
+                order.reservedUnits = before;
+                if (after > before) budget.getAndAdd(after - before);
+            }
+        }
+        if (!amended) return false;
+        if (after < before) budget.getAndAdd(before - after);
+        return true;
+    }
+
+    @Override
+    public void onFill(Fill fill) {
+        settle(fill.getBuyOrder(), fill);
+        settle(fill.getSellOrder(), fill);
+    }
+
+    // Najpierw księgowanie w portfelu (jego zmiany gotówki i ilości wracają przez onCashChanged/onQuantityChanged),
+    // potem zwolnienie zużytej części rezerwacji - różnica do limitu wraca do puli. W międzyczasie
+    // dostępność jest zaniżona, nigdy zawyżona.
+    private void settle(Order order, Fill fill) {
+        if (order.riskGate != this) return;
+
+        portfolio.applyFill(assets.get(order.getSymbol()), order.getSide(),
+                fill.getQuantityUnits(), fill.getPriceUnits(), LocalDate.now(clock));
+        long remaining = required(order, order.getRemainingQuantityUnits(), order.getLimitPriceUnits());
+        budgetFor(order).getAndAdd(order.reservedUnits - remaining);
+        order.reservedUnits = remaining;
+        if (order.isFilled()) order.riskGate = null;
+    }
+
+    void onCashChanged(long delta) {
+        availableCash.getAndAdd(delta);
+    }
+
+    void onQuantityChanged(String symbol, long delta) {
+        if (delta != 0) quantityFor(symbol).getAndAdd(delta);
+    }
+
+    void onPositionOpened(Position position) {
+        String symbol = position.getAsset().getSymbol();
+        assets.putIfAbsent(symbol, position.getAsset());
+        onQuantityChanged(symbol, position.getTotalQuantityUnits());
+    }
+
+    private AtomicLong budgetFor(Order order) {
+        return order.getSide() == OrderSide.BUY ? availableCash : quantityFor(order.getSymbol());
+    }
+
+    private AtomicLong quantityFor(String symbol) {
+        AtomicLong quantity = availableQuantity.get(symbol);
+        return quantity != null ? quantity : availableQuantity.computeIfAbsent(symbol, s -> new AtomicLong());
+    }
+
+    private static long required(Order order, long quantityUnits, long limitPriceUnits) {
+        return order.getSide() == OrderSide.BUY ? FixedPoint.multiply(quantityUnits, limitPriceUnits) : quantityUnits;
+    }
+
+    private static boolean take(AtomicLong budget, long amount) {
+        while (true) {
+            long available = budget.get();
+            if (amount > available) return false;
+            if (budget.compareAndSet(available, available - amount)) return true;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.FixedPoint;
+
+// Gotowy odbiorca sum sprzedaży do wielokrotnego użycia (reset między sprzedażami albo sumowanie wielu)
+public class SaleAccumulator implements SaleSink {
+
+    private int lotCount;
+    private long soldQuantityUnits;
+    private long costBasisUnits;
+    private long proceedsUnits;
+    private long profitUnits;
+
+    @Override
+    public void onLot(long lotId, int purchaseEpochDay, long soldQuantityUnits,
+                      long buyUnitPriceUnits, long sellUnitPriceUnits, long profitUnits) {
+        lotCount++;
+        this.soldQuantityUnits = FixedPoint.add(this.soldQuantityUnits, soldQuantityUnits);
+        costBasisUnits = FixedPoint.add(costBasisUnits, FixedPoint.multiply(soldQuantityUnits, buyUnitPriceUnits));
+        proceedsUnits = FixedPoint.add(proceedsUnits, FixedPoint.multiply(soldQuantityUnits, sellUnitPriceUnits));
+        this.profitUnits = FixedPoint.add(this.profitUnits, profitUnits);
+    }
+
+    public void reset() {
+        lotCount = 0;
+        soldQuantityUnits = 0;
+        costBasisUnits = 0;
+        proceedsUnits = 0;
+        profitUnits = 0;
+    }
+
+    public int getLotCount() { return lotCount; }
+    public double getSoldQuantity() { return FixedPoint.toDouble(soldQuantityUnits); }
+    public double getProfit() { return FixedPoint.toDouble(profitUnits); }
+    public long getSoldQuantityUnits() { return soldQuantityUnits; }
+    public long getCostBasisUnits() { return costBasisUnits; }
+    public long getProceedsUnits() { return proceedsUnits; }
+    public long getProfitUnits() { return profitUnits; }
+}
@@ -1,25 +1,40 @@
 package com.stockmarket.logic;
 
+import com.stockmarket.domain.FixedPoint;
+
 import java.time.LocalDate;
 
 public class SaleLine {
     private final LocalDate lotDate;
-    private final double soldQuantity;
-    private final double buyUnitPrice;
-    private final double sellUnitPrice;
-    private final double profit;
+    private final long soldQuantityUnits;
+    private final long buyUnitPriceUnits;
+    private final long sellUnitPriceUnits;
+    private final long profitUnits;
 
     public SaleLine(LocalDate lotDate, double soldQuantity, double buyUnitPrice, double sellUnitPrice) {
+        this(lotDate, FixedPoint.of(soldQuantity), FixedPoint.of(buyUnitPrice), FixedPoint.of(sellUnitPrice));
+    }
+
+    private SaleLine(LocalDate lotDate, long soldQuantityUnits, long buyUnitPriceUnits, long sellUnitPriceUnits) {
         this.lotDate = lotDate;
-        this.soldQuantity = soldQuantity;
-        this.buyUnitPrice = buyUnitPrice;
-        this.sellUnitPrice = sellUnitPrice;
-        this.profit = soldQuantity * (sellUnitPrice - buyUnitPrice);
+        this.soldQuantityUnits = soldQuantityUnits;
+        this.buyUnitPriceUnits = buyUnitPriceUnits;
+        this.sellUnitPriceUnits = sellUnitPriceUnits;
+        this.profitUnits = FixedPoint.multiply(soldQuantityUnits, sellUnitPriceUnits - buyUnitPriceUnits);
+    }
+
+    static SaleLine ofUnits(LocalDate lotDate, long soldQuantityUnits, long buyUnitPriceUnits, long sellUnitPriceUnits) {
+        return new SaleLine(lotDate, soldQuantityUnits, buyUnitPriceUnits, sellUnitPriceUnits);
     }
 
     public LocalDate getLotDate() { return lotDate; }
-    public double getSoldQuantity() { return soldQuantity; }
-    public double getBuyUnitPrice() { return buyUnitPrice; }
-    public double getSellUnitPrice() { return sellUnitPrice; }
-    public double getProfit() { return profit; }
-}
\ No newline at end of file
+    public double getSoldQuantity() { return FixedPoint.toDouble(soldQuantityUnits); }
+    public double getBuyUnitPrice() { return FixedPoint.toDouble(buyUnitPriceUnits); }
+    public double getSellUnitPrice() { return FixedPoint.toDouble(sellUnitPriceUnits); }
+    public double getProfit() { return FixedPoint.toDouble(profitUnits); }
+
+    public long getSoldQuantityUnits() { return soldQuantityUnits; }
+    public long getBuyUnitPriceUnits() { return buyUnitPriceUnits; }
+    public long getSellUnitPriceUnits() { return sellUnitPriceUnits; }
+    public long getProfitUnits() { return profitUnits; }
+}
@@ -1,28 +1,40 @@
 package com.stockmarket.logic;
 
+import com.stockmarket.domain.FixedPoint;
+
 public class SaleResult {
 
     private final String symbol;
-    private final double totalSoldQuantity;
+    private final long totalSoldQuantityUnits;
     private final SaleLine[] lines;
     private final int linesCount;
-    private final double totalProfit;
+    private final long totalProfitUnits;
 
     public SaleResult(String symbol, double totalSoldQuantity, SaleLine[] lines, int linesCount, double totalProfit) {
+        this(symbol, FixedPoint.of(totalSoldQuantity), lines, linesCount, FixedPoint.of(totalProfit));
+    }
+
+    private SaleResult(String symbol, long totalSoldQuantityUnits, SaleLine[] lines, int linesCount, long totalProfitUnits) {
         this.symbol = symbol;
-        this.totalSoldQuantity = totalSoldQuantity;
+        this.totalSoldQuantityUnits = totalSoldQuantityUnits;
         this.lines = lines;
         this.linesCount = linesCount;
-        this.totalProfit = totalProfit;
+        this.totalProfitUnits = totalProfitUnits;
+    }
+
+    static SaleResult ofUnits(String symbol, long totalSoldQuantityUnits, SaleLine[] lines, int linesCount, long totalProfitUnits) {
+        return new SaleResult(symbol, totalSoldQuantityUnits, lines, linesCount, totalProfitUnits);
     }
 
     public String getSymbol() { return symbol; }
-    public double getTotalSoldQuantity() { return totalSoldQuantity; }
+    public double getTotalSoldQuantity() { return FixedPoint.toDouble(totalSoldQuantityUnits); }
     public int getLinesCount() { return linesCount; }
-    public double getTotalProfit() { return totalProfit; }
+    public double getTotalProfit() { return FixedPoint.toDouble(totalProfitUnits); }
+    public long getTotalSoldQuantityUnits() { return totalSoldQuantityUnits; }
+    public long getTotalProfitUnits() { return totalProfitUnits; }
 
     public SaleLine getLine(int index) {
         if (index < 0 || index >= linesCount) throw new IndexOutOfBoundsException();
         return lines[index];
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,14 @@
+package com.stockmarket.logic;
+
+// Odbiorca szczegółów sprzedaży - jedno wywołanie na zużytą partię, same prymitywy (FixedPoint, epoch day),
+// więc sprzedaż z wielokrotnie używanym odbiorcą nie tworzy żadnych obiektów.
+@FunctionalInterface
+public interface SaleSink {
+
+    void onLot(long lotId, int purchaseEpochDay, long soldQuantityUnits,
+               long buyUnitPriceUnits, long sellUnitPriceUnits, long profitUnits);
+
+    // koniec jednej sprzedaży (także nieudanej) - odbiorca może wyczyścić jej kontekst
+    default void onSaleEnd() {
+    }
+}
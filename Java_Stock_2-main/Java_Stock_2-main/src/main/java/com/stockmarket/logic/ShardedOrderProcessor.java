@@ -0,0 +1,140 @@
+package com.stockmarket.logic;
+
+// Zlecenia trafiają do shardu wg hasha symbolu; każdy shard ma własny bufor, silnik i wątek,
+// więc księgi danego symbolu zawsze modyfikuje ten sam, jeden wątek.
+public class ShardedOrderProcessor implements AutoCloseable {
+
+    private final Shard[] shards;
+    private volatile boolean started;
+    // po shutdown() nikt już nie opróżni buforów - nowe polecenia są odrzucane, a nie gubione
+    private volatile boolean stopped;
+
+    // listener jest wołany z wątków shardów, więc musi być bezpieczny wielowątkowo
+    public ShardedOrderProcessor(int shardCount, int ringCapacity, WaitStrategy waitStrategy, int batchSize, FillListener listener) {
+        if (shardCount <= 0) throw new IllegalArgumentException("Shard count must be positive");
+        if (listener == null) throw new IllegalArgumentException("Listener cannot be null");
+
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            OrderRingBuffer ring = new OrderRingBuffer(ringCapacity, waitStrategy);
+            MatchingEngine engine = new MatchingEngine(listener);
+            OrderSequencer sequencer = new OrderSequencer(ring, engine, waitStrategy, batchSize);
+            Thread thread = new Thread(sequencer, "order-shard-" + i);
+            thread.setDaemon(true);
+            shards[i] = new Shard(ring, sequencer, thread);
+        }
+    }
+
+    public synchronized void start() {
+        if (stopped) throw new IllegalStateException("Processor is shut down");
+        if (started) throw new IllegalStateException("Processor already started");
+        started = true;
+        for (Shard shard : shards) {
+            shard.thread.start();
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public int shardOf(String symbol) {
+        if (symbol == null) throw new IllegalArgumentException("Symbol cannot be null");
+        int h = symbol.hashCode();
+        h ^= h >>> 16; // rozrzucenie starszych bitów, bo symbole są krótkie
+        return Math.floorMod(h * 0x9E3779B9, shards.length);
+    }
+
+    // blokuje (wg strategii oczekiwania), gdy bufor shardu jest pełny
+    public void submit(Order order) {
+        if (order == null) throw new IllegalArgumentException("Order cannot be null");
+        shardFor(order.getSymbol()).ring.publishNew(order);
+    }
+
+    // false = shard przeciążony, wywołujący decyduje co dalej
+    public boolean trySubmit(Order order) {
+        if (order == null) throw new IllegalArgumentException("Order cannot be null");
+        return shardFor(order.getSymbol()).ring.tryPublishNew(order);
+    }
+
+    public void cancel(String symbol, long orderId) {
+        shardFor(symbol).ring.publishCancel(symbol, orderId);
+    }
+
+    public void amend(String symbol, long orderId, double newQuantity, double newLimitPrice) {
+        shardFor(symbol).ring.publishAmend(symbol, orderId, newQuantity, newLimitPrice);
+    }
+
+    // wywołania współbieżne z shutdown() muszą być uporządkowane przez wywołującego
+    private Shard shardFor(String symbol) {
+        int shard = shardOf(symbol);
+        if (stopped) throw new IllegalStateException("Processor is shut down");
+        return shards[shard];
+    }
+
+    public long getProcessedCount(int shard) {
+        return shards[shard].sequencer.getProcessedCount();
+    }
+
+    public long getRejectedCount(int shard) {
+        return shards[shard].sequencer.getRejectedCount();
+    }
+
+    public long getFailedCount(int shard) {
+        return shards[shard].sequencer.getFailedCount();
+    }
+
+    public long getQueueDepth(int shard) {
+        return shards[shard].ring.size();
+    }
+
+    public long getTotalProcessedCount() {
+        long sum = 0;
+        for (Shard shard : shards) {
+            sum += shard.sequencer.getProcessedCount();
+        }
+        return sum;
+    }
+
+    // zatrzymuje shardy po opróżnieniu tego, co już zostało opublikowane;
+    // bez start() wątki shardów nie ruszyły, więc bufory opróżnia wywołujący
+    public synchronized void shutdown() throws InterruptedException {
+        stopped = true;
+        for (Shard shard : shards) {
+            shard.sequencer.stop();
+        }
+        if (!started) {
+            for (Shard shard : shards) {
+                while (shard.sequencer.drainOnce() > 0) {
+                    // kontynuuj
+                }
+            }
+            return;
+        }
+        for (Shard shard : shards) {
+            shard.thread.join();
+        }
+    }
+
+    // przerwanie w trakcie czekania na wątki zostaje zachowane we fladze wątku
+    @Override
+    public void close() {
+        try {
+            shutdown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Shard {
+        private final OrderRingBuffer ring;
+        private final OrderSequencer sequencer;
+        private final Thread thread;
+
+        private Shard(OrderRingBuffer ring, OrderSequencer sequencer, Thread thread) {
+            this.ring = ring;
+            this.sequencer = sequencer;
+            this.thread = thread;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.FixedPoint;
+
+import java.time.LocalDate;
+
+// Pojedyncza transakcja do Portfolio.applyTrades; kupno niesie Asset (koszt nabycia, nowa pozycja), sprzedaż tylko symbol.
+public class Trade {
+
+    private final OrderSide side;
+    private final Asset asset;
+    private final String symbol;
+    private final long quantityUnits;
+    private final long unitPriceUnits;
+    private final LocalDate date;
+
+    private Trade(OrderSide side, Asset asset, String symbol, double quantity, double unitPrice, LocalDate date) {
+        if (quantity <= 0) throw new IllegalArgumentException("Quantity must be positive");
+        if (unitPrice < 0) throw new IllegalArgumentException("Unit price cannot be negative");
+        if (date == null) throw new IllegalArgumentException("Date cannot be null");
+        this.side = side;
+        this.asset = asset;
+        this.symbol = symbol;
+        this.quantityUnits = FixedPoint.of(quantity);
+        this.unitPriceUnits = FixedPoint.of(unitPrice);
+        this.date = date;
+        if (quantityUnits == 0) throw new IllegalArgumentException("Quantity must be positive");
+    }
+
+    public static Trade buy(Asset asset, double quantity, LocalDate date, double unitPrice) {
+        if (asset == null) throw new IllegalArgumentException("Asset cannot be null");
+        return new Trade(OrderSide.BUY, asset, asset.getSymbol(), quantity, unitPrice, date);
+    }
+
+    public static Trade sell(String symbol, double quantity, double sellUnitPrice, LocalDate saleDate) {
+        if (symbol == null) throw new IllegalArgumentException("Symbol cannot be null");
+        return new Trade(OrderSide.SELL, null, symbol, quantity, sellUnitPrice, saleDate);
+    }
+
+    public OrderSide getSide() { return side; }
+    public Asset getAsset() { return asset; }
+    public String getSymbol() { return symbol; }
+    public double getQuantity() { return FixedPoint.toDouble(quantityUnits); }
+    public double getUnitPrice() { return FixedPoint.toDouble(unitPriceUnits); }
+    public long getQuantityUnits() { return quantityUnits; }
+    public long getUnitPriceUnits() { return unitPriceUnits; }
+    public LocalDate getDate() { return date; }
+}
@@ -0,0 +1,9 @@
+package com.stockmarket.logic;
+
+public enum TradeStatus {
+    APPLIED,
+    INSUFFICIENT_FUNDS,
+    INSUFFICIENT_QUANTITY,
+    NO_POSITION,
+    NOT_APPLIED // poprawna, ale wycofana razem z całą paczką ALL_OR_NOTHING
+}
@@ -0,0 +1,42 @@
+package com.stockmarket.logic;
+
+import java.util.concurrent.locks.LockSupport;
+
+public enum WaitStrategy {
+    // najniższe opóźnienie, zajmuje cały rdzeń
+    BUSY_SPIN {
+        @Override
+        public void idle(int attempt) {
+            Thread.onSpinWait();
+        }
+    },
+    // krótko kręci, potem oddaje rdzeń innym wątkom
+    YIELD {
+        @Override
+        public void idle(int attempt) {
+            if (attempt < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    },
+    // kręci, oddaje, a w końcu usypia na krótko - najmniej CPU
+    PARK {
+        @Override
+        public void idle(int attempt) {
+            if (attempt < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else if (attempt < SPIN_TRIES * 2) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+    };
+
+    private static final int SPIN_TRIES = 100;
+    private static final long PARK_NANOS = 50_000L;
+
+    public abstract void idle(int attempt);
+}
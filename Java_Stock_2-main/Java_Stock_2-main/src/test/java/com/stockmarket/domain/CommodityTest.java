@@ -25,4 +25,15 @@ class CommodityTest {
 
         assertEquals(0.0, value, 0.0001);
     }
-}
\ No newline at end of file
+
+    @Test
+    void unitsValueShouldApplyStorageRateExactly() {
+        Commodity commodity = new Commodity("GOLD", "Gold", 98765.4321, 0.000001);
+        long quantity = FixedPoint.parse("123456.789");
+
+        // stawka 0.123456789 zaokrąglona do 8 miejsc: 0.12345679
+        assertEquals(FixedPoint.parse("10687921987.92151902"), commodity.calculateRealValueUnits(quantity, commodity.getMarketPriceUnits()));
+        assertEquals(0, new Commodity("OIL", "Oil", 100.0, 0.1).calculateRealValueUnits(FixedPoint.of(1e9), FixedPoint.of(100.0)));
+        assertEquals(FixedPoint.of(1000.0), new Commodity("SAND", "Sand", 100.0, 0.0).calculateRealValueUnits(FixedPoint.of(10), FixedPoint.of(100.0)));
+    }
+}
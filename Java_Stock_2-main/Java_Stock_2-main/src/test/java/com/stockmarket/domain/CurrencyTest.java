@@ -22,4 +22,14 @@ class CurrencyTest {
 
         assertTrue(value < 100.0 * 10);
     }
-}
\ No newline at end of file
+
+    @Test
+    void unitsValueShouldUseBidPriceAndNeverGoNegative() {
+        Currency currency = new Currency("EUR", "Euro", 100.0, 2.5);
+        long quantity = FixedPoint.parse("123456.789");
+
+        assertEquals(FixedPoint.parse("12037036.9275"), currency.calculateRealValueUnits(quantity, currency.getMarketPriceUnits()));
+        assertEquals(0, currency.calculateRealValueUnits(quantity, FixedPoint.of(1.0)));
+        assertEquals(FixedPoint.parse("12345678.9"), currency.calculateAcquisitionCostUnits(quantity));
+    }
+}
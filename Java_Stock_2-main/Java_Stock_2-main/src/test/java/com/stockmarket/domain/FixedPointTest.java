@@ -0,0 +1,108 @@
+package com.stockmarket.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixedPointTest {
+
+    @Test
+    void ofAndParseShouldProduceSameUnits() {
+        assertEquals(15_000_000_000L, FixedPoint.of(150.0));
+        assertEquals(15_000_000_000L, FixedPoint.parse("150"));
+        assertEquals(1L, FixedPoint.parse("0.00000001"));
+        assertEquals(FixedPoint.parse("0.1"), FixedPoint.of(0.1));
+        assertEquals(FixedPoint.parse("12345678.9"), FixedPoint.of(12345678.9));
+
+        assertThrows(IllegalArgumentException.class, () -> FixedPoint.of(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> FixedPoint.of(Double.POSITIVE_INFINITY));
+        assertThrows(NumberFormatException.class, () -> FixedPoint.parse("abc"));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.parse("1e20"));
+    }
+
+    @Test
+    void ofShouldMatchExactBinaryValueAboveFastPath() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            double v = (random.nextBoolean() ? 1 : -1) * (1e7 + random.nextDouble() * 9e10);
+            long expected = new BigDecimal(v).setScale(FixedPoint.DECIMALS, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+            assertEquals(expected, FixedPoint.of(v), Double.toString(v));
+        }
+        // remis na ostatnim miejscu: do parzystej
+        assertEquals(1_000_000_000_000_000L, FixedPoint.of(10_000_000.0));
+        assertEquals(FixedPoint.parse("12345678.5"), FixedPoint.of(12345678.5));
+        assertEquals(FixedPoint.parse("-92000000000"), FixedPoint.of(-9.2e10));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.of(1e11));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.of(-1e300));
+    }
+
+    @Test
+    void ofShouldRoundHalfEvenBelowFastPathLimit() {
+        // 2^-9 i 3 * 2^-9: dokładne remisy na 8. miejscu
+        assertEquals(195_312L, FixedPoint.of(0.001953125));
+        assertEquals(FixedPoint.parse("0.001953125"), FixedPoint.of(0.001953125));
+        assertEquals(-585_938L, FixedPoint.of(-0.005859375));
+        assertEquals(FixedPoint.parse("-0.005859375"), FixedPoint.of(-0.005859375));
+    }
+
+    @Test
+    void additionShouldBeExactWhereDoubleIsNot() {
+        long sum = FixedPoint.add(FixedPoint.of(0.1), FixedPoint.of(0.2));
+
+        assertNotEquals(0.3, 0.1 + 0.2);
+        assertEquals(FixedPoint.of(0.3), sum);
+        assertThrows(ArithmeticException.class, () -> FixedPoint.add(Long.MAX_VALUE, 1));
+    }
+
+    @Test
+    void multiplyShouldRoundHalfEvenAndHandleWideProducts() {
+        assertEquals(FixedPoint.of(1500.0), FixedPoint.multiply(FixedPoint.of(10.0), FixedPoint.of(150.0)));
+        assertEquals(FixedPoint.of(-7.5), FixedPoint.multiply(FixedPoint.of(-2.5), FixedPoint.of(3.0)));
+        // 0.00000001 * 0.5 = 0.000000005 -> do parzystej (0)
+        assertEquals(0L, FixedPoint.multiply(1L, FixedPoint.of(0.5)));
+        assertEquals(2L, FixedPoint.multiply(3L, FixedPoint.of(0.5)));
+        // iloczyn surowych jednostek przekracza long, wynik nie
+        assertEquals(FixedPoint.of(5_000_000_000.0), FixedPoint.multiply(FixedPoint.of(100_000.0), FixedPoint.of(50_000.0)));
+        assertEquals(-FixedPoint.of(5_000_000_000.0), FixedPoint.multiply(FixedPoint.of(-100_000.0), FixedPoint.of(50_000.0)));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.multiply(Long.MAX_VALUE, FixedPoint.of(2.0)));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.multiply(Long.MIN_VALUE, FixedPoint.of(2.0)));
+    }
+
+    @Test
+    void wideMultiplyShouldMatchBigDecimal() {
+        java.util.Random random = new java.util.Random(7);
+        java.math.BigDecimal scale = java.math.BigDecimal.valueOf(FixedPoint.SCALE);
+        for (int i = 0; i < 100_000; i++) {
+            long a = random.nextLong() >> random.nextInt(40);
+            long b = random.nextLong() >> (24 + random.nextInt(40));
+            java.math.BigDecimal exact = new java.math.BigDecimal(java.math.BigInteger.valueOf(a).multiply(java.math.BigInteger.valueOf(b)))
+                    .divide(scale, 0, java.math.RoundingMode.HALF_EVEN);
+            if (exact.toBigInteger().bitLength() < 64) {
+                assertEquals(exact.longValueExact(), FixedPoint.multiply(a, b), a + " * " + b);
+            } else {
+                assertThrows(ArithmeticException.class, () -> FixedPoint.multiply(a, b));
+            }
+        }
+    }
+
+    @Test
+    void divideShouldRoundHalfEven() {
+        assertEquals(FixedPoint.of(2.5), FixedPoint.divide(FixedPoint.of(10.0), FixedPoint.of(4.0)));
+        assertEquals(33_333_333L, FixedPoint.divide(FixedPoint.of(1.0), FixedPoint.of(3.0)));
+        assertEquals(FixedPoint.of(-2.5), FixedPoint.divide(FixedPoint.of(10.0), FixedPoint.of(-4.0)));
+        assertEquals(FixedPoint.of(1_000_000.0), FixedPoint.divide(FixedPoint.of(5_000_000_000.0), FixedPoint.of(5_000.0)));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.divide(1L, 0L));
+    }
+
+    @Test
+    void formatShouldBeCanonicalAndRoundTrip() {
+        assertEquals("150.0", FixedPoint.format(FixedPoint.of(150.0)));
+        assertEquals("0.00000001", FixedPoint.format(1L));
+        assertEquals("-2.5", FixedPoint.format(FixedPoint.of(-2.5)));
+        assertEquals(123_456_789_012L, FixedPoint.parse(FixedPoint.format(123_456_789_012L)));
+    }
+}
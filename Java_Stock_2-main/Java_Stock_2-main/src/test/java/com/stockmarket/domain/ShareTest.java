@@ -18,4 +18,13 @@ public class ShareTest {
 
         assertEquals(1005.0, share.calculateAcquisitionCost(10), 0.0001);
     }
+
+    @Test
+    void unitsShouldBeExactWhereDoubleRoundsOff() {
+        Share share = new Share("BIG", "Big", 98765.4321);
+        long quantity = FixedPoint.parse("123456.789");
+
+        assertEquals(FixedPoint.parse("12193263111.2635269"), share.calculateRealValueUnits(quantity, share.getMarketPriceUnits()));
+        assertEquals(FixedPoint.parse("12193263116.2635269"), share.calculateAcquisitionCostUnits(quantity));
+    }
 }
@@ -0,0 +1,151 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.PurchaseLot;
+import com.stockmarket.domain.Share;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountRegistryTest {
+
+    private static final LocalDate DATE = LocalDate.parse("2024-01-02");
+
+    private final Share aapl = new Share("AAPL", "Apple", 10.0);
+    private final Share msft = new Share("MSFT", "Microsoft", 20.0);
+
+    private static int[] sorted(int[] ids) {
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    @Test
+    void reverseIndexShouldFollowBuysAndSells() {
+        AccountRegistry registry = new AccountRegistry();
+        Portfolio a = new Portfolio(1_000.0);
+        Portfolio b = new Portfolio(1_000.0);
+        Portfolio c = new Portfolio(1_000.0);
+        a.buyAsset(aapl, 1.0, DATE, 10.0);
+
+        int idA = registry.register(a);
+        int idB = registry.register(b);
+        int idC = registry.register(c);
+        assertArrayEquals(new int[]{idA}, registry.getHolders("AAPL"));
+
+        b.buyAsset(aapl, 2.0, DATE, 10.0);
+        c.buyAsset(aapl, 3.0, DATE, 10.0);
+        c.buyAsset(msft, 1.0, DATE, 20.0);
+        assertArrayEquals(sorted(new int[]{idA, idB, idC}), sorted(registry.getHolders("AAPL")));
+        assertArrayEquals(new int[]{idC}, registry.getHolders("MSFT"));
+
+        // częściowa sprzedaż nie zmienia posiadaczy, pełna usuwa konto z indeksu
+        a.sellAsset("AAPL", 0.5, 10.0, DATE);
+        assertEquals(3, registry.getHolderCount("AAPL"));
+        a.sellAsset("AAPL", 0.5, 10.0, DATE);
+        assertArrayEquals(sorted(new int[]{idB, idC}), sorted(registry.getHolders("AAPL")));
+
+        // po przesunięciu slotu kolejne usunięcia nadal trafiają we właściwe miejsce
+        c.sellAsset("AAPL", 3.0, 10.0, DATE);
+        b.sellAsset("AAPL", 2.0, 10.0, DATE);
+        assertEquals(0, registry.getHolderCount("AAPL"));
+
+        List<Integer> visited = new ArrayList<>();
+        registry.forEachHolder("MSFT", (portfolio, id) -> {
+            assertSame(c, portfolio);
+            visited.add(id);
+        });
+        assertEquals(List.of(idC), visited);
+    }
+
+    @Test
+    void directMapChangesAndUnregisterShouldKeepIndexConsistent() {
+        AccountRegistry registry = new AccountRegistry();
+        Portfolio a = new Portfolio(0.0);
+        Portfolio b = new Portfolio(0.0);
+        int idA = registry.register(a);
+        int idB = registry.register(b);
+
+        Position first = new Position(aapl);
+        first.addLot(new PurchaseLot(DATE, 10.0, 1.0));
+        Position replacement = new Position(aapl);
+        replacement.addLot(new PurchaseLot(DATE, 11.0, 2.0));
+        Position other = new Position(aapl);
+        other.addLot(new PurchaseLot(DATE, 12.0, 3.0));
+
+        a.getPositions().put("AAPL", first);
+        b.getPositions().put("AAPL", other);
+        a.getPositions().put("AAPL", replacement);
+        assertArrayEquals(sorted(new int[]{idA, idB}), sorted(registry.getHolders("AAPL")));
+
+        b.getPositions().remove("AAPL");
+        assertArrayEquals(new int[]{idA}, registry.getHolders("AAPL"));
+
+        registry.unregister(idA);
+        assertEquals(0, registry.getHolderCount("AAPL"));
+        assertEquals(1, registry.size());
+        assertThrows(IllegalArgumentException.class, () -> registry.get(idA));
+        assertNull(a.getListener());
+
+        // po wyrejestrowaniu zmiany portfela nie dotykają rejestru
+        a.getPositions().clear();
+        assertEquals(0, registry.getHolderCount("AAPL"));
+    }
+
+    @Test
+    void lazilyLoadedPortfolioShouldBeIndexedOnce(@TempDir Path dir) {
+        Portfolio saved = new Portfolio(1_000.0);
+        saved.buyAsset(aapl, 1.0, DATE, 10.0);
+        saved.buyAsset(msft, 1.0, DATE, 20.0);
+        PortfolioPersistence persistence = new PortfolioPersistence();
+        persistence.save(saved, dir.resolve("portfolio.txt"));
+
+        AccountRegistry registry = new AccountRegistry();
+        Portfolio lazy = persistence.loadLazy(dir.resolve("portfolio.txt"));
+        int id = registry.register(lazy);
+        assertArrayEquals(new int[]{id}, registry.getHolders("AAPL"));
+        assertEquals(1, registry.getHolderCount("MSFT"));
+
+        lazy.sellAsset("AAPL", 1.0, 12.0, DATE);
+        assertEquals(0, registry.getHolderCount("AAPL"));
+        assertEquals(0, registry.getHolders("AAPL").length);
+    }
+
+    @Test
+    void symbolWithoutHoldersShouldLeaveIndex() {
+        AccountRegistry registry = new AccountRegistry();
+        Portfolio a = new Portfolio(1_000.0);
+        Portfolio b = new Portfolio(1_000.0);
+        int idA = registry.register(a);
+        int idB = registry.register(b);
+        a.buyAsset(aapl, 1.0, DATE, 10.0);
+        b.buyAsset(aapl, 1.0, DATE, 10.0);
+        assertEquals(1, registry.indexedSymbolCount());
+
+        a.sellAsset("AAPL", 1.0, 10.0, DATE);
+        assertArrayEquals(new int[]{idB}, registry.getHolders("AAPL"));
+        b.sellAsset("AAPL", 1.0, 10.0, DATE);
+        assertEquals(0, registry.indexedSymbolCount());
+
+        a.buyAsset(aapl, 1.0, DATE, 10.0);
+        assertArrayEquals(new int[]{idA}, registry.getHolders("AAPL"));
+    }
+
+    @Test
+    void shouldValidateArguments() {
+        AccountRegistry registry = new AccountRegistry();
+        Portfolio portfolio = new Portfolio(0.0);
+        registry.register(portfolio);
+
+        assertThrows(IllegalArgumentException.class, () -> registry.register(null));
+        assertThrows(IllegalArgumentException.class, () -> registry.register(portfolio));
+        assertThrows(IllegalArgumentException.class, () -> registry.get(5));
+        assertThrows(IllegalArgumentException.class, () -> registry.forEachHolder("AAPL", null));
+        assertEquals(0, registry.getHolders("UNKNOWN").length);
+    }
+}
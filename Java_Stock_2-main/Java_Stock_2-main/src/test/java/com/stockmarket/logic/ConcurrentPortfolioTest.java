@@ -0,0 +1,88 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Share;
+import com.stockmarket.exceptions.InsufficientFundsException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentPortfolioTest {
+
+    private static final LocalDate DATE = LocalDate.parse("2024-01-02");
+
+    @Test
+    void parallelBuysShouldNeverOverspendAndKeepTotalsConsistent() throws Exception {
+        // Share: koszt = 10 * ilość + 5, wartość = 10 * ilość -> każdy zakup zmniejsza sumę dokładnie o 5
+        ConcurrentPortfolio portfolio = new ConcurrentPortfolio(10_000.0, 8);
+        int threads = 8;
+        AtomicInteger bought = new AtomicInteger();
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicInteger inconsistent = new AtomicInteger();
+
+        Thread reader = new Thread(() -> {
+            while (!stop.get()) {
+                double total = portfolio.calculateTotalValue();
+                // suma może spaść tylko o wielokrotność opłaty
+                if (Math.abs((10_000.0 - total) % 5.0) > 1e-6) inconsistent.incrementAndGet();
+            }
+        });
+        reader.start();
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Share share = new Share("S" + t, "Share " + t, 10.0);
+            Thread worker = new Thread(() -> {
+                while (true) {
+                    try {
+                        portfolio.buyAsset(share, 1.0, DATE, 10.0);
+                        bought.incrementAndGet();
+                    } catch (InsufficientFundsException e) {
+                        return;
+                    }
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) worker.join();
+        stop.set(true);
+        reader.join();
+
+        assertEquals(666, bought.get());
+        assertEquals(10_000.0 - 666 * 15.0, portfolio.getCash(), 0.0);
+        assertEquals(6660.0, portfolio.calculateAssetsRealValue(), 0.0);
+        assertEquals(0, inconsistent.get());
+
+        double quantity = 0;
+        for (int t = 0; t < threads; t++) quantity += portfolio.getQuantity("S" + t);
+        assertEquals(666.0, quantity, 0.0);
+    }
+
+    @Test
+    void sellAndMarkPriceShouldUpdateCashAndValue() {
+        ConcurrentPortfolio portfolio = new ConcurrentPortfolio(1_000.0);
+        Share share = new Share("AAPL", "Apple", 100.0);
+
+        portfolio.buyAsset(share, 5.0, DATE, 100.0);
+        assertEquals(495.0, portfolio.getCash(), 0.0);
+        assertEquals(500.0, portfolio.calculateAssetsRealValue(), 0.0);
+
+        portfolio.setMarkPrice("AAPL", 120.0);
+        assertEquals(600.0, portfolio.calculateAssetsRealValue(), 0.0);
+
+        SaleResult result = portfolio.sellAsset("AAPL", 5.0, 120.0, DATE);
+        assertEquals(100.0, result.getTotalProfit(), 0.0);
+        assertEquals(1_095.0, portfolio.calculateTotalValue(), 0.0);
+        assertEquals(0, portfolio.getHoldingsCount());
+
+        assertThrows(IllegalArgumentException.class, () -> portfolio.sellAsset("AAPL", 1.0, 1.0, DATE));
+        assertThrows(InsufficientFundsException.class, () -> portfolio.buyAsset(share, 100.0, DATE, 100.0));
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentPortfolio(1.0, 3));
+    }
+}
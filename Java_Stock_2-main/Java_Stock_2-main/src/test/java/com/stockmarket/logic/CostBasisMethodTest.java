@@ -0,0 +1,132 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.FixedPoint;
+import com.stockmarket.domain.PurchaseLot;
+import com.stockmarket.domain.Share;
+import com.stockmarket.exceptions.InsufficientAssetQuantityException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CostBasisMethodTest {
+
+    private static final LocalDate DAY0 = LocalDate.parse("2023-01-01");
+
+    private static Position position(double... prices) {
+        Position position = new Position(new Share("XYZ", "XYZ Corp", 1.0));
+        for (int i = 0; i < prices.length; i++) {
+            position.addLot(new PurchaseLot(DAY0.plusDays(i), prices[i], 10.0));
+        }
+        return position;
+    }
+
+    @Test
+    void eachMethodShouldPickLotsInItsOrder() {
+        double[] prices = {100.0, 130.0, 90.0, 130.0, 110.0};
+
+        SaleResult lifo = position(prices).sell(CostBasisMethod.LIFO, 15.0, 120.0);
+        assertEquals(DAY0.plusDays(4), lifo.getLine(0).getLotDate());
+        assertEquals(DAY0.plusDays(3), lifo.getLine(1).getLotDate());
+        assertEquals(5.0, lifo.getLine(1).getSoldQuantity(), 0.0);
+
+        // przy równej cenie starsza partia pierwsza
+        SaleResult hifo = position(prices).sell(CostBasisMethod.HIFO, 25.0, 120.0);
+        assertEquals(DAY0.plusDays(1), hifo.getLine(0).getLotDate());
+        assertEquals(DAY0.plusDays(3), hifo.getLine(1).getLotDate());
+        assertEquals(DAY0.plusDays(4), hifo.getLine(2).getLotDate());
+        assertEquals(-100.0 - 100.0 + 50.0, hifo.getTotalProfit(), 0.0);
+
+        SaleResult lofo = position(prices).sell(CostBasisMethod.LOFO, 15.0, 120.0);
+        assertEquals(DAY0.plusDays(2), lofo.getLine(0).getLotDate());
+        assertEquals(DAY0, lofo.getLine(1).getLotDate());
+        assertEquals(300.0 + 100.0, lofo.getTotalProfit(), 0.0);
+    }
+
+    @Test
+    void heapMethodsShouldMatchBruteForceUnderMixedUse() {
+        Random random = new Random(42);
+        Position position = new Position(new Share("XYZ", "XYZ Corp", 1.0));
+        List<long[]> model = new ArrayList<>(); // {id, price, qty}
+        CostBasisMethod[] methods = CostBasisMethod.values();
+
+        for (int step = 0; step < 3000; step++) {
+            if (model.isEmpty() || random.nextInt(3) > 0) {
+                long price = FixedPoint.of(50 + random.nextInt(50));
+                long qty = FixedPoint.of(1 + random.nextInt(5));
+                long id = position.addLotUnits(DAY0, price, qty);
+                model.add(new long[]{id, price, qty});
+                continue;
+            }
+
+            CostBasisMethod method = methods[random.nextInt(methods.length)];
+            long total = 0;
+            for (long[] lot : model) total += lot[2];
+            long toSell = Math.min(total, FixedPoint.of(1 + random.nextInt(8)));
+
+            SaleResult result = position.sellUnits(method, toSell, FixedPoint.of(100));
+
+            List<long[]> order = new ArrayList<>(model);
+            switch (method) {
+                case LIFO -> order.sort(Comparator.comparingLong((long[] l) -> -l[0]));
+                case HIFO -> order.sort(Comparator.comparingLong((long[] l) -> -l[1]).thenComparingLong(l -> l[0]));
+                case LOFO -> order.sort(Comparator.comparingLong((long[] l) -> l[1]).thenComparingLong(l -> l[0]));
+                default -> { }
+            }
+            long remaining = toSell;
+            int line = 0;
+            for (long[] lot : order) {
+                if (remaining == 0) break;
+                long take = Math.min(remaining, lot[2]);
+                assertEquals(lot[1], FixedPoint.of(result.getLine(line).getBuyUnitPrice()));
+                assertEquals(take, FixedPoint.of(result.getLine(line).getSoldQuantity()));
+                lot[2] -= take;
+                remaining -= take;
+                line++;
+            }
+            assertEquals(line, result.getLinesCount());
+            model.removeIf(l -> l[2] == 0);
+            assertEquals(model.size(), position.getLotCount());
+        }
+    }
+
+    @Test
+    void specificIdentificationShouldConsumeListedLotsInGivenOrder() {
+        Position position = position(100.0, 110.0, 120.0);
+        long[] ids = position.getLotIds();
+        assertEquals(3, ids.length);
+
+        SaleResult result = position.sellSpecific(new long[]{ids[2], ids[0]}, 15.0, 130.0);
+        assertEquals(2, result.getLinesCount());
+        assertEquals(120.0, result.getLine(0).getBuyUnitPrice(), 0.0);
+        assertEquals(5.0, result.getLine(1).getSoldQuantity(), 0.0);
+        assertEquals(5.0, position.getLotQuantity(ids[0]), 0.0);
+        assertArrayEquals(new long[]{ids[0], ids[1]}, position.getLotIds());
+
+        assertThrows(IllegalArgumentException.class, () -> position.sellSpecific(new long[]{ids[2]}, 1.0, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> position.sellSpecific(new long[]{ids[0], ids[0]}, 1.0, 1.0));
+        assertThrows(InsufficientAssetQuantityException.class, () -> position.sellSpecific(new long[]{ids[0]}, 6.0, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> position.sellSpecific(new long[0], 1.0, 1.0));
+        // nieudana walidacja nie rusza partii
+        assertEquals(15.0, position.getTotalQuantity(), 0.0);
+    }
+
+    @Test
+    void portfolioShouldSellWithRequestedMethod() {
+        Portfolio portfolio = new Portfolio(10_000.0);
+        Share share = new Share("XYZ", "XYZ Corp", 100.0);
+        portfolio.buyAsset(share, 10.0, DAY0, 100.0);
+        portfolio.buyAsset(share, 10.0, DAY0.plusDays(1), 150.0);
+
+        SaleResult result = portfolio.sellAsset("XYZ", 10.0, 150.0, DAY0.plusDays(2), CostBasisMethod.HIFO);
+
+        assertEquals(0.0, result.getTotalProfit(), 0.0);
+        assertEquals(1000.0, portfolio.getPosition("XYZ").getTotalCost(), 0.0);
+        assertThrows(IllegalArgumentException.class, () -> portfolio.sellAsset("XYZ", 1.0, 1.0, DAY0, null));
+    }
+}
@@ -0,0 +1,286 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.Share;
+import com.stockmarket.exceptions.DataIntegrityException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventJournalTest {
+
+    // nagłówek segmentu: [int MAGIC][int VERSION]
+    private static final int HEADER = 8;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void replayShouldRebuildPortfolioAndOrderBookState() {
+        Path dir = tempDir.resolve("journal");
+        Share aapl = new Share("AAPL", "Apple", 100.0);
+        Commodity gold = new Commodity("GOLD", "Gold", 50.0, 0.001);
+
+        Portfolio portfolio = new Portfolio(10_000.0);
+        List<Fill> fills = new ArrayList<>();
+
+        try (EventJournal journal = new EventJournal(dir, 4096, 8)) {
+            MatchingEngine engine = new MatchingEngine(f -> {
+                fills.add(f);
+                journal.onFill(f);
+            });
+
+            journal.appendBuy(aapl, 10.0, LocalDate.parse("2024-01-02"), 100.0);
+            portfolio.buyAsset(aapl, 10.0, LocalDate.parse("2024-01-02"), 100.0);
+            journal.appendBuy(gold, 4.0, LocalDate.parse("2024-01-03"), 50.0);
+            portfolio.buyAsset(gold, 4.0, LocalDate.parse("2024-01-03"), 50.0);
+            journal.appendSell("AAPL", 3.0, 120.0, LocalDate.parse("2024-02-01"));
+            portfolio.sellAsset("AAPL", 3.0, 120.0, LocalDate.parse("2024-02-01"));
+
+            Order[] orders = {
+                    new Order(1L, "XYZ", OrderSide.SELL, 10.0, 5.0, 1L),
+                    new Order(2L, "XYZ", OrderSide.SELL, 11.0, 5.0, 2L),
+                    new Order(3L, "XYZ", OrderSide.BUY, 10.5, 2.0, 3L),
+                    new Order(4L, "XYZ", OrderSide.BUY, 9.0, 1.0, 4L),
+            };
+            for (Order o : orders) {
+                journal.appendOrder(o);
+                engine.submit(o);
+            }
+            journal.appendCancel("XYZ", 4L);
+            engine.cancel("XYZ", 4L);
+            journal.appendAmend("XYZ", 2L, 1.0, 11.0);
+            engine.amend("XYZ", 2L, 1.0, 11.0);
+        }
+
+        Portfolio rebuilt = new Portfolio(10_000.0);
+        MatchingEngine rebuiltEngine = new MatchingEngine(f -> { });
+        long records = new JournalReplayer(rebuilt, rebuiltEngine).replay(dir);
+
+        assertEquals(3 + 4 + 1 + 1 + fills.size(), records);
+        assertEquals(portfolio.getCash(), rebuilt.getCash(), 0.0001);
+        assertEquals(7.0, rebuilt.getPosition("AAPL").getTotalQuantity(), 0.0001);
+        assertTrue(rebuilt.getPosition("GOLD").getAsset() instanceof Commodity);
+        assertEquals(0.001, ((Commodity) rebuilt.getPosition("GOLD").getAsset()).getStorageCostRatePerUnit(), 1e-12);
+
+        Order bestAsk = rebuiltEngine.getBestAsk("XYZ");
+        assertEquals(1L, bestAsk.getId());
+        assertEquals(3.0, bestAsk.getRemainingQuantity(), 0.0001);
+        assertNull(rebuiltEngine.getBestBid("XYZ"));
+        assertEquals(1.0, rebuiltEngine.getBook("XYZ", OrderSide.SELL).find(2L).getRemainingQuantity(), 0.0001);
+    }
+
+    @Test
+    void newOrdersAfterReplayShouldNotReuseJournaledIds() {
+        Path dir = tempDir.resolve("ids");
+        // id powyżej licznika automatycznego, niezależnie od innych testów
+        long journaledId = 5_000_000_000L;
+        try (EventJournal journal = new EventJournal(dir, 4096, 1)) {
+            journal.appendOrder(new Order(journaledId, "XYZ", OrderSide.SELL, 10.0, 5.0, 1L));
+        }
+
+        MatchingEngine engine = new MatchingEngine(f -> { });
+        new JournalReplayer(null, engine).replay(dir);
+
+        Order next = new Order("XYZ", OrderSide.SELL, 11.0, 1.0, 2L);
+        assertTrue(next.getId() > journaledId);
+        assertDoesNotThrow(() -> engine.submit(next));
+        assertEquals(2, engine.getBook("XYZ", OrderSide.SELL).size());
+    }
+
+    @Test
+    void journalShouldRollSegmentsAndContinueAfterReopen() {
+        Path dir = tempDir.resolve("rolling");
+
+        try (EventJournal journal = new EventJournal(dir, 1024, 100)) {
+            for (long i = 0; i < 100; i++) {
+                journal.appendCancel("XYZ", i);
+            }
+            assertTrue(journal.getSegmentCount() > 1);
+        }
+        try (EventJournal journal = new EventJournal(dir, 1024, 1)) {
+            journal.appendCancel("XYZ", 100L);
+        }
+
+        List<Long> ids = new ArrayList<>();
+        long records = EventJournal.replay(dir, new JournalHandler() {
+            @Override
+            public void onCancel(String symbol, long orderId) {
+                ids.add(orderId);
+            }
+        });
+
+        assertEquals(101, records);
+        for (int i = 0; i <= 100; i++) {
+            assertEquals(i, ids.get(i));
+        }
+    }
+
+    @Test
+    void appendAfterTornRecordShouldNotExposeItsLeftovers() throws Exception {
+        Path dir = tempDir.resolve("torn");
+        try (EventJournal journal = new EventJournal(dir, 4096, 1)) {
+            journal.appendCancel("A", 1L);
+            journal.appendCancel("XXXXXXXXXXXXXXXXXXXXXXXX", 2L);
+        }
+        // awaria przed zapisaniem długości drugiego rekordu: dane są, długość 0
+        Path segment = dir.resolve("journal-00000000.log");
+        try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.allocate(Integer.BYTES), HEADER + 4 + 1 + 8 + 2 + 1);
+        }
+
+        try (EventJournal journal = new EventJournal(dir, 4096, 1)) {
+            journal.appendCancel("B", 3L);
+        }
+
+        List<Long> ids = new ArrayList<>();
+        EventJournal.replay(dir, new JournalHandler() {
+            @Override
+            public void onCancel(String symbol, long orderId) {
+                ids.add(orderId);
+            }
+        });
+        assertEquals(List.of(1L, 3L), ids);
+    }
+
+    @Test
+    void reopenShouldContinueLastSegmentEvenWithGaps() throws Exception {
+        Path dir = tempDir.resolve("gaps");
+        try (EventJournal journal = new EventJournal(dir, 1024, 100)) {
+            for (long i = 0; i < 200; i++) {
+                journal.appendCancel("XYZ", i);
+            }
+            assertTrue(journal.getSegmentCount() > 2);
+        }
+        int segments;
+        try (Stream<Path> files = Files.list(dir)) {
+            segments = (int) files.count();
+        }
+        Files.delete(dir.resolve("journal-00000000.log"));
+        Files.writeString(dir.resolve("journal-notes.log"), "ignored");
+
+        try (EventJournal journal = new EventJournal(dir, 1024, 1)) {
+            assertEquals(segments, journal.getSegmentCount());
+            journal.appendCancel("XYZ", 200L);
+        }
+
+        List<Long> ids = new ArrayList<>();
+        EventJournal.replay(dir, new JournalHandler() {
+            @Override
+            public void onCancel(String symbol, long orderId) {
+                ids.add(orderId);
+            }
+        });
+        assertEquals(200L, ids.get(ids.size() - 1));
+    }
+
+    @Test
+    void replayShouldReproduceFixedPointValuesExactly() {
+        Path dir = tempDir.resolve("units");
+        // 18 cyfr znaczących - double by tego nie przeniósł
+        long price = 123_456_789_012_345_678L;
+        long quantity = 98_765_432_109_876_543L;
+        // 17 cyfr dla portfela (iloczyn z ceną musi się zmieścić w long)
+        long lotQuantity = 12_345_678_901_234_567L;
+        long lotPrice = 100_000_001L;
+        Share share = new Share("XYZ", "XYZ Corp", 1.0);
+        Portfolio portfolio = Portfolio.ofCashUnits(Long.MAX_VALUE / 4);
+        try (EventJournal journal = new EventJournal(dir, 4096, 1)) {
+            journal.appendOrder(Order.ofUnits(7_000_000_000L, "XYZ", OrderSide.SELL, price, quantity, 1L));
+            journal.appendAmendUnits("XYZ", 7_000_000_000L, quantity - 1, price);
+            journal.appendBuyUnits(share, lotQuantity, LocalDate.parse("2024-01-02"), lotPrice);
+            portfolio.buyAssetUnits(share, lotQuantity, LocalDate.parse("2024-01-02"), lotPrice);
+            journal.appendSellUnits("XYZ", lotQuantity / 3, lotPrice + 1, LocalDate.parse("2024-01-03"));
+            portfolio.sellAssetUnits("XYZ", lotQuantity / 3, lotPrice + 1, LocalDate.parse("2024-01-03"), CostBasisMethod.FIFO,
+                    new SaleAccumulator());
+        }
+
+        Portfolio rebuilt = Portfolio.ofCashUnits(Long.MAX_VALUE / 4);
+        MatchingEngine engine = new MatchingEngine(f -> { });
+        new JournalReplayer(rebuilt, engine).replay(dir);
+
+        Order resting = engine.getBestAsk("XYZ");
+        assertEquals(price, resting.getLimitPriceUnits());
+        assertEquals(quantity - 1, resting.getRemainingQuantityUnits());
+        assertEquals(portfolio.getCashUnits(), rebuilt.getCashUnits());
+        assertEquals(portfolio.getPosition("XYZ").getTotalQuantityUnits(), rebuilt.getPosition("XYZ").getTotalQuantityUnits());
+        assertEquals(portfolio.getPosition("XYZ").getTotalCostUnits(), rebuilt.getPosition("XYZ").getTotalCostUnits());
+    }
+
+    @Test
+    void segmentWithoutCurrentHeaderShouldBeRejected() throws Exception {
+        // wersja 1: rekord od pierwszego bajtu, bez nagłówka
+        Path dir = Files.createDirectories(tempDir.resolve("v1"));
+        ByteBuffer old = ByteBuffer.allocate(64).putInt(1 + 8 + 2 + 1).put((byte) 1).putLong(1L).putShort((short) 1).put((byte) 'A');
+        Files.write(dir.resolve("journal-00000000.log"), old.array());
+
+        assertThrows(DataIntegrityException.class, () -> EventJournal.replay(dir, new JournalHandler() { }));
+        assertThrows(DataIntegrityException.class, () -> new EventJournal(dir, 4096, 1));
+    }
+
+    @Test
+    void corruptRecordsShouldBeRejectedAsDataIntegrityErrors() throws Exception {
+        // rekord CANCEL: [int długość][typ][long id][short długość napisu][napis]
+        // długość obejmuje tylko typ i id - odczyt napisu nie może sięgnąć do następnego rekordu
+        assertCorrupt("short", 0, ByteBuffer.allocate(4).putInt(1 + 8).array());
+        // ujemna długość napisu
+        assertCorrupt("string", 4 + 1 + 8, new byte[]{(byte) 0xFF, (byte) 0xFF});
+        // niepoprawne UTF-8
+        assertCorrupt("utf8", 4 + 1 + 8 + 2, new byte[]{(byte) 0xFF});
+        // nieznany typ rekordu
+        assertCorrupt("type", 4, new byte[]{42});
+
+        Path dir = tempDir.resolve("asset");
+        try (EventJournal journal = new EventJournal(dir, 4096, 1)) {
+            journal.appendBuy(new Share("AAPL", "Apple", 100.0), 1.0, LocalDate.parse("2024-01-02"), 100.0);
+        }
+        patch(dir, 4 + 1, new byte[]{9});
+        assertThrows(DataIntegrityException.class, () -> EventJournal.replay(dir, new JournalHandler() { }));
+    }
+
+    private void assertCorrupt(String name, int offset, byte[] bytes) throws Exception {
+        Path dir = tempDir.resolve(name);
+        try (EventJournal journal = new EventJournal(dir, 4096, 1)) {
+            journal.appendCancel("A", 1L);
+            journal.appendCancel("B", 2L);
+        }
+        patch(dir, offset, bytes);
+        List<Long> ids = new ArrayList<>();
+        assertThrows(DataIntegrityException.class, () -> EventJournal.replay(dir, new JournalHandler() {
+            @Override
+            public void onCancel(String symbol, long orderId) {
+                ids.add(orderId);
+            }
+        }), name);
+        assertTrue(ids.isEmpty(), name);
+    }
+
+    private static void patch(Path dir, int offset, byte[] bytes) throws Exception {
+        try (FileChannel ch = FileChannel.open(dir.resolve("journal-00000000.log"), StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.wrap(bytes), HEADER + offset);
+        }
+    }
+
+    @Test
+    void journalShouldValidateArgumentsAndRejectUseAfterClose() {
+        assertThrows(IllegalArgumentException.class, () -> new EventJournal(null, 4096, 1));
+        assertThrows(IllegalArgumentException.class, () -> new EventJournal(tempDir, 10, 1));
+        assertThrows(IllegalArgumentException.class, () -> new EventJournal(tempDir, 4096, 0));
+
+        EventJournal journal = new EventJournal(tempDir.resolve("closed"), 4096, 1);
+        journal.close();
+        assertThrows(IllegalStateException.class, () -> journal.appendCancel("XYZ", 1L));
+        assertThrows(IllegalArgumentException.class, () -> new JournalReplayer(null, null));
+    }
+}
@@ -0,0 +1,164 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Share;
+import com.stockmarket.exceptions.DataIntegrityException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalSaveTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final PortfolioPersistence persistence = new PortfolioPersistence();
+
+    private static Portfolio sample() {
+        Portfolio portfolio = new Portfolio(100_000.0);
+        for (String symbol : new String[]{"AAPL", "aapl", "MSFT", "BRK/B"}) {
+            portfolio.buyAsset(new Share(symbol, symbol + " Inc", 100.0), 10, LocalDate.parse("2023-01-02"), 100.0);
+            portfolio.buyAsset(new Share(symbol, symbol + " Inc", 100.0), 5, LocalDate.parse("2023-02-02"), 110.0);
+        }
+        return portfolio;
+    }
+
+    @Test
+    void changesShouldMarkSymbolsDirtyUntilSaved() {
+        Portfolio portfolio = sample();
+        assertEquals(Set.of("AAPL", "aapl", "MSFT", "BRK/B"), portfolio.getDirtySymbols());
+
+        persistence.saveIncremental(portfolio, tempDir);
+        assertTrue(portfolio.getDirtySymbols().isEmpty());
+
+        Position msft = portfolio.getPosition("MSFT");
+        long version = msft.getVersion();
+        msft.setMarkPrice(120.0);
+        portfolio.sellAsset("AAPL", 15, 120.0, LocalDate.parse("2023-03-01"));
+        assertEquals(Set.of("MSFT", "AAPL"), portfolio.getDirtySymbols());
+        assertTrue(msft.getVersion() > version);
+    }
+
+    @Test
+    void incrementalSaveShouldRewriteOnlyChangedSegments() throws Exception {
+        Portfolio portfolio = sample();
+        persistence.saveIncremental(portfolio, tempDir);
+        Path segments = tempDir.resolve(PortfolioPersistence.SEGMENTS_DIR);
+        assertEquals(4, segmentCount(segments));
+
+        FileTime old = FileTime.fromMillis(0);
+        try (Stream<Path> files = Files.list(segments)) {
+            for (Path f : files.toList()) Files.setLastModifiedTime(f, old);
+        }
+
+        portfolio.buyAsset(new Share("MSFT", "MSFT Inc", 100.0), 1, LocalDate.parse("2023-03-01"), 90.0);
+        portfolio.sellAsset("AAPL", 15, 120.0, LocalDate.parse("2023-03-01"));
+        persistence.saveIncremental(portfolio, tempDir);
+
+        assertNotEquals(old, Files.getLastModifiedTime(segments.resolve(PortfolioPersistence.segmentName("MSFT"))));
+        assertFalse(Files.exists(segments.resolve(PortfolioPersistence.segmentName("AAPL"))));
+        assertEquals(old, Files.getLastModifiedTime(segments.resolve(PortfolioPersistence.segmentName("aapl"))));
+        assertEquals(old, Files.getLastModifiedTime(segments.resolve(PortfolioPersistence.segmentName("BRK/B"))));
+
+        assertSameContent(portfolio, persistence.loadIncremental(tempDir));
+    }
+
+    @Test
+    void loadedPortfolioShouldContinueIncrementallyAndOtherDirectoryGetsFullSave() throws Exception {
+        persistence.saveIncremental(sample(), tempDir);
+
+        Portfolio loaded = persistence.loadIncremental(tempDir);
+        assertTrue(loaded.getDirtySymbols().isEmpty());
+        loaded.getPosition("aapl").addLotUnits(LocalDate.parse("2023-04-01"), 1, 1);
+        assertEquals(Set.of("aapl"), loaded.getDirtySymbols());
+        persistence.saveIncremental(loaded, tempDir);
+        assertSameContent(loaded, persistence.loadIncremental(tempDir));
+
+        // inny katalog z obcym segmentem: pełny zapis i sprzątanie
+        Path other = tempDir.resolve("other");
+        Files.createDirectories(other.resolve(PortfolioPersistence.SEGMENTS_DIR));
+        Files.writeString(other.resolve(PortfolioPersistence.SEGMENTS_DIR).resolve(PortfolioPersistence.segmentName("GONE")),
+                "ASSET|SHARE|GONE|1|Gone|1.0\nLOT|2023-01-01|1|1.0\n");
+        persistence.saveIncremental(loaded, other);
+        assertEquals(4, segmentCount(other.resolve(PortfolioPersistence.SEGMENTS_DIR)));
+        assertSameContent(loaded, persistence.loadIncremental(other));
+    }
+
+    @Test
+    void saveAfterAnotherWriterShouldFallBackToFullSave() {
+        persistence.saveIncremental(sample(), tempDir);
+        Portfolio a = persistence.loadIncremental(tempDir);
+        Portfolio b = persistence.loadIncremental(tempDir);
+
+        a.sellAsset("AAPL", 15, 120.0, LocalDate.parse("2023-03-01"));
+        persistence.saveIncremental(a, tempDir);
+        assertSameContent(a, persistence.loadIncremental(tempDir));
+
+        // b nie widział zapisu a: jego zapis musi być pełny, inaczej zostałaby gotówka b przy pozycjach a
+        b.getPosition("MSFT").setMarkPrice(130.0);
+        persistence.saveIncremental(b, tempDir);
+        assertSameContent(b, persistence.loadIncremental(tempDir));
+
+        a.getPosition("aapl").setMarkPrice(90.0);
+        persistence.saveIncremental(a, tempDir);
+        assertSameContent(a, persistence.loadIncremental(tempDir));
+    }
+
+    @Test
+    void interruptedSaveShouldBlockLoadUntilNextFullSave() throws Exception {
+        Portfolio portfolio = sample();
+        persistence.saveIncremental(portfolio, tempDir);
+        assertFalse(Files.exists(tempDir.resolve(PortfolioPersistence.SAVING_MARKER)));
+
+        // awaria w trakcie zapisu: znacznik został, część segmentów nowa
+        Files.write(tempDir.resolve(PortfolioPersistence.SAVING_MARKER), new byte[0]);
+        Files.delete(tempDir.resolve(PortfolioPersistence.SEGMENTS_DIR).resolve(PortfolioPersistence.segmentName("MSFT")));
+        DataIntegrityException ex = assertThrows(DataIntegrityException.class, () -> persistence.loadIncremental(tempDir));
+        assertTrue(ex.getMessage().startsWith("Incomplete incremental save"));
+
+        portfolio.getPosition("AAPL").setMarkPrice(120.0);
+        persistence.saveIncremental(portfolio, tempDir);
+        assertFalse(Files.exists(tempDir.resolve(PortfolioPersistence.SAVING_MARKER)));
+        assertSameContent(portfolio, persistence.loadIncremental(tempDir));
+    }
+
+    @Test
+    void loadIncrementalShouldValidateSegments() throws Exception {
+        persistence.saveIncremental(sample(), tempDir);
+        Files.writeString(tempDir.resolve(PortfolioPersistence.SEGMENTS_DIR).resolve(PortfolioPersistence.segmentName("BAD")),
+                "ASSET|SHARE|BAD|2|Bad|1.0\nLOT|2023-01-01|1|1.0\n");
+        DataIntegrityException ex = assertThrows(DataIntegrityException.class, () -> persistence.loadIncremental(tempDir));
+        assertEquals("Lots quantity sum mismatch for BAD: expected=2.0, actual=1.0", ex.getMessage());
+
+        assertThrows(DataIntegrityException.class, () -> persistence.loadIncremental(tempDir.resolve("missing")));
+        assertThrows(IllegalArgumentException.class, () -> persistence.loadIncremental(null));
+        assertThrows(IllegalArgumentException.class, () -> persistence.saveIncremental(null, tempDir));
+        assertThrows(IllegalArgumentException.class, () -> persistence.saveIncremental(new Portfolio(0.0), null));
+    }
+
+    private static long segmentCount(Path segments) throws Exception {
+        try (Stream<Path> files = Files.list(segments)) {
+            return files.count();
+        }
+    }
+
+    private static void assertSameContent(Portfolio expected, Portfolio actual) {
+        assertEquals(expected.getCashUnits(), actual.getCashUnits());
+        assertEquals(expected.getPositions().keySet(), actual.getPositions().keySet());
+        for (String symbol : expected.getPositions().keySet()) {
+            Position e = expected.getPosition(symbol);
+            Position a = actual.getPosition(symbol);
+            assertEquals(e.getTotalQuantityUnits(), a.getTotalQuantityUnits(), symbol);
+            assertEquals(e.getTotalCostUnits(), a.getTotalCostUnits(), symbol);
+            assertEquals(e.getMarkPriceUnits(), a.getMarkPriceUnits(), symbol);
+            assertEquals(e.getLotCount(), a.getLotCount(), symbol);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Share;
+import com.stockmarket.exceptions.DataIntegrityException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyLoadTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final PortfolioPersistence persistence = new PortfolioPersistence();
+
+    private static Portfolio sample() {
+        Portfolio portfolio = new Portfolio(100_000.0);
+        // symbol i nazwa spoza ASCII - przesunięcia w indeksie liczone w bajtach UTF-8
+        for (String symbol : new String[]{"AAPL", "MSFT", "ŻÓŁW"}) {
+            portfolio.buyAsset(new Share(symbol, "Spółka " + symbol, 100.0), 10, LocalDate.parse("2023-01-02"), 100.0);
+            portfolio.buyAsset(new Share(symbol, "Spółka " + symbol, 100.0), 5, LocalDate.parse("2023-02-02"), 110.0);
+        }
+        portfolio.getPosition("MSFT").setMarkPrice(120.0);
+        return portfolio;
+    }
+
+    private Path saved() {
+        Path file = tempDir.resolve("portfolio.txt");
+        persistence.save(sample(), file);
+        return file;
+    }
+
+    @Test
+    void saveShouldWriteOffsetIndexNextToFile() throws Exception {
+        Path file = saved();
+        OffsetIndex index = OffsetIndex.read(file);
+
+        assertNotNull(index);
+        assertTrue(Files.exists(OffsetIndex.sidecar(file)));
+        assertEquals(3, index.symbols().size());
+        assertEquals(3, index.blocksOf("ŻÓŁW").length);
+    }
+
+    @Test
+    void lazyLoadShouldReadOnlyAccessedPosition() {
+        Portfolio portfolio = persistence.loadLazy(saved());
+
+        assertEquals(sample().getCash(), portfolio.getCash(), 1e-9);
+        assertEquals(3, portfolio.getHoldingsCount());
+        assertFalse(portfolio.isPositionLoaded("MSFT"));
+
+        Position msft = portfolio.getPosition("MSFT");
+        assertEquals(15.0, msft.getTotalQuantity(), 1e-9);
+        assertEquals(120.0, msft.getMarkPrice(), 1e-9);
+        assertTrue(portfolio.isPositionLoaded("MSFT"));
+        assertFalse(portfolio.isPositionLoaded("AAPL"));
+        assertFalse(portfolio.isPositionLoaded("ŻÓŁW"));
+    }
+
+    @Test
+    void totalValueShouldLoadEverythingAndMatchEagerLoad() {
+        Path file = saved();
+        Portfolio lazy = persistence.loadLazy(file);
+        Portfolio eager = persistence.load(file);
+
+        assertEquals(eager.calculateTotalValue(), lazy.calculateTotalValue(), 1e-9);
+        assertTrue(lazy.isPositionLoaded("AAPL"));
+        assertTrue(lazy.isPositionLoaded("ŻÓŁW"));
+        assertEquals(eager.getPosition("ŻÓŁW").getLots().size(), lazy.getPosition("ŻÓŁW").getLots().size());
+    }
+
+    @Test
+    void tradesShouldWorkOnNotYetLoadedPositions() {
+        Portfolio portfolio = persistence.loadLazy(saved());
+
+        portfolio.sellAsset("AAPL", 12, 130.0, LocalDate.parse("2023-03-01"));
+        assertEquals(3.0, portfolio.getPosition("AAPL").getTotalQuantity(), 1e-9);
+
+        portfolio.buyAsset(new Share("ŻÓŁW", "Spółka ŻÓŁW", 100.0), 1, LocalDate.parse("2023-03-02"), 90.0);
+        assertEquals(3, portfolio.getPosition("ŻÓŁW").getLots().size());
+
+        portfolio.sellAsset("MSFT", 15, 130.0, LocalDate.parse("2023-03-03"));
+        assertEquals(2, portfolio.getHoldingsCount());
+        assertFalse(portfolio.getPositions().containsKey("MSFT"));
+    }
+
+    @Test
+    void savingLazyPortfolioOverItsOwnFileShouldKeepPositions() {
+        Path file = saved();
+        Portfolio lazy = persistence.loadLazy(file);
+        lazy.getPosition("AAPL").setMarkPrice(130.0);
+
+        persistence.save(lazy, file);
+        Portfolio reloaded = persistence.load(file);
+        assertEquals(3, reloaded.getHoldingsCount());
+        assertEquals(lazy.calculateTotalValue(), reloaded.calculateTotalValue(), 1e-9);
+        assertEquals(130.0, reloaded.getPosition("AAPL").getMarkPrice(), 1e-9);
+
+        persistence.saveBinary(persistence.loadLazy(file), file);
+        assertEquals(3, persistence.load(file).getHoldingsCount());
+        assertFalse(Files.exists(file.resolveSibling(file.getFileName() + ".tmp")));
+    }
+
+    @Test
+    void missingOrStaleIndexShouldFallBackToFullLoad() throws Exception {
+        Path file = saved();
+        Files.delete(OffsetIndex.sidecar(file));
+        Portfolio portfolio = persistence.loadLazy(file);
+        assertTrue(portfolio.isPositionLoaded("AAPL"));
+
+        persistence.save(sample(), file);
+        Files.writeString(file, Files.readString(file).replace("MSFT", "IBM"));
+        portfolio = persistence.loadLazy(file);
+        assertTrue(portfolio.isPositionLoaded("IBM"));
+        assertNull(portfolio.getPosition("MSFT"));
+    }
+
+    @Test
+    void indexPointingAtWrongBlockShouldBeRejected() throws Exception {
+        Path file = saved();
+        OffsetIndex index = OffsetIndex.read(file);
+        OffsetIndex swapped = new OffsetIndex();
+        long[] aapl = index.blocksOf("AAPL");
+        swapped.add("MSFT", aapl[0], aapl[1], aapl[2]);
+        swapped.write(file);
+
+        Portfolio portfolio = persistence.loadLazy(file);
+        assertThrows(DataIntegrityException.class, () -> portfolio.getPosition("MSFT"));
+    }
+
+    @Test
+    void fileRewrittenAfterLazyLoadShouldBeRejected() throws Exception {
+        Path file = saved();
+        Portfolio portfolio = persistence.loadLazy(file);
+
+        Portfolio other = sample();
+        other.sellAsset("AAPL", 15, 100.0, LocalDate.parse("2023-03-01"));
+        persistence.save(other, file);
+        assertThrows(DataIntegrityException.class, () -> portfolio.getPosition("MSFT"));
+    }
+
+    @Test
+    void changeHiddenFromSizeAndMtimeShouldBeCaughtByChecksum() throws Exception {
+        Path file = saved();
+        FileTime modified = Files.getLastModifiedTime(file);
+        // ta sama długość pliku, inna cena partii; mtime przywrócony
+        String text = Files.readString(file);
+        int lot = text.indexOf("LOT|2023-01-02|10.0|100.0", text.indexOf("MSFT"));
+        assertTrue(lot > 0);
+        Files.writeString(file, text.substring(0, lot) + "LOT|2023-01-02|10.0|900.0" + text.substring(lot + 25));
+        Files.setLastModifiedTime(file, modified);
+
+        Portfolio portfolio = persistence.loadLazy(file);
+        assertEquals(15.0, portfolio.getPosition("AAPL").getTotalQuantity(), 1e-9);
+        assertThrows(DataIntegrityException.class, () -> portfolio.getPosition("MSFT"));
+    }
+
+    @Test
+    void corruptedIndexShouldBeRejected() throws Exception {
+        Path file = saved();
+        Files.write(OffsetIndex.sidecar(file), new byte[]{0x53, 0x54, 0x4B, 0x49, 0, 9});
+
+        assertThrows(DataIntegrityException.class, () -> persistence.loadLazy(file));
+        assertThrows(IllegalArgumentException.class, () -> persistence.loadLazy(null));
+    }
+}
@@ -0,0 +1,153 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.FixedPoint;
+import com.stockmarket.domain.PurchaseLot;
+import com.stockmarket.domain.Share;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.Iterator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LotStoreTest {
+
+    @Test
+    void ringShouldKeepFifoOrderAcrossWrapAndGrowth() {
+        LotStore store = new LotStore();
+        long day = 0;
+        long expectedHead = 0;
+
+        // naprzemienne dodawanie i zdejmowanie wymusza zawijanie głowy i kolejne powiększenia bufora
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < 3; i++) {
+                assertEquals(day, store.add((int) day, day * 10, 1 + day));
+                day++;
+            }
+            store.reduce(store.firstId(), 1 + expectedHead);
+            expectedHead++;
+        }
+
+        assertEquals(100, store.size());
+        assertEquals(expectedHead, store.firstId());
+        for (int i = 0; i < store.slotCount(); i++) {
+            long id = store.idAt(i);
+            assertEquals(expectedHead + i, id);
+            assertEquals(id, store.dayOf(id));
+            assertEquals(id * 10, store.priceOf(id));
+            assertEquals(1 + id, store.quantityOf(id));
+        }
+
+        store.reduce(store.firstId(), 10);
+        assertEquals(100, store.size());
+        assertEquals(1 + expectedHead - 10, store.quantityOf(expectedHead));
+        assertThrows(IllegalArgumentException.class, () -> store.reduce(store.firstId(), Long.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> store.dayOf(0));
+    }
+
+    @Test
+    void tombstonesShouldBeSkippedAndTrimmedAtBothEnds() {
+        LotStore store = new LotStore();
+        for (int i = 0; i < 5; i++) {
+            store.add(i, 100, 10);
+        }
+
+        store.reduce(2, 10);
+        store.reduce(3, 10);
+        assertFalse(store.isLive(2));
+        assertEquals(3, store.size());
+        assertEquals(5, store.slotCount());
+        assertEquals(3L, store.idAt(3));
+        assertEquals(0L, store.quantityAt(3));
+
+        // zużycie ogona odsłania tombstone'y, które też są zdejmowane
+        store.reduce(4, 10);
+        assertEquals(1, store.lastId());
+        assertEquals(2, store.slotCount());
+
+        store.reduce(0, 10);
+        store.reduce(1, 10);
+        assertTrue(store.isEmpty());
+        assertEquals(-1, store.firstId());
+        assertEquals(-1, store.lastId());
+        // id nie wracają do obiegu po zdjęciu ogona
+        assertEquals(5, store.add(9, 1, 1));
+        assertFalse(store.isLive(2));
+    }
+
+    @Test
+    void middleTombstonesShouldBeCompactedAndArraysShrunk() {
+        LotStore store = new LotStore();
+        for (int i = 0; i < 1024; i++) {
+            store.add(i, i, 10);
+        }
+        assertEquals(1024, store.capacity());
+
+        // zużycie ze środka (jak LIFO bez ogona): głowa i ogon żywe, dziury w środku
+        for (long id = 1; id < 1023; id++) {
+            if (id % 8 != 0) store.reduce(id, 10);
+        }
+        assertEquals(2 + 127, store.size());
+        assertTrue(store.slotCount() <= 2 * store.size(), "slots " + store.slotCount());
+        assertTrue(store.capacity() <= 512, "capacity " + store.capacity());
+
+        // kolejność id i dane partii bez zmian
+        long previous = -1;
+        for (int i = 0; i < store.slotCount(); i++) {
+            if (store.quantityAt(i) == 0) continue;
+            long id = store.idAt(i);
+            assertTrue(id > previous);
+            assertTrue(id == 1023 || id % 8 == 0);
+            assertEquals(id, store.priceOf(id));
+            previous = id;
+        }
+        assertEquals(0, store.firstId());
+        assertEquals(1023, store.lastId());
+        assertEquals(1024, store.add(7, 7, 1));
+        assertTrue(store.isLive(1024));
+        assertFalse(store.isLive(5));
+
+        for (long id = 0; id <= 1024; id++) {
+            if (store.isLive(id)) store.reduce(id, store.quantityOf(id));
+        }
+        assertTrue(store.isEmpty());
+        assertEquals(4, store.capacity());
+    }
+
+    @Test
+    void getLotsShouldBeReadOnlyLiveView() {
+        Position position = new Position(new Share("XYZ", "XYZ Corp", 1.0));
+        position.addLot(new PurchaseLot(LocalDate.parse("2023-01-01"), 100.0, 10.0));
+        position.addLotUnits(LocalDate.parse("2023-02-01"), FixedPoint.of(120.0), FixedPoint.of(5.0));
+
+        Deque<PurchaseLot> lots = position.getLots();
+        assertEquals(2, lots.size());
+        assertEquals(LocalDate.parse("2023-02-01"), lots.peekLast().getPurchaseDate());
+        assertEquals(120.0, lots.peekLast().getUnitPrice(), 0.0);
+        assertEquals(120.0, lots.descendingIterator().next().getUnitPrice(), 0.0);
+
+        // zmiana kolekcji rzuca, elementy to migawki
+        assertThrows(UnsupportedOperationException.class, lots::clear);
+        assertThrows(UnsupportedOperationException.class, lots::pollFirst);
+        assertThrows(UnsupportedOperationException.class,
+                () -> lots.addLast(new PurchaseLot(LocalDate.parse("2023-03-01"), 1.0, 1.0)));
+        assertThrows(UnsupportedOperationException.class, () -> lots.iterator().remove());
+        lots.peekFirst().reduceQuantity(10.0);
+        assertEquals(15.0, position.getTotalQuantity(), 0.0);
+
+        // widok na żywo: ten sam obiekt, zużyta partia znika
+        position.sellFifo(10.0, 130.0);
+        assertSame(lots, position.getLots());
+        assertEquals(1, lots.size());
+        assertEquals(LocalDate.parse("2023-02-01"), lots.getFirst().getPurchaseDate());
+
+        Iterator<PurchaseLot> it = lots.iterator();
+        position.addLotUnits(LocalDate.parse("2023-03-01"), FixedPoint.of(90.0), FixedPoint.of(1.0));
+        assertThrows(ConcurrentModificationException.class, it::hasNext);
+
+        assertThrows(IllegalArgumentException.class, () -> position.addLotUnits(null, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> position.addLotUnits(LocalDate.parse("2023-01-01"), -1, 1));
+    }
+}
@@ -0,0 +1,241 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.PurchaseLot;
+import com.stockmarket.exceptions.DataIntegrityException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedTextLoaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final PortfolioPersistence persistence = new PortfolioPersistence();
+
+    private static final String[] INPUTS = {
+            "",
+            "\n",
+            "HEADER|CASH\n",
+            "HEAD|CASH|1000.0\n",
+            "HEADER|CASH|not_a_number\n",
+            "HEADER|CASH|1000.0",
+            "HEADER|CASH|1000.0\nLOT|2023-05-10|10|150.0\n",
+            "HEADER|CASH|1000.0\nWAT|X\n",
+            "HEADER|CASH|1000.0\n|||\n",
+            "HEADER|CASH|1000.0\nHEADER|CASH|1.0\n",
+            "HEADER|CASH|1000.0\nASSET|NOPE|AAA|0|Name|10.0\n",
+            "HEADER|CASH|1000.0\nASSET|SHARE|AAA|Name\n",
+            "HEADER|CASH|1000.0\nASSET|SHARE|AAA|1|Name|x\n",
+            "HEADER|CASH|1000.0\nASSET|SHARE|AAPL|15|Apple|150.0\nLOT|2023-05-10|10|150.0\n",
+            "HEADER|CASH|1000.0\nASSET|SHARE|AAPL|0|Apple|150.0\nLOT|2023-05-10|10\n",
+            "HEADER|CASH|1000.0\nASSET|SHARE|AAPL|0|Apple|150.0\nLOT|2023-05-10|10|150.0|\n",
+            "HEADER|CASH|1000.0\nASSET|SHARE|AAA|1|Name|10.0\nLOT|not-a-date|1|10.0\n",
+            "HEADER|CASH|1000.0\nASSET|SHARE|AAA|1|Name|10.0\nLOT|2023-02-30|1|10.0\n",
+            "HEADER|CASH|1000.0\nASSET|SHARE|AAA|1|Name|10.0\nLOT|2023-1-01|1|10.0\n",
+            "HEADER|CASH|1000.0\nASSET|SHARE|AAA|0|Name|10.0\nLOT|2023-01-01|0|10.0\n",
+            "HEADER|CASH|1000.0\nASSET|SHARE|AAA|0|Name|10.0\nLOT|2023-01-01|-1|10.0\n",
+            "HEADER|CASH|1000.0\nASSET|SHARE|AAA|1|Name|10.0\nLOT|2023-01-01|1|-10.0\n",
+            "HEADER|CASH|1000.0\nASSET|SHARE|AAA|1|Name|10.0\nLOT|2023-01-01|1|1x\n",
+            "HEADER|CASH|1000.0\nASSET|SHARE|AAA|1|Name|10.0\nLOT|2023-01-01|1|\n",
+            "HEADER|CASH|1000.0\nASSET|SHARE|AAA|Name|10.0\nLOT|2023-01-01|2|10.0\n",
+            // liczby spoza szybkiej ścieżki: wykładnik, brak części całkowitej, znak +, >8 miejsc, długie
+            "HEADER|CASH|1e3\nASSET|SHARE|AAA|3.5|Name|10.0\nLOT|2023-01-01|.5|+10.0\nLOT|2023-01-02|3.000000001|12345678901.5\n",
+            "HEADER|CASH|1000.0\nASSET|SHARE|AAA|3|Name|10.0\nLOT|2023-01-01|1.123456789|10\nLOT|2023-01-01|1.876543211|10\n",
+            // końce linii \r\n i samo \r, puste linie, brak końca ostatniej linii
+            "HEADER|CASH|1000.0\r\nASSET|COMMODITY|GOLD|1|Gold|10.0\r\n\r\n   \r\nLOT|2023-01-01|1|10.0\r\n",
+            "HEADER|CASH|1000.0\rASSET|CURRENCY|EUR|1|Euro|4.3\rLOT|2023-01-01|1|4.3",
+            "HEADER|CASH|1000.0\nASSET|SHARE|AAA|1|Name|10.0\nLOT|2023-01-01|1|10.0\nASSET|SHARE|AAA|1|Other|11.0\nLOT|2023-01-02|1|11.0\n",
+            "HEADER|CASH|1000.0\nASSET|SHARE|ŻUK|1|Żuk sp. z o.o.|10.0\nLOT|2023-01-01|1|10.0\n",
+    };
+
+    @Test
+    void shouldMatchReaderBasedLoadOnValidAndBrokenInputs() throws Exception {
+        for (int i = 0; i < INPUTS.length; i++) {
+            Path file = tempDir.resolve("case" + i + ".txt");
+            Files.writeString(file, INPUTS[i]);
+            assertSameOutcome(file, MappedTextLoader.DEFAULT_WINDOW_BYTES, "case " + i);
+            assertSameOutcome(file, 48, "case " + i + " (small window)");
+        }
+    }
+
+    @Test
+    void shouldRemapWindowsAcrossLineBoundaries() throws Exception {
+        Random random = new Random(22);
+        StringBuilder sb = new StringBuilder("HEADER|CASH|12345.678\r\n");
+        for (int a = 0; a < 20; a++) {
+            int lots = 1 + random.nextInt(30);
+            List<String> lotLines = new ArrayList<>();
+            long total = 0;
+            for (int l = 0; l < lots; l++) {
+                int qty = 1 + random.nextInt(1000);
+                total += qty;
+                lotLines.add("LOT|" + LocalDate.parse("2015-01-01").plusDays(random.nextInt(3650)) + "|" + qty / 100.0
+                        + "|" + random.nextInt(100_000) / 1000.0);
+            }
+            sb.append("ASSET|SHARE|S").append(a).append('|').append(total / 100.0).append("|Name ").append(a).append("|1.5")
+                    .append(a % 2 == 0 ? "\n" : "\r\n");
+            for (String line : lotLines) sb.append(line).append(random.nextBoolean() ? "\n" : "\r\n");
+        }
+        Path file = tempDir.resolve("big.txt");
+        Files.writeString(file, sb.toString());
+
+        for (int window : new int[]{64, 65, 97, 128, 4096}) {
+            assertSameOutcome(file, window, "window " + window);
+        }
+    }
+
+    @Test
+    void parallelLoadShouldMatchSequentialForAnyChunking() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int i = 0; i < INPUTS.length; i++) {
+                Path file = tempDir.resolve("case" + i + ".txt");
+                Files.writeString(file, INPUTS[i]);
+                for (long chunk : new long[]{1, 7, 40, 1 << 20}) {
+                    assertSameOutcome(file, f -> loadParallel(f, pool, chunk, 48), "case " + i + " chunk " + chunk);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void parallelLoadShouldMergeRepeatedSymbolsAndReportFirstErrorInFileOrder() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(8);
+        try {
+            StringBuilder sb = new StringBuilder("HEADER|CASH|1000.0\n");
+            for (int a = 0; a < 200; a++) {
+                // symbole powtarzają się w różnych fragmentach
+                sb.append("ASSET|SHARE|S").append(a % 7).append("|2|Name|1.0\n");
+                sb.append("LOT|2023-01-01|1|").append(a).append(".5\n");
+                sb.append("LOT|2023-01-02|1|").append(a).append(".25\n");
+            }
+            Path file = tempDir.resolve("repeated.txt");
+            Files.writeString(file, sb.toString());
+            for (long chunk : new long[]{1, 100, 1000}) {
+                assertSameOutcome(file, f -> loadParallel(f, pool, chunk, 4096), "chunk " + chunk);
+            }
+            assertSameOutcome(file, f -> persistence.loadParallel(f, pool), "default chunking");
+
+            // dwa błędy w różnych fragmentach - zawsze ten wcześniejszy
+            String broken = sb.toString()
+                    .replace("LOT|2023-01-01|1|150.5", "LOT|2023-01-01|1|x")
+                    .replace("LOT|2023-01-01|1|20.5", "LOT|2023-01-01|2|20.5");
+            Path brokenFile = tempDir.resolve("broken.txt");
+            Files.writeString(brokenFile, broken);
+            for (int run = 0; run < 20; run++) {
+                DataIntegrityException ex = assertThrows(DataIntegrityException.class, () -> loadParallel(brokenFile, pool, 50, 4096));
+                assertEquals("Lots quantity sum mismatch for S6: expected=2.0, actual=3.0", ex.getMessage());
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> persistence.loadParallel(null));
+        assertThrows(IllegalArgumentException.class, () -> persistence.loadParallel(tempDir.resolve("x"), null));
+    }
+
+    @Test
+    void shouldRejectLinesLongerThanWindowAndInvalidUtf8() throws Exception {
+        Path file = tempDir.resolve("long.txt");
+        Files.writeString(file, "HEADER|CASH|1000.0\nASSET|SHARE|AAA|1|" + "N".repeat(100) + "|10.0\n");
+        assertThrows(DataIntegrityException.class, () -> load(file, 64));
+
+        Path bad = tempDir.resolve("bad.txt");
+        byte[] head = "HEADER|CASH|1000.0\nASSET|SHARE|A".getBytes(StandardCharsets.UTF_8);
+        byte[] tail = "|1|Name|10.0\nLOT|2023-01-01|1|10.0\n".getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = new byte[head.length + 1 + tail.length];
+        System.arraycopy(head, 0, bytes, 0, head.length);
+        bytes[head.length] = (byte) 0xC3; // ucięty znak dwubajtowy
+        System.arraycopy(tail, 0, bytes, head.length + 1, tail.length);
+        Files.write(bad, bytes);
+        assertSameOutcome(bad, MappedTextLoader.DEFAULT_WINDOW_BYTES, "invalid utf-8");
+    }
+
+    @Test
+    void loadMappedShouldValidateArgs() {
+        assertThrows(IllegalArgumentException.class, () -> persistence.loadMapped(null));
+        assertThrows(DataIntegrityException.class, () -> persistence.loadMapped(tempDir.resolve("missing.txt")));
+    }
+
+    private Portfolio load(Path file, int window) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new MappedTextLoader(channel, window).load();
+        } catch (IOException e) {
+            throw new DataIntegrityException("I/O error during load", e);
+        }
+    }
+
+    private Portfolio loadParallel(Path file, ForkJoinPool pool, long chunkBytes, int window) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return MappedTextLoader.loadParallel(channel, pool, chunkBytes, window);
+        } catch (IOException e) {
+            throw new DataIntegrityException("I/O error during load", e);
+        }
+    }
+
+    private void assertSameOutcome(Path file, int window, String label) {
+        assertSameOutcome(file, f -> window == MappedTextLoader.DEFAULT_WINDOW_BYTES ? persistence.loadMapped(f) : load(f, window), label);
+    }
+
+    private void assertSameOutcome(Path file, Function<Path, Portfolio> loader, String label) {
+        Portfolio expected = null;
+        RuntimeException expectedError = null;
+        try {
+            expected = persistence.load(file);
+        } catch (RuntimeException e) {
+            expectedError = e;
+        }
+
+        Portfolio actual = null;
+        RuntimeException actualError = null;
+        try {
+            actual = loader.apply(file);
+        } catch (RuntimeException e) {
+            actualError = e;
+        }
+
+        if (expectedError != null) {
+            assertNotNull(actualError, label + ": expected " + expectedError);
+            assertEquals(expectedError.getClass(), actualError.getClass(), label);
+            assertEquals(expectedError.getMessage(), actualError.getMessage(), label);
+            return;
+        }
+        assertNull(actualError, label);
+        assertEquals(expected.getCashUnits(), actual.getCashUnits(), label);
+        assertEquals(expected.getPositions().keySet(), actual.getPositions().keySet(), label);
+        for (Map.Entry<String, Position> entry : expected.getPositions().entrySet()) {
+            Position e = entry.getValue();
+            Position a = actual.getPosition(entry.getKey());
+            assertEquals(e.getAsset().getName(), a.getAsset().getName(), label);
+            assertEquals(e.getAsset().getType(), a.getAsset().getType(), label);
+            assertEquals(e.getMarkPriceUnits(), a.getMarkPriceUnits(), label);
+            assertEquals(e.getTotalQuantityUnits(), a.getTotalQuantityUnits(), label);
+            List<PurchaseLot> el = new ArrayList<>(e.getLots());
+            List<PurchaseLot> al = new ArrayList<>(a.getLots());
+            assertEquals(el.size(), al.size(), label);
+            for (int i = 0; i < el.size(); i++) {
+                assertEquals(el.get(i).getPurchaseDate(), al.get(i).getPurchaseDate(), label);
+                assertEquals(el.get(i).getQuantityUnits(), al.get(i).getQuantityUnits(), label);
+                assertEquals(el.get(i).getUnitPriceUnits(), al.get(i).getUnitPriceUnits(), label);
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.stockmarket.logic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchingEngineTest {
+
+    @Test
+    void crossingOrdersShouldTradeAtRestingPriceAndRestTheRemainder() {
+        List<Fill> fills = new ArrayList<>();
+        MatchingEngine engine = new MatchingEngine(fills::add);
+
+        Order sell = new Order("XYZ", OrderSide.SELL, 100.0, 5.0, 1L);
+        Order buy = new Order("XYZ", OrderSide.BUY, 101.0, 8.0, 2L);
+
+        engine.submit(sell);
+        engine.submit(buy);
+
+        assertEquals(1, fills.size());
+        Fill f = fills.get(0);
+        assertEquals(100.0, f.getPrice(), 0.0001);
+        assertEquals(5.0, f.getQuantity(), 0.0001);
+        assertSame(buy, f.getBuyOrder());
+        assertSame(sell, f.getSellOrder());
+        assertEquals(OrderSide.BUY, f.getAggressorSide());
+
+        assertTrue(sell.isFilled());
+        assertEquals(3.0, buy.getRemainingQuantity(), 0.0001);
+        assertNull(engine.getBestAsk("XYZ"));
+        assertSame(buy, engine.getBestBid("XYZ"));
+    }
+
+    @Test
+    void incomingOrderShouldSweepLevelsInPriceTimePriority() {
+        List<Fill> fills = new ArrayList<>();
+        MatchingEngine engine = new MatchingEngine(fills::add);
+
+        Order b1 = new Order("XYZ", OrderSide.BUY, 99.0, 2.0, 1L);
+        Order b2 = new Order("XYZ", OrderSide.BUY, 100.0, 2.0, 2L);
+        Order b3 = new Order("XYZ", OrderSide.BUY, 100.0, 2.0, 3L);
+        engine.submit(b1);
+        engine.submit(b2);
+        engine.submit(b3);
+
+        engine.submit(new Order("XYZ", OrderSide.SELL, 99.5, 3.0, 4L));
+
+        assertEquals(2, fills.size());
+        assertSame(b2, fills.get(0).getBuyOrder());
+        assertSame(b3, fills.get(1).getBuyOrder());
+        assertEquals(1.0, fills.get(1).getQuantity(), 0.0001);
+
+        // b3 częściowo wypełnione zostaje na czele kolejki
+        assertSame(b3, engine.getBestBid("XYZ"));
+        assertEquals(1.0, b3.getRemainingQuantity(), 0.0001);
+        assertEquals(2, engine.getBook("XYZ", OrderSide.BUY).size());
+    }
+
+    @Test
+    void nonCrossingOrdersAndOtherSymbolsShouldNotTrade() {
+        List<Fill> fills = new ArrayList<>();
+        MatchingEngine engine = new MatchingEngine(fills::add);
+
+        engine.submit(new Order("XYZ", OrderSide.BUY, 99.0, 1.0, 1L));
+        engine.submit(new Order("XYZ", OrderSide.SELL, 100.0, 1.0, 2L));
+        engine.submit(new Order("ABC", OrderSide.SELL, 50.0, 1.0, 3L));
+
+        assertTrue(fills.isEmpty());
+        assertNull(engine.getBook("NOPE", OrderSide.BUY));
+        assertThrows(IllegalArgumentException.class, () -> new MatchingEngine(null));
+        assertThrows(IllegalArgumentException.class, () -> engine.submit(null));
+    }
+
+    @Test
+    void orderFillShouldValidateAmount() {
+        Order o = new Order("XYZ", OrderSide.BUY, 10.0, 2.0, 1L);
+
+        assertThrows(IllegalArgumentException.class, () -> o.fill(0.0));
+        assertThrows(IllegalArgumentException.class, () -> o.fill(3.0));
+
+        o.fill(0.5);
+        assertEquals(1.5, o.getRemainingQuantity(), 0.0001);
+        assertEquals(2.0, o.getQuantity(), 0.0001);
+        o.fill(1.5);
+        assertTrue(o.isFilled());
+    }
+}
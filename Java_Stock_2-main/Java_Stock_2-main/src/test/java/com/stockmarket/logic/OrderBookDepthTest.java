@@ -0,0 +1,77 @@
+package com.stockmarket.logic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderBookDepthTest {
+
+    @Test
+    void depthShouldAggregateTopLevelsFromBestPrice() {
+        PriceLevelOrderBook book = new PriceLevelOrderBook(OrderSide.BUY);
+        book.add(new Order("XYZ", OrderSide.BUY, 100.0, 1.0, 1L));
+        book.add(new Order("XYZ", OrderSide.BUY, 100.0, 2.0, 2L));
+        book.add(new Order("XYZ", OrderSide.BUY, 101.0, 5.0, 3L));
+        book.add(new Order("XYZ", OrderSide.BUY, 99.0, 7.0, 4L));
+
+        List<DepthLevel> depth = book.getDepth(2);
+        assertEquals(2, depth.size());
+        assertEquals(101.0, depth.get(0).getPrice(), 0.0001);
+        assertEquals(5.0, depth.get(0).getQuantity(), 0.0001);
+        assertEquals(100.0, depth.get(1).getPrice(), 0.0001);
+        assertEquals(3.0, depth.get(1).getQuantity(), 0.0001);
+        assertEquals(2, depth.get(1).getOrderCount());
+
+        double[] prices = new double[10];
+        double[] qty = new double[10];
+        int[] counts = new int[10];
+        assertEquals(3, book.copyDepth(prices, qty, counts));
+        assertEquals(99.0, prices[2], 0.0001);
+        assertEquals(7.0, qty[2], 0.0001);
+
+        assertThrows(IllegalArgumentException.class, () -> book.getDepth(0));
+    }
+
+    @Test
+    void deltasShouldReportOnlyLevelsChangedSinceLastDrain() {
+        PriceLevelOrderBook book = new PriceLevelOrderBook(OrderSide.SELL);
+        assertThrows(IllegalStateException.class, () -> book.drainDeltas(d -> { }));
+
+        book.add(new Order(1L, "XYZ", OrderSide.SELL, 10.0, 1.0, 1L));
+        book.enableDeltas();
+
+        List<DepthDelta> deltas = new ArrayList<>();
+        assertEquals(1, book.drainDeltas(deltas::add));
+        assertEquals(DepthChange.ADDED, deltas.get(0).getChange());
+        assertEquals(OrderSide.SELL, deltas.get(0).getSide());
+        assertEquals(0, book.drainDeltas(deltas::add));
+
+        deltas.clear();
+        book.add(new Order(2L, "XYZ", OrderSide.SELL, 10.0, 2.0, 2L));
+        book.add(new Order(3L, "XYZ", OrderSide.SELL, 11.0, 4.0, 3L));
+        book.add(new Order(4L, "XYZ", OrderSide.SELL, 12.0, 1.0, 4L));
+        book.cancel(4L); // dodany i usunięty między odczytami - odbiorca go nie zobaczy
+        book.drainDeltas(deltas::add);
+
+        assertEquals(2, deltas.size());
+        assertEquals(DepthChange.CHANGED, deltas.get(0).getChange());
+        assertEquals(10.0, deltas.get(0).getPrice(), 0.0001);
+        assertEquals(3.0, deltas.get(0).getQuantity(), 0.0001);
+        assertEquals(2, deltas.get(0).getOrderCount());
+        assertEquals(DepthChange.ADDED, deltas.get(1).getChange());
+        assertEquals(11.0, deltas.get(1).getPrice(), 0.0001);
+
+        deltas.clear();
+        book.fillHead(1.0);
+        book.cancel(2L);
+        book.drainDeltas(deltas::add);
+
+        assertEquals(1, deltas.size());
+        assertEquals(DepthChange.REMOVED, deltas.get(0).getChange());
+        assertEquals(10.0, deltas.get(0).getPrice(), 0.0001);
+        assertEquals(0.0, deltas.get(0).getQuantity(), 0.0001);
+    }
+}
@@ -0,0 +1,129 @@
+package com.stockmarket.logic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderCancelAmendTest {
+
+    private static final List<Function<OrderSide, BookSide>> BOOKS = List.of(OrderBook::new, PriceLevelOrderBook::new);
+
+    @Test
+    void cancelShouldRemoveRestingOrderById() {
+        for (Function<OrderSide, BookSide> factory : BOOKS) {
+            BookSide book = factory.apply(OrderSide.BUY);
+            Order a = new Order(1L, "XYZ", OrderSide.BUY, 101.0, 1.0, 1L);
+            Order b = new Order(2L, "XYZ", OrderSide.BUY, 100.0, 1.0, 2L);
+            book.add(a);
+            book.add(b);
+
+            assertSame(a, book.find(1L));
+            assertTrue(book.cancel(1L));
+            assertFalse(book.cancel(1L));
+            assertNull(book.find(1L));
+
+            assertEquals(1, book.size());
+            assertSame(b, book.peek());
+            assertSame(b, book.poll());
+            assertNull(book.poll());
+        }
+    }
+
+    @Test
+    void reducingQuantityShouldKeepQueuePriority() {
+        for (Function<OrderSide, BookSide> factory : BOOKS) {
+            BookSide book = factory.apply(OrderSide.SELL);
+            Order first = new Order(1L, "XYZ", OrderSide.SELL, 10.0, 5.0, 1L);
+            Order second = new Order(2L, "XYZ", OrderSide.SELL, 10.0, 5.0, 2L);
+            book.add(first);
+            book.add(second);
+
+            assertTrue(book.amend(1L, 2.0, 10.0));
+
+            assertSame(first, book.peek());
+            assertEquals(2.0, first.getRemainingQuantity(), 0.0001);
+        }
+    }
+
+    @Test
+    void increasingQuantityOrChangingPriceShouldLosePriority() {
+        for (Function<OrderSide, BookSide> factory : BOOKS) {
+            BookSide book = factory.apply(OrderSide.SELL);
+            Order first = new Order(1L, "XYZ", OrderSide.SELL, 10.0, 5.0, 1L);
+            Order second = new Order(2L, "XYZ", OrderSide.SELL, 10.0, 5.0, 2L);
+            Order third = new Order(3L, "XYZ", OrderSide.SELL, 11.0, 5.0, 3L);
+            book.add(first);
+            book.add(second);
+            book.add(third);
+
+            assertTrue(book.amend(1L, 6.0, 10.0));
+            assertSame(second, book.peek());
+
+            assertTrue(book.amend(3L, 5.0, 9.0));
+            assertSame(third, book.peek());
+            assertEquals(9.0, third.getLimitPrice(), 0.0001);
+
+            assertEquals(3, book.size());
+            assertSame(third, book.poll());
+            assertSame(second, book.poll());
+            assertSame(first, book.poll());
+            assertNull(book.poll());
+        }
+    }
+
+    @Test
+    void amendShouldValidateArgumentsAndRejectDuplicateIds() {
+        for (Function<OrderSide, BookSide> factory : BOOKS) {
+            BookSide book = factory.apply(OrderSide.BUY);
+            book.add(new Order(1L, "XYZ", OrderSide.BUY, 10.0, 1.0, 1L));
+
+            assertFalse(book.amend(99L, 1.0, 10.0));
+            assertThrows(IllegalArgumentException.class, () -> book.amend(1L, 0.0, 10.0));
+            assertThrows(IllegalArgumentException.class, () -> book.amend(1L, 1.0, -1.0));
+            assertThrows(IllegalArgumentException.class,
+                    () -> book.add(new Order(1L, "XYZ", OrderSide.BUY, 11.0, 1.0, 2L)));
+        }
+    }
+
+    @Test
+    void engineAmendToCrossingPriceShouldTrade() {
+        List<Fill> fills = new ArrayList<>();
+        MatchingEngine engine = new MatchingEngine(fills::add);
+
+        engine.submit(new Order(1L, "XYZ", OrderSide.SELL, 101.0, 1.0, 1L));
+        engine.submit(new Order(2L, "XYZ", OrderSide.BUY, 99.0, 1.0, 2L));
+        assertTrue(fills.isEmpty());
+
+        assertTrue(engine.amend("XYZ", 2L, 1.0, 101.0));
+        assertEquals(1, fills.size());
+        assertEquals(101.0, fills.get(0).getPrice(), 0.0001);
+
+        engine.submit(new Order(3L, "XYZ", OrderSide.BUY, 90.0, 1.0, 3L));
+        assertTrue(engine.cancel("XYZ", 3L));
+        assertFalse(engine.cancel("XYZ", 3L));
+        assertFalse(engine.cancel("NOPE", 3L));
+        assertNull(engine.getBestBid("XYZ"));
+    }
+
+    @Test
+    void cancelAndAmendTrafficShouldNotGrowHeap() {
+        OrderBook book = new OrderBook(OrderSide.BUY);
+        book.add(new Order(0L, "XYZ", OrderSide.BUY, 50.0, 1.0, 0L));
+        for (long id = 1; id <= 10_000; id++) {
+            // anulowane i przecenione wpisy nie dochodzą do głowy kopca
+            book.add(new Order(id, "XYZ", OrderSide.BUY, 10.0, 1.0, id));
+            if (id % 2 == 0) book.cancel(id);
+            else book.amend(id, 1.0, 11.0);
+        }
+
+        assertEquals(5_001, book.size());
+        assertTrue(book.queuedEntries() <= 2 * book.size() + 1, "entries " + book.queuedEntries());
+        assertEquals(0L, book.poll().getId());
+        assertEquals(1L, book.poll().getId());
+        assertEquals(3L, book.peek().getId());
+    }
+}
@@ -0,0 +1,112 @@
+package com.stockmarket.logic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderRingBufferTest {
+
+    @Test
+    void drainShouldDeliverCommandsInClaimOrderAndRespectBatchSize() {
+        OrderRingBuffer ring = new OrderRingBuffer(8, WaitStrategy.BUSY_SPIN);
+        Order a = new Order(1L, "XYZ", OrderSide.BUY, 10.0, 1.0, 1L);
+        Order b = new Order(2L, "XYZ", OrderSide.BUY, 10.0, 1.0, 2L);
+
+        ring.publishNew(a);
+        ring.publishCancel("XYZ", 1L);
+        ring.publishNew(b);
+        assertEquals(3, ring.size());
+
+        List<String> seen = new ArrayList<>();
+        assertEquals(2, ring.drain(c -> seen.add(c.getType() + ":" + c.getOrderId()), 2));
+        assertEquals(1, ring.drain(c -> seen.add(c.getType() + ":" + c.getOrderId()), 10));
+        assertEquals(0, ring.drain(c -> seen.add("unexpected"), 10));
+
+        assertEquals(List.of("NEW:1", "CANCEL:1", "NEW:2"), seen);
+        assertEquals(0, ring.size());
+    }
+
+    @Test
+    void tryPublishShouldFailWhenFullUntilConsumerDrains() {
+        OrderRingBuffer ring = new OrderRingBuffer(2, WaitStrategy.YIELD);
+
+        assertTrue(ring.tryPublishNew(new Order("XYZ", OrderSide.BUY, 1.0, 1.0, 1L)));
+        assertTrue(ring.tryPublishNew(new Order("XYZ", OrderSide.BUY, 1.0, 1.0, 1L)));
+        assertFalse(ring.tryPublishNew(new Order("XYZ", OrderSide.BUY, 1.0, 1.0, 1L)));
+
+        ring.drain(c -> { }, 1);
+        assertTrue(ring.tryPublishNew(new Order("XYZ", OrderSide.BUY, 1.0, 1.0, 1L)));
+    }
+
+    @Test
+    void constructorShouldValidateArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new OrderRingBuffer(3, WaitStrategy.PARK));
+        assertThrows(IllegalArgumentException.class, () -> new OrderRingBuffer(0, WaitStrategy.PARK));
+        assertThrows(IllegalArgumentException.class, () -> new OrderRingBuffer(4, null));
+        assertThrows(IllegalArgumentException.class, () -> new OrderRingBuffer(4, WaitStrategy.PARK).drain(null, 1));
+    }
+
+    @Test
+    void manyProducersShouldFeedSingleSequencerWithoutLosingOrders() throws Exception {
+        int producers = 4;
+        int perProducer = 20_000;
+        AtomicLong filledQty = new AtomicLong();
+
+        OrderRingBuffer ring = new OrderRingBuffer(1024, WaitStrategy.YIELD);
+        MatchingEngine engine = new MatchingEngine(f -> filledQty.addAndGet((long) f.getQuantity()));
+        OrderSequencer sequencer = new OrderSequencer(ring, engine, WaitStrategy.PARK, 64);
+        Thread consumer = new Thread(sequencer);
+        consumer.start();
+
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            OrderSide side = p % 2 == 0 ? OrderSide.BUY : OrderSide.SELL;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    ring.publishNew(new Order("XYZ", side, 100.0, 1.0, i));
+                }
+            });
+            threads[p].start();
+        }
+        for (Thread t : threads) t.join();
+
+        sequencer.stop();
+        consumer.join();
+
+        assertEquals((long) producers * perProducer, sequencer.getProcessedCount());
+        assertEquals(0, sequencer.getRejectedCount());
+        // tyle samo kupna co sprzedaży po tej samej cenie - wszystko się skrzyżowało
+        assertEquals((long) producers / 2 * perProducer, filledQty.get());
+        assertNull(engine.getBestBid("XYZ"));
+        assertNull(engine.getBestAsk("XYZ"));
+    }
+
+    @Test
+    void failingListenerShouldNotStopSequencer() throws Exception {
+        RuntimeException boom = new UnsupportedOperationException("listener failure");
+        OrderRingBuffer ring = new OrderRingBuffer(4, WaitStrategy.YIELD);
+        MatchingEngine engine = new MatchingEngine(f -> {
+            throw boom;
+        });
+        OrderSequencer sequencer = new OrderSequencer(ring, engine, WaitStrategy.PARK, 2);
+        Thread consumer = new Thread(sequencer);
+        consumer.start();
+
+        // więcej komend niż mieści bufor: producent przejdzie tylko, jeśli konsument żyje
+        for (int i = 0; i < 100; i++) {
+            ring.publishNew(new Order("XYZ", OrderSide.BUY, 100.0, 1.0, i));
+            ring.publishNew(new Order("XYZ", OrderSide.SELL, 100.0, 1.0, i));
+        }
+        sequencer.stop();
+        consumer.join();
+
+        assertEquals(200, sequencer.getProcessedCount());
+        assertEquals(100, sequencer.getFailedCount());
+        assertEquals(0, sequencer.getRejectedCount());
+        assertSame(boom, sequencer.getLastFailure());
+    }
+}
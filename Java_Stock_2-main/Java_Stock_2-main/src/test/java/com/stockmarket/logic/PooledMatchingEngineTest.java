@@ -0,0 +1,78 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.FixedPoint;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PooledMatchingEngineTest {
+
+    private final List<double[]> fills = new ArrayList<>();
+
+    private PooledMatchingEngine newEngine(int capacity) {
+        return new PooledMatchingEngine(capacity, 0.0, 0.01, 100_000,
+                (buyId, sellId, aggressor, price, qty) -> fills.add(new double[]{buyId, sellId, FixedPoint.toDouble(price), FixedPoint.toDouble(qty)}));
+    }
+
+    @Test
+    void shouldMatchPartiallyAndRestRemainderAtBestPrice() {
+        PooledMatchingEngine engine = newEngine(16);
+
+        assertEquals(2.0, engine.submit(1L, OrderSide.SELL, 100.00, 2.0, 1L), 0.0001);
+        assertEquals(1.0, engine.submit(2L, OrderSide.SELL, 100.50, 1.0, 2L), 0.0001);
+
+        double rest = engine.submit(3L, OrderSide.BUY, 101.00, 4.0, 3L);
+
+        assertEquals(1.0, rest, 0.0001);
+        assertEquals(2, fills.size());
+        assertArrayEquals(new double[]{3, 1, 100.00, 2.0}, fills.get(0), 0.0001);
+        assertArrayEquals(new double[]{3, 2, 100.50, 1.0}, fills.get(1), 0.0001);
+
+        assertTrue(engine.getAsks().isEmpty());
+        assertEquals(101.00, engine.getBids().getBestPrice(), 0.0001);
+        assertEquals(1.0, engine.getBids().getQuantityAt(101.00), 0.0001);
+        assertEquals(1, engine.getPool().size());
+    }
+
+    @Test
+    void fifoWithinLevelAndCancelShouldReturnHandlesToPool() {
+        PooledMatchingEngine engine = newEngine(4);
+
+        engine.submit(1L, OrderSide.BUY, 10.00, 1.0, 1L);
+        engine.submit(2L, OrderSide.BUY, 10.00, 1.0, 2L);
+        engine.submit(3L, OrderSide.BUY, 9.99, 1.0, 3L);
+        assertEquals(2, engine.getBids().getOrderCountAt(10.00));
+
+        assertTrue(engine.cancel(1L));
+        assertFalse(engine.cancel(1L));
+        assertEquals(2L, engine.getPool().getId(engine.getBids().peek()));
+
+        assertTrue(engine.cancel(2L));
+        assertEquals(9.99, engine.getBids().getBestPrice(), 0.0001);
+        assertEquals(1, engine.getPool().size());
+
+        // uchwyty wracają do puli, więc ta sama pojemność wystarcza na kolejne zlecenia
+        for (long id = 10; id < 1000; id++) {
+            engine.submit(id, OrderSide.SELL, 9.99, 1.0, id);
+            engine.submit(id + 10_000, OrderSide.BUY, 9.99, 1.0, id);
+        }
+        assertEquals(1, engine.getPool().size());
+    }
+
+    @Test
+    void shouldRejectInvalidInputAndExhaustedPool() {
+        PooledMatchingEngine engine = newEngine(1);
+
+        assertThrows(IllegalArgumentException.class, () -> engine.submit(1L, OrderSide.BUY, 10.005, 1.0, 1L));
+        assertThrows(IllegalArgumentException.class, () -> engine.submit(1L, OrderSide.BUY, 5_000.0, 1.0, 1L));
+        assertThrows(IllegalArgumentException.class, () -> engine.submit(1L, OrderSide.BUY, 10.0, 0.0, 1L));
+
+        engine.submit(1L, OrderSide.BUY, 10.0, 1.0, 1L);
+        assertThrows(IllegalArgumentException.class, () -> engine.submit(1L, OrderSide.BUY, 10.0, 1.0, 1L));
+        assertThrows(IllegalStateException.class, () -> engine.submit(2L, OrderSide.BUY, 10.0, 1.0, 1L));
+        assertThrows(IllegalArgumentException.class, () -> new OrderPool(0));
+    }
+}
@@ -0,0 +1,103 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Share;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PortfolioBatchTest {
+
+    private static final LocalDate D1 = LocalDate.parse("2024-01-02");
+    private static final LocalDate D2 = LocalDate.parse("2024-01-03");
+
+    private final Share aapl = new Share("AAPL", "Apple", 100.0);
+    private final Share msft = new Share("MSFT", "Microsoft", 200.0);
+
+    private List<Trade> mixedTrades() {
+        return List.of(
+                Trade.buy(aapl, 10.0, D1, 100.0),
+                Trade.buy(msft, 5.0, D1, 200.0),
+                Trade.sell("AAPL", 4.0, 110.0, D2),
+                Trade.buy(aapl, 2.0, D2, 105.0),
+                Trade.sell("AAPL", 8.0, 120.0, D2)
+        );
+    }
+
+    @Test
+    void batchShouldMatchSequentialBuysAndSells() {
+        Portfolio sequential = new Portfolio(5_000.0);
+        sequential.buyAsset(aapl, 10.0, D1, 100.0);
+        sequential.buyAsset(msft, 5.0, D1, 200.0);
+        sequential.sellAsset("AAPL", 4.0, 110.0, D2);
+        sequential.buyAsset(aapl, 2.0, D2, 105.0);
+        SaleResult lastSale = sequential.sellAsset("AAPL", 8.0, 120.0, D2);
+
+        Portfolio batched = new Portfolio(5_000.0);
+        BatchResult result = batched.applyTrades(mixedTrades(), BatchMode.ALL_OR_NOTHING);
+
+        assertTrue(result.isCommitted());
+        assertEquals(5, result.getAppliedCount());
+        assertEquals(sequential.getCashUnits(), batched.getCashUnits());
+        assertNull(batched.getPosition("AAPL"));
+        assertEquals(5.0, batched.getPosition("MSFT").getTotalQuantity(), 0.0);
+        assertNull(result.getSaleResult(0));
+        assertEquals(lastSale.getTotalProfitUnits(), result.getSaleResult(4).getTotalProfitUnits());
+        assertEquals(2, result.getSaleResult(4).getLinesCount());
+    }
+
+    @Test
+    void allOrNothingShouldLeavePortfolioUntouchedOnAnyRejection() {
+        Portfolio portfolio = new Portfolio(1_500.0);
+
+        BatchResult result = portfolio.applyTrades(mixedTrades(), BatchMode.ALL_OR_NOTHING);
+
+        assertFalse(result.isCommitted());
+        assertEquals(0, result.getAppliedCount());
+        assertEquals(TradeStatus.NOT_APPLIED, result.getStatus(0));
+        assertEquals(TradeStatus.INSUFFICIENT_FUNDS, result.getStatus(1));
+        assertEquals(1_500.0, portfolio.getCash(), 0.0);
+        assertEquals(0, portfolio.getHoldingsCount());
+    }
+
+    @Test
+    void bestEffortShouldSkipRejectedTradesOnly() {
+        Portfolio portfolio = new Portfolio(1_500.0);
+
+        BatchResult result = portfolio.applyTrades(Stream.of(
+                Trade.buy(aapl, 10.0, D1, 100.0),
+                Trade.buy(msft, 5.0, D1, 200.0),
+                Trade.sell("MSFT", 1.0, 200.0, D2),
+                Trade.sell("AAPL", 11.0, 110.0, D2),
+                Trade.sell("AAPL", 4.0, 110.0, D2)
+        ), BatchMode.BEST_EFFORT);
+
+        assertTrue(result.isCommitted());
+        assertEquals(2, result.getAppliedCount());
+        assertEquals(3, result.getRejectedCount());
+        assertEquals(TradeStatus.APPLIED, result.getStatus(0));
+        assertEquals(TradeStatus.INSUFFICIENT_FUNDS, result.getStatus(1));
+        assertEquals(TradeStatus.NO_POSITION, result.getStatus(2));
+        assertEquals(TradeStatus.INSUFFICIENT_QUANTITY, result.getStatus(3));
+        assertEquals(TradeStatus.APPLIED, result.getStatus(4));
+
+        // 1500 - (1000 + 5 opłaty) + 440
+        assertEquals(935.0, portfolio.getCash(), 0.0);
+        assertEquals(6.0, portfolio.getPosition("AAPL").getTotalQuantity(), 0.0);
+    }
+
+    @Test
+    void shouldValidateArguments() {
+        Portfolio portfolio = new Portfolio(100.0);
+
+        assertThrows(IllegalArgumentException.class, () -> portfolio.applyTrades((List<Trade>) null, BatchMode.BEST_EFFORT));
+        assertThrows(IllegalArgumentException.class, () -> portfolio.applyTrades(List.of(), null));
+        assertThrows(IllegalArgumentException.class, () -> Trade.buy(null, 1.0, D1, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> Trade.sell("AAPL", 0.0, 1.0, D1));
+        assertThrows(IllegalArgumentException.class, () -> Trade.sell("AAPL", 1.0, -1.0, D1));
+        assertThrows(IllegalArgumentException.class, () -> Trade.sell("AAPL", 1.0, 1.0, null));
+    }
+}
@@ -2,15 +2,19 @@ package com.stockmarket.logic;
 
 import com.stockmarket.domain.Commodity;
 import com.stockmarket.domain.Currency;
+import com.stockmarket.domain.FixedPoint;
 import com.stockmarket.domain.PurchaseLot;
 import com.stockmarket.domain.Share;
 import com.stockmarket.exceptions.DataIntegrityException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -81,6 +85,25 @@ class PortfolioPersistenceTest {
         assertThrows(DataIntegrityException.class, () -> persistence.load(file));
     }
 
+    @Test
+    void loadShouldCompareDeclaredQuantityExactly() throws Exception {
+        Path file = tempDir.resolve("fractional.txt");
+        Files.writeString(file,
+                "HEADER|CASH|1000.0\n" +
+                "ASSET|CURRENCY|EUR|0.3|Euro|4.3\n" +
+                "LOT|2023-05-10|0.1|4.3\n" +
+                "LOT|2023-05-11|0.2|4.3\n"
+        );
+
+        PortfolioPersistence persistence = new PortfolioPersistence();
+        Portfolio loaded = persistence.load(file);
+
+        assertEquals(FixedPoint.parse("0.3"), loaded.getPosition("EUR").getTotalQuantityUnits());
+
+        persistence.save(loaded, file);
+        assertTrue(Files.readString(file).contains("ASSET|CURRENCY|EUR|0.3|Euro|4.3"));
+    }
+
     @Test
     void loadShouldRejectBadLotLineFormat() throws Exception {
         Path file = tempDir.resolve("broken.txt");
@@ -237,5 +260,86 @@ class PortfolioPersistenceTest {
         Path missing = tempDir.resolve("missing.txt");
         assertThrows(DataIntegrityException.class, () -> persistence.load(missing));
     }
-}
 
+    @Test
+    void binarySnapshotShouldRoundTripAndBeDetectedOnLoad() throws Exception {
+        Portfolio portfolio = new Portfolio(10500.12345678);
+        portfolio.buyAsset(new Share("AAPL", "Apple", 150.0), 10, LocalDate.parse("2023-05-10"), 150.0);
+        portfolio.buyAsset(new Share("AAPL", "Apple", 150.0), 5, LocalDate.parse("2023-06-12"), 155.0);
+        portfolio.buyAsset(new Commodity("GOLD", "Złoto", 10.0, 0.25), 0.3, LocalDate.parse("2023-01-01"), 10.0);
+        portfolio.buyAsset(new Currency("EUR", "Euro", 4.3, 0.02), 100, LocalDate.parse("2023-01-01"), 4.3);
+        // częściowa sprzedaż zostawia tombstone w kolumnach partii
+        portfolio.sellAsset("AAPL", 12, 160.0, LocalDate.parse("2023-07-01"));
+
+        Path file = tempDir.resolve("portfolio.bin");
+        PortfolioPersistence persistence = new PortfolioPersistence();
+        persistence.saveBinary(portfolio, file);
+        Portfolio loaded = persistence.load(file);
+
+        assertEquals(portfolio.getCashUnits(), loaded.getCashUnits());
+        assertEquals(3, loaded.getHoldingsCount());
+        Position aapl = loaded.getPosition("AAPL");
+        assertEquals(FixedPoint.of(3), aapl.getTotalQuantityUnits());
+        assertEquals(1, aapl.getLotCount());
+        assertEquals(LocalDate.parse("2023-06-12"), aapl.getLots().peekFirst().getPurchaseDate());
+        assertEquals(155.0, aapl.getLots().peekFirst().getUnitPrice(), 1e-9);
+        assertEquals("Złoto", loaded.getPosition("GOLD").getAsset().getName());
+        assertEquals(0.25, ((Commodity) loaded.getPosition("GOLD").getAsset()).getStorageCostRatePerUnit(), 1e-12);
+        assertEquals(0.02, ((Currency) loaded.getPosition("EUR").getAsset()).getSpread(), 1e-12);
+        assertEquals(portfolio.calculateTotalValue(), loaded.calculateTotalValue(), 1e-9);
+    }
+
+    @Test
+    void binarySnapshotShouldRejectCorruptedFiles() throws Exception {
+        Portfolio portfolio = new Portfolio(1000.0);
+        portfolio.buyAsset(new Share("AAPL", "Apple", 10.0), 2, LocalDate.parse("2023-05-10"), 10.0);
+        Path file = tempDir.resolve("portfolio.bin");
+        PortfolioPersistence persistence = new PortfolioPersistence();
+        persistence.saveBinary(portfolio, file);
+        byte[] bytes = Files.readAllBytes(file);
+
+        // ucięty plik
+        Path truncated = tempDir.resolve("truncated.bin");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 5));
+        assertThrows(DataIntegrityException.class, () -> persistence.load(truncated));
+
+        // nieznana wersja
+        byte[] versioned = bytes.clone();
+        ByteBuffer.wrap(versioned).putShort(4, (short) 99);
+        Path wrongVersion = tempDir.resolve("version.bin");
+        Files.write(wrongVersion, versioned);
+        DataIntegrityException ex = assertThrows(DataIntegrityException.class, () -> persistence.load(wrongVersion));
+        assertEquals("Unsupported snapshot version: 99", ex.getMessage());
+
+        // zadeklarowana ilość niezgodna z partiami (ostatnia partia: ilość na końcu pliku)
+        byte[] mismatched = bytes.clone();
+        ByteBuffer.wrap(mismatched).putLong(mismatched.length - 8, FixedPoint.of(1));
+        Path mismatch = tempDir.resolve("mismatch.bin");
+        Files.write(mismatch, mismatched);
+        ex = assertThrows(DataIntegrityException.class, () -> persistence.load(mismatch));
+        assertTrue(ex.getMessage().startsWith("Lots quantity sum mismatch for AAPL"));
+
+        // dane za ostatnią pozycją
+        Path trailing = tempDir.resolve("trailing.bin");
+        Files.write(trailing, Arrays.copyOf(bytes, bytes.length + 1));
+        assertThrows(DataIntegrityException.class, () -> persistence.load(trailing));
+
+        // niepoprawne UTF-8 w nazwie aktywa zamiast znaku zastępczego
+        byte[] malformed = bytes.clone();
+        int name = new String(bytes, StandardCharsets.ISO_8859_1).indexOf("Apple");
+        assertTrue(name > 0);
+        malformed[name] = (byte) 0xFF;
+        Path badName = tempDir.resolve("utf8.bin");
+        Files.write(badName, malformed);
+        ex = assertThrows(DataIntegrityException.class, () -> persistence.load(badName));
+        assertEquals("Invalid UTF-8 in snapshot string", ex.getMessage());
+    }
+
+    @Test
+    void saveBinaryShouldValidateArgs() {
+        PortfolioPersistence persistence = new PortfolioPersistence();
+        assertThrows(IllegalArgumentException.class, () -> persistence.saveBinary(null, tempDir.resolve("x")));
+        assertThrows(IllegalArgumentException.class, () -> persistence.saveBinary(new Portfolio(0.0), null));
+        assertThrows(DataIntegrityException.class, () -> persistence.saveBinary(new Portfolio(0.0), tempDir));
+    }
+}
@@ -1,5 +1,6 @@
 package com.stockmarket.logic;
 
+import com.stockmarket.domain.FixedPoint;
 import com.stockmarket.domain.Share;
 import com.stockmarket.domain.Commodity;
 import com.stockmarket.domain.Currency;
@@ -49,4 +50,16 @@ class PortfolioTest {
         assertThrows(InsufficientFundsException.class,
                 () -> portfolio.buyAsset(share, 1));
     }
+
+    @Test
+    void cashAndValueShouldBeExactInUnits() {
+        Portfolio portfolio = new Portfolio(20_000_000_000.0);
+        Share share = new Share("BIG", "Big", 98765.4321);
+
+        portfolio.buyAsset(share, 123456.789);
+
+        // iloczyn ma 18 cyfr znaczących - przez double zgubiłby ostatnie
+        assertEquals(FixedPoint.parse("7806736883.7364731"), portfolio.getCashUnits());
+        assertEquals(FixedPoint.parse("12193263111.2635269"), portfolio.getAssetsValueUnits());
+    }
 }
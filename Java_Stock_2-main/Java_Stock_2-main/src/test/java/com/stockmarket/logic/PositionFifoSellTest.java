@@ -1,5 +1,6 @@
 package com.stockmarket.logic;
 
+import com.stockmarket.domain.FixedPoint;
 import com.stockmarket.domain.PurchaseLot;
 import com.stockmarket.domain.Share;
 import com.stockmarket.exceptions.InsufficientAssetQuantityException;
@@ -70,5 +71,34 @@ class PositionFifoSellTest {
 
         assertThrows(InsufficientAssetQuantityException.class, () -> position.sellFifo(3.0, 150.0));
     }
-}
 
+    @Test
+    void runningTotalsShouldMatchLotsAfterPartialSells() {
+        Position position = new Position(new Share("DCA", "DCA Corp", 1.0));
+        position.addLot(new PurchaseLot(LocalDate.parse("2023-01-01"), 100.0, 10.0));
+        position.addLot(new PurchaseLot(LocalDate.parse("2023-02-01"), 120.0, 10.0));
+        position.addLot(new PurchaseLot(LocalDate.parse("2023-03-01"), 0.33333333, 3.0));
+
+        assertEquals(23.0, position.getTotalQuantity(), 0.0);
+        assertEquals(2201.0, position.getTotalCost(), 0.0000001);
+        assertEquals(2201.0 / 23.0, position.getAverageCost(), 0.00000001);
+
+        position.sellFifo(15.0, 150.0);
+        position.sellFifo(6.5, 150.0);
+
+        long quantity = 0;
+        long cost = 0;
+        for (PurchaseLot lot : position.getLots()) {
+            quantity += lot.getQuantityUnits();
+            cost += FixedPoint.multiply(lot.getQuantityUnits(), lot.getUnitPriceUnits());
+        }
+        assertEquals(quantity, position.getTotalQuantityUnits());
+        assertEquals(cost, position.getTotalCostUnits());
+        assertEquals(1.5, position.getTotalQuantity(), 0.0);
+
+        position.sellFifo(1.5, 1.0);
+        assertEquals(0L, position.getTotalQuantityUnits());
+        assertEquals(0L, position.getTotalCostUnits());
+        assertEquals(0L, position.getAverageCostUnits());
+    }
+}
@@ -0,0 +1,126 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.PurchaseLot;
+import com.stockmarket.domain.Share;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceBookTest {
+
+    private static final LocalDate DATE = LocalDate.parse("2024-01-02");
+
+    private static double recompute(Portfolio portfolio) {
+        double sum = portfolio.getCash();
+        for (Position p : portfolio.getPositions().values()) {
+            sum += p.getAsset().calculateRealValue(p.getTotalQuantity(), p.getMarkPrice());
+        }
+        return sum;
+    }
+
+    @Test
+    void ticksShouldRevalueOnlyPositionsOfThatSymbolAcrossPortfolios() {
+        Share aapl = new Share("AAPL", "Apple", 100.0);
+        Share msft = new Share("MSFT", "Microsoft", 200.0);
+        PriceBook book = new PriceBook();
+
+        Portfolio p1 = new Portfolio(10_000.0);
+        Portfolio p2 = new Portfolio(10_000.0);
+        p1.buyAsset(aapl, 10.0, DATE, 100.0);
+        p1.buyAsset(msft, 5.0, DATE, 200.0);
+        p2.buyAsset(aapl, 3.0, DATE, 100.0);
+        p1.attachPriceBook(book);
+        p2.attachPriceBook(book);
+
+        assertEquals(2, book.getHolderCount("AAPL"));
+        assertEquals(2000.0, p1.calculateAssetsRealValue(), 0.0001);
+
+        book.update("AAPL", 110.0);
+
+        assertEquals(110.0, book.getPrice("AAPL"), 0.0);
+        assertEquals(1100.0 + 1000.0, p1.calculateAssetsRealValue(), 0.0001);
+        assertEquals(330.0, p2.calculateAssetsRealValue(), 0.0001);
+        assertEquals(recompute(p1), p1.calculateTotalValue(), 0.0001);
+        assertEquals(recompute(p2), p2.calculateTotalValue(), 0.0001);
+        // Asset pozostaje niezmienny, przeceniana jest pozycja
+        assertEquals(100.0, aapl.getMarketPrice(), 0.0);
+        assertEquals(110.0, p1.getPosition("AAPL").getMarkPrice(), 0.0);
+    }
+
+    @Test
+    void newAndClosedPositionsShouldFollowSubscriptions() {
+        Share aapl = new Share("AAPL", "Apple", 100.0);
+        PriceBook book = new PriceBook();
+        book.update("AAPL", 120.0);
+
+        Portfolio portfolio = new Portfolio(10_000.0);
+        portfolio.attachPriceBook(book);
+        portfolio.buyAsset(aapl, 10.0, DATE, 100.0);
+
+        // nowa pozycja od razu dostaje znaną cenę
+        assertEquals(1200.0, portfolio.calculateAssetsRealValue(), 0.0001);
+        assertEquals(1, book.getHolderCount("AAPL"));
+
+        portfolio.sellAsset("AAPL", 10.0, 120.0, DATE);
+        assertEquals(0, book.getHolderCount("AAPL"));
+        assertEquals(0.0, portfolio.calculateAssetsRealValue(), 0.0);
+
+        book.update("AAPL", 130.0);
+        assertEquals(recompute(portfolio), portfolio.calculateTotalValue(), 0.0001);
+
+        portfolio.buyAsset(aapl, 1.0, DATE, 130.0);
+        portfolio.detachPriceBook();
+        book.update("AAPL", 1.0);
+        assertEquals(0, book.getHolderCount("AAPL"));
+        assertEquals(130.0, portfolio.calculateAssetsRealValue(), 0.0001);
+    }
+
+    @Test
+    void directMapChangesShouldKeepTotalsConsistent() {
+        PriceBook book = new PriceBook();
+        Portfolio portfolio = new Portfolio(0.0);
+        portfolio.attachPriceBook(book);
+
+        Position oil = new Position(new Commodity("OIL", "Oil", 80.0, 0.01));
+        oil.addLot(new PurchaseLot(DATE, 80.0, 10.0));
+        Position gold = new Position(new Share("GLD", "Gold ETF", 50.0));
+        gold.addLot(new PurchaseLot(DATE, 50.0, 2.0));
+
+        portfolio.getPositions().put("OIL", oil);
+        portfolio.getPositions().put("GLD", gold);
+        assertEquals(720.0 + 100.0, portfolio.calculateAssetsRealValue(), 0.0001);
+
+        book.update("OIL", 90.0);
+        assertEquals(810.0 + 100.0, portfolio.calculateAssetsRealValue(), 0.0001);
+
+        Iterator<Map.Entry<String, Position>> it = portfolio.getPositions().entrySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().getKey().equals("OIL")) it.remove();
+        }
+        assertEquals(100.0, portfolio.calculateAssetsRealValue(), 0.0001);
+        assertEquals(0, book.getHolderCount("OIL"));
+
+        Portfolio other = new Portfolio(0.0);
+        assertThrows(IllegalArgumentException.class, () -> other.getPositions().put("GLD", gold));
+
+        portfolio.getPositions().clear();
+        assertEquals(0.0, portfolio.calculateAssetsRealValue(), 0.0);
+        assertEquals(0, book.getHolderCount("GLD"));
+    }
+
+    @Test
+    void shouldValidateArguments() {
+        PriceBook book = new PriceBook();
+
+        assertThrows(IllegalArgumentException.class, () -> book.update(null, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> book.update("X", -1.0));
+        assertThrows(IllegalStateException.class, () -> book.getPrice("X"));
+        assertFalse(book.hasPrice("X"));
+        assertThrows(IllegalArgumentException.class, () -> new Portfolio(0.0).attachPriceBook(null));
+    }
+}
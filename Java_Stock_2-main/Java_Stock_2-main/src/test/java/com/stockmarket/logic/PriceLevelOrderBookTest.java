@@ -0,0 +1,98 @@
+package com.stockmarket.logic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceLevelOrderBookTest {
+
+    @Test
+    void buyBookShouldKeepBestPriceAndFifoWithinLevelIgnoringTimestamps() {
+        PriceLevelOrderBook book = new PriceLevelOrderBook(OrderSide.BUY);
+
+        // znaczniki czasu celowo odwrócone - o kolejności decyduje przybycie do księgi
+        Order first = new Order("XYZ", OrderSide.BUY, 100.0, 1.0, 50L);
+        Order second = new Order("XYZ", OrderSide.BUY, 100.0, 2.0, 10L);
+        Order better = new Order("XYZ", OrderSide.BUY, 101.0, 1.0, 99L);
+
+        book.add(first);
+        book.add(second);
+        assertSame(first, book.peek());
+
+        book.add(better);
+        assertEquals(101.0, book.getBestPrice(), 0.0001);
+        assertEquals(2, book.getLevelCount());
+        assertEquals(3.0, book.getQuantityAt(100.0), 0.0001);
+        assertEquals(2, book.getOrderCountAt(100.0));
+
+        assertSame(better, book.poll());
+        assertSame(first, book.poll());
+        assertSame(second, book.poll());
+        assertNull(book.poll());
+        assertEquals(0, book.size());
+        assertEquals(0, book.getLevelCount());
+    }
+
+    @Test
+    void sellBookShouldPreferLowerPrice() {
+        PriceLevelOrderBook book = new PriceLevelOrderBook(OrderSide.SELL);
+
+        Order expensive = new Order("XYZ", OrderSide.SELL, 120.0, 1.0, 1L);
+        Order cheap = new Order("XYZ", OrderSide.SELL, 110.0, 1.0, 2L);
+        book.add(expensive);
+        book.add(cheap);
+
+        assertSame(cheap, book.peek());
+        assertEquals(110.0, book.getBestPrice(), 0.0001);
+    }
+
+    @Test
+    void fillHeadShouldUpdateLevelQuantityAndRemoveFilledOrders() {
+        PriceLevelOrderBook book = new PriceLevelOrderBook(OrderSide.SELL);
+        Order a = new Order("XYZ", OrderSide.SELL, 10.0, 3.0, 1L);
+        Order b = new Order("XYZ", OrderSide.SELL, 10.0, 2.0, 2L);
+        book.add(a);
+        book.add(b);
+
+        book.fillHead(1.0);
+        assertSame(a, book.peek());
+        assertEquals(4.0, book.getQuantityAt(10.0), 0.0001);
+
+        book.fillHead(2.0);
+        assertSame(b, book.peek());
+        assertEquals(1, book.size());
+        assertEquals(2.0, book.getQuantityAt(10.0), 0.0001);
+    }
+
+    @Test
+    void addShouldValidateOrders() {
+        PriceLevelOrderBook book = new PriceLevelOrderBook(OrderSide.BUY);
+        Order order = new Order("XYZ", OrderSide.BUY, 10.0, 1.0, 1L);
+        book.add(order);
+
+        assertThrows(IllegalArgumentException.class, () -> new PriceLevelOrderBook(null));
+        assertThrows(IllegalArgumentException.class, () -> book.add(null));
+        assertThrows(IllegalArgumentException.class, () -> book.add(order));
+        assertThrows(IllegalArgumentException.class,
+                () -> book.add(new Order("XYZ", OrderSide.SELL, 10.0, 1.0, 1L)));
+        assertThrows(IllegalStateException.class, () -> new PriceLevelOrderBook(OrderSide.SELL).getBestPrice());
+    }
+
+    @Test
+    void matchingEngineShouldProduceSameFillsOnHeapBook() {
+        List<Fill> fills = new ArrayList<>();
+        MatchingEngine engine = new MatchingEngine(fills::add, OrderBook::new);
+
+        engine.submit(new Order("XYZ", OrderSide.SELL, 100.0, 1.0, 1L));
+        engine.submit(new Order("XYZ", OrderSide.SELL, 99.0, 1.0, 2L));
+        engine.submit(new Order("XYZ", OrderSide.BUY, 100.0, 2.0, 3L));
+
+        assertEquals(2, fills.size());
+        assertEquals(99.0, fills.get(0).getPrice(), 0.0001);
+        assertEquals(100.0, fills.get(1).getPrice(), 0.0001);
+        assertTrue(engine.getBook("XYZ", OrderSide.SELL) instanceof OrderBook);
+    }
+}
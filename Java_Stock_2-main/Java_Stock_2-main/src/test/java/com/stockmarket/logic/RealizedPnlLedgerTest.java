@@ -0,0 +1,163 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.FixedPoint;
+import com.stockmarket.domain.PurchaseLot;
+import com.stockmarket.domain.Share;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RealizedPnlLedgerTest {
+
+    @Test
+    void portfolioShouldRecordEverySaleLine() {
+        Portfolio portfolio = new Portfolio(100_000.0);
+        RealizedPnlLedger ledger = new RealizedPnlLedger();
+        portfolio.setLedger(ledger);
+
+        Share aapl = new Share("AAPL", "Apple", 100.0);
+        portfolio.buyAsset(aapl, 10, LocalDate.parse("2023-01-10"), 100.0);
+        portfolio.buyAsset(aapl, 10, LocalDate.parse("2023-02-10"), 120.0);
+
+        portfolio.sellAsset("AAPL", 15, 130.0, LocalDate.parse("2023-03-15"));
+        portfolio.sellAsset("AAPL", 5, 110.0, LocalDate.parse("2024-01-05"));
+
+        assertEquals(3, ledger.size());
+        assertEquals("AAPL", ledger.getSymbol(0));
+        assertEquals(LocalDate.parse("2023-01-10"), ledger.getLotDate(0));
+        assertEquals(LocalDate.parse("2023-03-15"), ledger.getSaleDate(1));
+        assertEquals(5.0, ledger.getSoldQuantity(1), 1e-9);
+
+        // 10*30 + 5*10 = 350 w 2023, 5*(-10) = -50 w 2024
+        assertEquals(350.0, ledger.getRealizedPnl("AAPL", Year.of(2023)), 1e-9);
+        assertEquals(350.0, ledger.getRealizedPnl("AAPL", YearMonth.of(2023, 3)), 1e-9);
+        assertEquals(0.0, ledger.getRealizedPnl("AAPL", YearMonth.of(2023, 4)), 1e-9);
+        assertEquals(-50.0, ledger.getRealizedPnl("AAPL", Year.of(2024)), 1e-9);
+        assertEquals(300.0, ledger.getRealizedPnl("AAPL"), 1e-9);
+        assertEquals(300.0, ledger.getTotalRealizedPnl(), 1e-9);
+        assertEquals(0.0, ledger.getRealizedPnl("MSFT"), 1e-9);
+    }
+
+    @Test
+    void batchSalesShouldBeRecordedWithTradeDates() {
+        Portfolio portfolio = new Portfolio(100_000.0);
+        RealizedPnlLedger ledger = new RealizedPnlLedger();
+        portfolio.setLedger(ledger);
+        Share aapl = new Share("AAPL", "Apple", 100.0);
+
+        portfolio.applyTrades(List.of(
+                Trade.buy(aapl, 10, LocalDate.parse("2023-01-02"), 100.0),
+                Trade.sell("AAPL", 4, 110.0, LocalDate.parse("2023-05-02"))
+        ), BatchMode.ALL_OR_NOTHING);
+
+        assertEquals(1, ledger.size());
+        assertEquals(40.0, ledger.getTotalRealizedPnl(YearMonth.of(2023, 5)), 1e-9);
+    }
+
+    @Test
+    void sinkShouldRecordWithoutSaleResult() {
+        Position position = new Position(new Share("AAPL", "Apple", 100.0));
+        position.addLot(new PurchaseLot(LocalDate.parse("2023-01-10"), 100.0, 10.0));
+        RealizedPnlLedger ledger = new RealizedPnlLedger();
+
+        position.sellUnits(CostBasisMethod.FIFO, FixedPoint.of(4), FixedPoint.of(105),
+                ledger.sink("AAPL", LocalDate.parse("2023-06-01")));
+
+        assertEquals(1, ledger.size());
+        assertEquals(20.0, ledger.getRealizedPnl("AAPL", LocalDate.parse("2023-06-01"), LocalDate.parse("2023-06-01")), 1e-9);
+        assertThrows(IllegalStateException.class,
+                () -> new RealizedPnlLedger().onLot(1, 0, 1, 1, 1, 0));
+        // kontekst nie przechodzi na kolejne sprzedaże
+        assertThrows(IllegalStateException.class, () -> ledger.onLot(1, 0, 1, 1, 1, 0));
+    }
+
+    @Test
+    void unitSalesShouldReachLedgerAndCaller() {
+        Portfolio portfolio = new Portfolio(100_000.0);
+        RealizedPnlLedger ledger = new RealizedPnlLedger();
+        portfolio.setLedger(ledger);
+        Share aapl = new Share("AAPL", "Apple", 100.0);
+        portfolio.buyAsset(aapl, 10, LocalDate.parse("2023-01-10"), 100.0);
+        portfolio.buyAsset(new Share("MSFT", "Microsoft", 200.0), 10, LocalDate.parse("2023-01-10"), 200.0);
+
+        SaleAccumulator acc = new SaleAccumulator();
+        portfolio.sellAssetUnits("AAPL", FixedPoint.of(4), FixedPoint.of(110), LocalDate.parse("2023-06-01"),
+                CostBasisMethod.FIFO, acc);
+        // odbiorcą może być sama księga - zapis raz, nie dwa
+        portfolio.sellAssetUnits("MSFT", FixedPoint.of(2), FixedPoint.of(190), LocalDate.parse("2023-07-01"),
+                CostBasisMethod.FIFO, ledger);
+
+        assertEquals(1, acc.getLotCount());
+        assertEquals(2, ledger.size());
+        assertEquals(40.0, ledger.getRealizedPnl("AAPL", YearMonth.of(2023, 6)), 1e-9);
+        assertEquals(-20.0, ledger.getRealizedPnl("MSFT", YearMonth.of(2023, 7)), 1e-9);
+        assertThrows(IllegalStateException.class, () -> ledger.onLot(1, 0, 1, 1, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> portfolio.sellAssetUnits("AAPL", FixedPoint.of(1),
+                FixedPoint.of(110), null, CostBasisMethod.FIFO, acc));
+        assertEquals(6.0, portfolio.getPosition("AAPL").getTotalQuantity(), 1e-9);
+    }
+
+    @Test
+    void rangeQueriesShouldMatchBruteForceAcrossYears() {
+        Random random = new Random(19);
+        RealizedPnlLedger ledger = new RealizedPnlLedger();
+        String[] symbols = {"AAPL", "MSFT", "GOLD"};
+        int start = (int) LocalDate.parse("2015-01-01").toEpochDay();
+        int span = 3650;
+
+        int n = 5000;
+        int[] symbol = new int[n];
+        int[] day = new int[n];
+        long[] profit = new long[n];
+        for (int i = 0; i < n; i++) {
+            symbol[i] = random.nextInt(symbols.length);
+            // daty w losowej kolejności, żeby zakres drzewa rósł w obie strony
+            day[i] = start + random.nextInt(span);
+            profit[i] = FixedPoint.of(random.nextInt(20_001) - 10_000) / 100;
+            ledger.sink(symbols[symbol[i]], LocalDate.ofEpochDay(day[i]))
+                    .onLot(i, day[i] - 30, FixedPoint.of(1), 0, 0, profit[i]);
+        }
+
+        for (int q = 0; q < 200; q++) {
+            int s = random.nextInt(symbols.length);
+            int a = start - 10 + random.nextInt(span + 20);
+            int b = a + random.nextInt(400);
+
+            long expected = 0;
+            long expectedAll = 0;
+            for (int i = 0; i < n; i++) {
+                if (day[i] < a || day[i] > b) continue;
+                expectedAll += profit[i];
+                if (symbol[i] == s) expected += profit[i];
+            }
+            LocalDate from = LocalDate.ofEpochDay(a);
+            LocalDate to = LocalDate.ofEpochDay(b);
+            assertEquals(expected, ledger.getRealizedPnlUnits(symbols[s], from, to));
+            assertEquals(expectedAll, ledger.getTotalRealizedPnlUnits(from, to));
+        }
+    }
+
+    @Test
+    void shouldValidateArguments() {
+        RealizedPnlLedger ledger = new RealizedPnlLedger();
+        LocalDate d = LocalDate.parse("2023-01-01");
+
+        assertThrows(IllegalArgumentException.class, () -> ledger.sink(null, d));
+        assertThrows(IllegalArgumentException.class, () -> ledger.sink("AAPL", null));
+        assertThrows(IllegalArgumentException.class, () -> ledger.record("AAPL", d, null));
+        assertThrows(IllegalArgumentException.class, () -> ledger.getRealizedPnl("AAPL", d, d.minusDays(1)));
+        assertThrows(IndexOutOfBoundsException.class, () -> ledger.getProfit(0));
+
+        Portfolio portfolio = new Portfolio(10_000.0);
+        portfolio.setLedger(ledger);
+        portfolio.buyAsset(new Share("AAPL", "Apple", 100.0), 1, d, 100.0);
+        assertThrows(IllegalArgumentException.class, () -> portfolio.sellAsset("AAPL", 1, 100.0, null));
+        assertEquals(1.0, portfolio.getPosition("AAPL").getTotalQuantity(), 1e-9);
+    }
+}
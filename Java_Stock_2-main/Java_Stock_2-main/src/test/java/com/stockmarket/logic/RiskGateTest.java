@@ -0,0 +1,197 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Share;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RiskGateTest {
+
+    private static Portfolio portfolioWithAapl() {
+        Portfolio portfolio = new Portfolio(10_000.0);
+        portfolio.buyAsset(new Share("AAPL", "Apple", 100.0), 10, LocalDate.parse("2023-01-02"), 100.0);
+        return portfolio;
+    }
+
+    @Test
+    void shouldRejectOrdersBeyondCashOrPosition() {
+        Portfolio portfolio = portfolioWithAapl();
+        RiskGate gate = new RiskGate(portfolio);
+        double cash = portfolio.getCash();
+
+        // kupno tylko znanych instrumentów
+        assertFalse(gate.tryReserve(new Order("MSFT", OrderSide.BUY, 100.0, 50, 1)));
+        gate.addAsset(new Share("MSFT", "Microsoft", 100.0));
+        assertTrue(gate.tryReserve(new Order("MSFT", OrderSide.BUY, 100.0, 50, 1)));
+        assertEquals(cash - 5_000, gate.getAvailableCash(), 1e-9);
+        assertFalse(gate.tryReserve(new Order("MSFT", OrderSide.BUY, 100.0, cash / 100, 2)));
+
+        assertTrue(gate.tryReserve(new Order("AAPL", OrderSide.SELL, 120.0, 6, 3)));
+        assertFalse(gate.tryReserve(new Order("AAPL", OrderSide.SELL, 120.0, 5, 4)));
+        assertFalse(gate.tryReserve(new Order("MSFT", OrderSide.SELL, 120.0, 1, 5)));
+        assertEquals(4.0, gate.getAvailableQuantity("AAPL"), 1e-9);
+        assertEquals(0.0, gate.getAvailableQuantity("MSFT"), 1e-9);
+    }
+
+    @Test
+    void cancelShouldReleaseReservation() {
+        RiskGate gate = new RiskGate(portfolioWithAapl());
+        MatchingEngine engine = new MatchingEngine(gate);
+        double cash = gate.getAvailableCash();
+
+        Order buy = new Order("AAPL", OrderSide.BUY, 90.0, 10, 1);
+        Order sell = new Order("AAPL", OrderSide.SELL, 120.0, 10, 2);
+        assertTrue(gate.submit(engine, buy));
+        assertTrue(gate.submit(engine, sell));
+        assertEquals(cash - 900, gate.getAvailableCash(), 1e-9);
+        assertEquals(0.0, gate.getAvailableQuantity("AAPL"), 1e-9);
+
+        assertTrue(gate.cancel(engine, buy));
+        assertTrue(gate.cancel(engine, sell));
+        assertFalse(gate.cancel(engine, sell));
+        assertFalse(gate.release(sell));
+        assertEquals(cash, gate.getAvailableCash(), 1e-9);
+        assertEquals(10.0, gate.getAvailableQuantity("AAPL"), 1e-9);
+    }
+
+    @Test
+    void fillsShouldSettleAtTradePriceAndReturnLimitSurplus() {
+        RiskGate gate = new RiskGate(portfolioWithAapl());
+        MatchingEngine engine = new MatchingEngine(gate);
+        double cash = gate.getAvailableCash();
+
+        assertTrue(gate.submit(engine, new Order("AAPL", OrderSide.SELL, 95.0, 4, 1)));
+        // kupno z limitem 100, realizacja 4 po 95, reszta 6 czeka z rezerwacją 600
+        Order buy = new Order("AAPL", OrderSide.BUY, 100.0, 10, 2);
+        assertTrue(gate.submit(engine, buy));
+
+        assertEquals(cash - 600, gate.getAvailableCash(), 1e-9);
+        assertEquals(10.0, gate.getAvailableQuantity("AAPL"), 1e-9);
+
+        assertTrue(gate.cancel(engine, buy));
+        assertEquals(cash, gate.getAvailableCash(), 1e-9);
+    }
+
+    @Test
+    void fillsShouldBeBookedInPortfolio() {
+        Portfolio portfolio = portfolioWithAapl();
+        RealizedPnlLedger ledger = new RealizedPnlLedger();
+        portfolio.setLedger(ledger);
+        LocalDate tradeDay = LocalDate.parse("2023-03-15");
+        RiskGate gate = new RiskGate(portfolio, Clock.fixed(Instant.parse("2023-03-15T12:00:00Z"), ZoneOffset.UTC));
+        gate.addAsset(new Share("MSFT", "Microsoft", 200.0));
+        MatchingEngine engine = new MatchingEngine(gate);
+        double cash = portfolio.getCash();
+
+        // druga strona spoza bramki - księgowana jest tylko strona z rezerwacją
+        engine.submit(new Order("MSFT", OrderSide.SELL, 200.0, 3, 1));
+        assertTrue(gate.submit(engine, new Order("MSFT", OrderSide.BUY, 210.0, 5, 2)));
+        assertEquals(3.0, portfolio.getPosition("MSFT").getTotalQuantity(), 1e-9);
+        assertEquals(tradeDay, portfolio.getPosition("MSFT").getLots().peekFirst().getPurchaseDate());
+        assertEquals(cash - 600, portfolio.getCash(), 1e-9);
+        assertEquals(cash - 600 - 420, gate.getAvailableCash(), 1e-9);
+        assertEquals(3.0, gate.getAvailableQuantity("MSFT"), 1e-9);
+
+        assertTrue(gate.submit(engine, new Order("AAPL", OrderSide.SELL, 100.0, 10, 3)));
+        engine.submit(new Order("AAPL", OrderSide.BUY, 100.0, 10, 4));
+        assertNull(portfolio.getPosition("AAPL"));
+        assertEquals(cash + 400, portfolio.getCash(), 1e-9);
+        assertEquals(0.0, gate.getAvailableQuantity("AAPL"), 1e-9);
+        assertFalse(gate.tryReserve(new Order("AAPL", OrderSide.SELL, 100.0, 1, 5)));
+        assertEquals(tradeDay, ledger.getSaleDate(0));
+    }
+
+    @Test
+    void directPortfolioChangesShouldReachGate() {
+        Portfolio portfolio = portfolioWithAapl();
+        RiskGate gate = new RiskGate(portfolio);
+        double cash = gate.getAvailableCash();
+
+        portfolio.sellAsset("AAPL", 8, 110.0, LocalDate.parse("2023-02-01"));
+        assertEquals(2.0, gate.getAvailableQuantity("AAPL"), 1e-9);
+        assertEquals(cash + 880, gate.getAvailableCash(), 1e-9);
+        assertFalse(gate.tryReserve(new Order("AAPL", OrderSide.SELL, 110.0, 3, 1)));
+
+        portfolio.buyAsset(new Share("MSFT", "Microsoft", 200.0), 2, LocalDate.parse("2023-02-02"), 200.0);
+        assertEquals(2.0, gate.getAvailableQuantity("MSFT"), 1e-9);
+        assertEquals(portfolio.getCash(), gate.getAvailableCash(), 1e-9);
+        assertTrue(gate.tryReserve(new Order("MSFT", OrderSide.BUY, 200.0, 1, 2)));
+
+        portfolio.applyTrades(List.of(
+                Trade.sell("AAPL", 2, 120.0, LocalDate.parse("2023-02-03"))
+        ), BatchMode.ALL_OR_NOTHING);
+        assertEquals(0.0, gate.getAvailableQuantity("AAPL"), 1e-9);
+        assertEquals(portfolio.getCash() - 200, gate.getAvailableCash(), 1e-9);
+    }
+
+    @Test
+    void amendShouldTopUpOrReturnReservation() {
+        RiskGate gate = new RiskGate(portfolioWithAapl());
+        MatchingEngine engine = new MatchingEngine(gate);
+        double cash = gate.getAvailableCash();
+
+        Order buy = new Order("AAPL", OrderSide.BUY, 50.0, 10, 1);
+        assertTrue(gate.submit(engine, buy));
+        assertTrue(gate.amend(engine, buy, 20, 50.0));
+        assertEquals(cash - 1_000, gate.getAvailableCash(), 1e-9);
+        assertFalse(gate.amend(engine, buy, 1_000, 50.0));
+        assertEquals(20.0, buy.getRemainingQuantity(), 1e-9);
+        assertTrue(gate.amend(engine, buy, 5, 40.0));
+        assertEquals(cash - 200, gate.getAvailableCash(), 1e-9);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> gate.amend(engine, new Order("AAPL", OrderSide.BUY, 1.0, 1, 2), 1, 1.0));
+    }
+
+    @Test
+    void concurrentReservationsShouldNeverOvercommit() throws Exception {
+        RiskGate gate = new RiskGate(new Portfolio(1_000.0));
+        gate.addAsset(new Share("AAPL", "Apple", 1.0));
+        int threads = 8;
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 1_000; i++) {
+                    if (gate.tryReserve(new Order("AAPL", OrderSide.BUY, 1.0, 1, i))) accepted.incrementAndGet();
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread w : workers) w.join();
+
+        assertEquals(1_000, accepted.get());
+        assertEquals(0.0, gate.getAvailableCash(), 1e-9);
+    }
+
+    @Test
+    void shouldValidateArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new RiskGate(null));
+        assertThrows(IllegalArgumentException.class, () -> new RiskGate(new Portfolio(1.0), null));
+        Portfolio portfolio = new Portfolio(100.0);
+        RiskGate gate = new RiskGate(portfolio);
+        assertThrows(IllegalArgumentException.class, () -> new RiskGate(portfolio));
+        assertThrows(IllegalArgumentException.class, () -> gate.addAsset(null));
+        gate.addAsset(new Share("AAPL", "Apple", 1.0));
+        Order order = new Order("AAPL", OrderSide.BUY, 1.0, 1, 1);
+        assertThrows(IllegalArgumentException.class, () -> gate.tryReserve(null));
+        assertTrue(gate.tryReserve(order));
+        assertThrows(IllegalArgumentException.class, () -> gate.tryReserve(order));
+        assertThrows(IllegalArgumentException.class, () -> gate.submit(null, order));
+    }
+}
@@ -0,0 +1,101 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.FixedPoint;
+import com.stockmarket.domain.Share;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SaleSinkTest {
+
+    private static final LocalDate DAY0 = LocalDate.parse("2023-01-01");
+
+    private static Position position(int lots) {
+        Position position = new Position(new Share("XYZ", "XYZ Corp", 1.0));
+        for (int i = 0; i < lots; i++) {
+            position.addLotUnits(DAY0.plusDays(i), FixedPoint.of(100.0 + i), FixedPoint.of(2.0));
+        }
+        return position;
+    }
+
+    @Test
+    void sinkShouldReceiveSameDetailsAsSaleResult() {
+        SaleResult expected = position(3).sellFifo(5.0, 110.0);
+
+        List<long[]> calls = new ArrayList<>();
+        long profit = position(3).sellUnits(CostBasisMethod.FIFO, FixedPoint.of(5.0), FixedPoint.of(110.0),
+                (lotId, day, qty, buy, sell, lineProfit) -> calls.add(new long[]{lotId, day, qty, buy, sell, lineProfit}));
+
+        assertEquals(expected.getTotalProfitUnits(), profit);
+        assertEquals(expected.getLinesCount(), calls.size());
+        for (int i = 0; i < calls.size(); i++) {
+            SaleLine line = expected.getLine(i);
+            long[] call = calls.get(i);
+            assertEquals(i, call[0]);
+            assertEquals(line.getLotDate().toEpochDay(), call[1]);
+            assertEquals(line.getSoldQuantityUnits(), call[2]);
+            assertEquals(line.getBuyUnitPriceUnits(), call[3]);
+            assertEquals(line.getSellUnitPriceUnits(), call[4]);
+            assertEquals(line.getProfitUnits(), call[5]);
+        }
+    }
+
+    @Test
+    void accumulatorShouldSumAcrossSalesUntilReset() {
+        Portfolio portfolio = new Portfolio(10_000.0);
+        Share share = new Share("XYZ", "XYZ Corp", 100.0);
+        portfolio.buyAsset(share, 10.0, DAY0, 100.0);
+        portfolio.buyAsset(share, 10.0, DAY0.plusDays(1), 120.0);
+
+        SaleAccumulator acc = new SaleAccumulator();
+        portfolio.sellAssetUnits("XYZ", FixedPoint.of(5.0), FixedPoint.of(130.0), DAY0.plusDays(2), CostBasisMethod.LIFO, acc);
+        long profit = portfolio.sellAssetUnits("XYZ", FixedPoint.of(10.0), FixedPoint.of(130.0), DAY0.plusDays(2), CostBasisMethod.LIFO, acc);
+
+        assertEquals(FixedPoint.of(5 * 10.0 + 30.0 * 5), profit);
+        assertEquals(3, acc.getLotCount());
+        assertEquals(15.0, acc.getSoldQuantity(), 0.0);
+        assertEquals(FixedPoint.of(15 * 130.0), acc.getProceedsUnits());
+        assertEquals(FixedPoint.of(10 * 120.0 + 5 * 100.0), acc.getCostBasisUnits());
+        assertEquals(acc.getProceedsUnits() - acc.getCostBasisUnits(), acc.getProfitUnits());
+        // koszt nabycia liczony po cenie rynkowej aktywa: 10000 - 2 * (1000 + 5 opłaty) + 15 * 130
+        assertEquals(10_000.0 - 2 * 1005.0 + 1950.0, portfolio.getCash(), 0.0);
+
+        acc.reset();
+        assertEquals(0, acc.getLotCount());
+        assertEquals(0L, acc.getProfitUnits());
+        assertThrows(IllegalArgumentException.class,
+                () -> portfolio.sellAssetUnits("XYZ", 1, 1, DAY0, CostBasisMethod.FIFO, null));
+    }
+
+    @Test
+    void warmSalesIntoReusableSinkShouldNotAllocate() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean)
+                || !bean.isThreadAllocatedMemorySupported()) {
+            return;
+        }
+        bean.setThreadAllocatedMemoryEnabled(true);
+
+        Position position = position(50_000);
+        SaleAccumulator acc = new SaleAccumulator();
+        long qty = FixedPoint.of(1.0);
+        long price = FixedPoint.of(150.0);
+        for (int i = 0; i < 1_000; i++) {
+            position.sellUnits(CostBasisMethod.FIFO, qty, price, acc);
+        }
+
+        long threadId = Thread.currentThread().threadId();
+        long before = bean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 10_000; i++) {
+            position.sellUnits(CostBasisMethod.FIFO, qty, price, acc);
+        }
+        long allocated = bean.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals(11_000, acc.getLotCount());
+        assertTrue(allocated < 4_096, "allocated " + allocated + " bytes");
+    }
+}
@@ -0,0 +1,102 @@
+package com.stockmarket.logic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedOrderProcessorTest {
+
+    @Test
+    void sameSymbolShouldAlwaysMapToSameShard() throws Exception {
+        try (ShardedOrderProcessor processor = new ShardedOrderProcessor(4, 16, WaitStrategy.PARK, 8, f -> { })) {
+            for (String s : List.of("AAPL", "MSFT", "GOLD", "EUR", "XYZ")) {
+                int shard = processor.shardOf(s);
+                assertTrue(shard >= 0 && shard < 4);
+                assertEquals(shard, processor.shardOf(s));
+            }
+            assertThrows(IllegalArgumentException.class, () -> processor.shardOf(null));
+        }
+    }
+
+    @Test
+    void fillsPerSymbolShouldFollowSubmissionOrder() throws Exception {
+        Map<String, List<Long>> fillsBySymbol = new ConcurrentHashMap<>();
+        List<String> symbols = List.of("AAA", "BBB", "CCC", "DDD", "EEE", "FFF");
+
+        ShardedOrderProcessor processor = new ShardedOrderProcessor(3, 64, WaitStrategy.YIELD, 16,
+                f -> fillsBySymbol.computeIfAbsent(f.getSymbol(), k -> Collections.synchronizedList(new ArrayList<>()))
+                        .add(f.getSellOrder().getId()));
+        processor.start();
+
+        long id = 1;
+        for (int round = 0; round < 500; round++) {
+            for (String s : symbols) {
+                processor.submit(new Order(id++, s, OrderSide.SELL, 10.0, 1.0, round));
+            }
+        }
+        for (String s : symbols) {
+            processor.submit(new Order(id++, s, OrderSide.BUY, 10.0, 500.0, 0L));
+        }
+        processor.shutdown();
+
+        assertEquals(symbols.size() * 501L, processor.getTotalProcessedCount());
+        for (String s : symbols) {
+            List<Long> ids = fillsBySymbol.get(s);
+            assertEquals(500, ids.size());
+            for (int i = 1; i < ids.size(); i++) {
+                assertTrue(ids.get(i - 1) < ids.get(i), "fills for " + s + " out of order");
+            }
+        }
+    }
+
+    @Test
+    void trySubmitShouldApplyBackpressureBeforeStart() throws Exception {
+        ShardedOrderProcessor processor = new ShardedOrderProcessor(1, 2, WaitStrategy.BUSY_SPIN, 1, f -> { });
+
+        assertTrue(processor.trySubmit(new Order("XYZ", OrderSide.BUY, 1.0, 1.0, 1L)));
+        assertTrue(processor.trySubmit(new Order("XYZ", OrderSide.BUY, 1.0, 1.0, 1L)));
+        assertFalse(processor.trySubmit(new Order("XYZ", OrderSide.BUY, 1.0, 1.0, 1L)));
+        assertEquals(2, processor.getQueueDepth(0));
+
+        processor.start();
+        assertThrows(IllegalStateException.class, processor::start);
+        processor.shutdown();
+
+        assertEquals(2, processor.getProcessedCount(0));
+        assertEquals(0, processor.getRejectedCount(0));
+        assertThrows(IllegalArgumentException.class, () -> new ShardedOrderProcessor(0, 2, WaitStrategy.PARK, 1, f -> { }));
+    }
+
+    @Test
+    void commandsAfterShutdownShouldBeRejected() throws Exception {
+        ShardedOrderProcessor processor = new ShardedOrderProcessor(2, 4, WaitStrategy.PARK, 1, f -> { });
+        processor.start();
+        processor.shutdown();
+
+        Order order = new Order("XYZ", OrderSide.BUY, 1.0, 1.0, 1L);
+        assertThrows(IllegalStateException.class, () -> processor.submit(order));
+        assertThrows(IllegalStateException.class, () -> processor.trySubmit(order));
+        assertThrows(IllegalStateException.class, () -> processor.cancel("XYZ", 1L));
+        assertThrows(IllegalStateException.class, () -> processor.amend("XYZ", 1L, 1.0, 1.0));
+        assertThrows(IllegalStateException.class, processor::start);
+        processor.close();
+    }
+
+    @Test
+    void shutdownBeforeStartShouldDrainPublishedCommands() throws Exception {
+        ShardedOrderProcessor processor = new ShardedOrderProcessor(1, 4, WaitStrategy.PARK, 1, f -> { });
+        processor.submit(new Order("XYZ", OrderSide.BUY, 1.0, 1.0, 1L));
+        processor.cancel("XYZ", 12345L);
+
+        processor.shutdown();
+        assertEquals(0, processor.getQueueDepth(0));
+        assertEquals(2, processor.getProcessedCount(0));
+        assertThrows(IllegalStateException.class, () -> processor.submit(new Order("XYZ", OrderSide.BUY, 1.0, 1.0, 2L)));
+    }
+}